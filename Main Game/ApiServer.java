@@ -0,0 +1,557 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Headless HTTP server giving scheduling tools the same queries and
+ * changes as the menus, as JSON. Every request runs on its own virtual
+ * thread where the JDK has them, otherwise on a pool of THREADS threads;
+ * Model is safe to share, so queries are answered side by side and only
+ * changes wait for each other. Answers are written from copies Model
+ * takes under its locks, never from records a change may be part way
+ * through.
+ * Requests take their fields from the query string or a flat JSON body,
+ * whichever is given. Changes given a version, or a courseVersion and
+ * staffVersion, only go ahead if the records are still at those
+ * versions, and answer 409 Conflict if not. A read-only model answers
+ * 403 to changes and saves. Unexpected failures answer 500 with no
+ * details, which are logged by the server instead.
+ *
+ * 	GET    /staff                      ?available= &trained= &name= &prefix= &search= &distance= &limit=
+ * 	POST   /staff                      name
+ * 	GET    /staff/{id}
+ * 	GET    /staff/{id}/courses
+ * 	DELETE /staff/{id}/courses         remove from all courses
+ * 	POST   /staff/{id}/train           version
+ * 	GET    /courses                    ?status=approved|unapproved|full &search= &distance= &limit=
+ * 	POST   /courses                    name, requiredStaff
+ * 	GET    /courses/{id}
+ * 	GET    /courses/{id}/staff
+ * 	PUT    /courses/{id}/staff/{staffID}    courseVersion, staffVersion
+ * 	DELETE /courses/{id}/staff/{staffID}    courseVersion, staffVersion
+ * 	PUT    /courses/{id}/requirements  requiredStaff, version
+ * 	PUT    /courses/{id}/approval      approved, version
+ * 	GET    /counts
+ * 	POST   /save
+ *
+ *
+ * Public methods:
+ * 	public static void main(String[] args)
+ * 	public ApiServer(Model model, int port)
+ * 	public void start()
+ * 	public int getPort()
+ * 	public void stop()
+ */
+public class ApiServer {
+
+	/**
+	 * Port listened on when not given
+	 */
+	public static final int DEFAULT_PORT = 8080;
+
+	/**
+	 * Threads handling requests when the JDK has no virtual threads
+	 */
+	public static final int THREADS = Math.max(32, Runtime.getRuntime().availableProcessors() * 8);
+
+	/**
+	 * Most staff or courses returned by a search when no limit is given
+	 */
+	private static final int DEFAULT_LIMIT = 20;
+
+	/**
+	 * Largest request body read
+	 */
+	private static final int MAX_BODY = 64 * 1024;
+
+	private final Model model;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	/**
+	 * Starts a server over the data files and journal, saving on shutdown.
+	 * Argument: port, default DEFAULT_PORT
+	 * @param args
+	 */
+	public static void main(String[] args) throws IOException {
+
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		Model model = new Model();
+		ApiServer api = new ApiServer(model, port);
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			api.stop();
+			model.writeToFile();
+			model.close();
+		}));
+
+		api.start();
+		System.out.println("Listening on http://localhost:" + api.getPort() + "/");
+	}
+
+	/**
+	 * Constructor, binding the port on localhost
+	 * @param model model to serve
+	 * @param port port to listen on, 0 for any free port
+	 */
+	public ApiServer(Model model, int port) throws IOException {
+
+		this.model = model;
+		this.server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+		this.executor = newExecutor();
+		this.server.setExecutor(this.executor);
+		this.server.createContext("/", this::handle);
+	}
+
+	/**
+	 * Method to start answering requests
+	 */
+	public void start() {
+		this.server.start();
+	}
+
+	/**
+	 * Method to get port listened on
+	 * @return port
+	 */
+	public int getPort() {
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Method to stop, letting requests being handled finish
+	 */
+	public void stop() {
+
+		this.server.stop(1);
+		this.executor.shutdown();
+		try {
+			this.executor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/*
+	 * ==================================================
+	 * Routing
+	 * ==================================================
+	 */
+
+	/**
+	 * Answers one request, turning errors into status codes
+	 */
+	private void handle(HttpExchange exchange) throws IOException {
+
+		try {
+			String path = exchange.getRequestURI().getPath();
+			String[] parts = path.replaceAll("^/+|/+$", "").split("/+");
+			Map<String, String> fields = fields(exchange);
+			String method = exchange.getRequestMethod();
+
+			if(parts[0].equals("staff")) {
+				staff(exchange, method, parts, fields);
+			} else if(parts[0].equals("courses")) {
+				courses(exchange, method, parts, fields);
+			} else if(parts[0].equals("counts") && parts.length == 1) {
+				allow(method, "GET");
+				send(exchange, 200, counts());
+			} else if(parts[0].equals("save") && parts.length == 1) {
+				allow(method, "POST");
+				if(this.model.isReadOnly()) {
+					throw new Failure(403, "Model opened read-only");
+				}
+				boolean saved = this.model.saveAsync().join();
+				send(exchange, saved ? 200 : 500, "{\"saved\":" + saved + "}");
+			} else {
+				throw new Failure(404, "No such resource " + path);
+			}
+
+		} catch(Failure e) {
+			send(exchange, e.status, error(e.getMessage()));
+		} catch(IllegalArgumentException e) {
+			send(exchange, 400, error(e.getMessage()));
+		} catch(UnsupportedOperationException e) {
+			send(exchange, 403, error(e.getMessage()));
+		} catch(RuntimeException e) {
+			// Details stay in the server's log, callers only learn it failed
+			e.printStackTrace();
+			send(exchange, 500, error("Internal error"));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Requests under /staff
+	 */
+	private void staff(HttpExchange exchange, String method, String[] parts, Map<String, String> fields) throws IOException {
+
+		if(parts.length == 1) {
+			if(method.equals("POST")) {
+				Staff staff = this.model.createStaff(required(fields, "name"));
+				send(exchange, 201, Json.staff(this.model.findStaffCopy(staff.getID())));
+			} else {
+				allow(method, "GET");
+				send(exchange, 200, Json.staffList(this.model.copiesOfStaff(findStaff(fields))));
+			}
+			return;
+		}
+
+		Staff staff = this.model.findStaff(id(parts[1]));
+		if(staff == null) {
+			throw new Failure(404, "No staff member " + parts[1]);
+		}
+
+		if(parts.length == 2) {
+			allow(method, "GET");
+			send(exchange, 200, Json.staff(this.model.findStaffCopy(staff.getID())));
+		} else if(parts.length == 3 && parts[2].equals("courses")) {
+			allow(method, "GET", "DELETE");
+			if(method.equals("DELETE")) {
+				this.model.removeStaffFromAllCourses(staff);
+			}
+			send(exchange, 200, Json.courseList(this.model.copiesOfCourses(this.model.findStaffCourses(staff))));
+		} else if(parts.length == 3 && parts[2].equals("train")) {
+			allow(method, "POST");
+			if(fields.containsKey("version")) {
+				checked(this.model.train(staff, number(fields, "version")));
+			} else {
+				this.model.train(staff);
+			}
+			send(exchange, 200, Json.staff(this.model.findStaffCopy(staff.getID())));
+		} else {
+			throw new Failure(404, "No such resource");
+		}
+	}
+
+	/**
+	 * Requests under /courses
+	 */
+	private void courses(HttpExchange exchange, String method, String[] parts, Map<String, String> fields) throws IOException {
+
+		if(parts.length == 1) {
+			if(method.equals("POST")) {
+				Course course = this.model.createCourse(required(fields, "name"), number(fields, "requiredStaff"));
+				send(exchange, 201, Json.course(this.model.findCourseCopy(course.getID())));
+			} else {
+				allow(method, "GET");
+				send(exchange, 200, Json.courseList(this.model.copiesOfCourses(findCourses(fields))));
+			}
+			return;
+		}
+
+		Course course = this.model.findCourse(id(parts[1]));
+		if(course == null) {
+			throw new Failure(404, "No course " + parts[1]);
+		}
+
+		if(parts.length == 2) {
+			allow(method, "GET");
+			send(exchange, 200, Json.course(this.model.findCourseCopy(course.getID())));
+
+		} else if(parts.length == 3 && parts[2].equals("staff")) {
+			allow(method, "GET");
+			send(exchange, 200, Json.staffList(this.model.copiesOfStaff(this.model.findCourseStaff(course))));
+
+		} else if(parts.length == 4 && parts[2].equals("staff")) {
+			allow(method, "PUT", "DELETE");
+			Staff staff = this.model.findStaff(id(parts[3]));
+			if(staff == null) {
+				throw new Failure(404, "No staff member " + parts[3]);
+			}
+			boolean versioned = fields.containsKey("courseVersion") || fields.containsKey("staffVersion");
+			int courseVersion = versioned ? number(fields, "courseVersion") : 0;
+			int staffVersion = versioned ? number(fields, "staffVersion") : 0;
+
+			if(method.equals("PUT")) {
+				if(versioned) {
+					checked(this.model.addStaffToCourse(course, courseVersion, staff, staffVersion));
+				} else {
+					this.model.addStaffToCourse(course, staff);
+				}
+			} else {
+				if(versioned) {
+					checked(this.model.removeStaffFromCourse(course, courseVersion, staff, staffVersion));
+				} else {
+					this.model.removeStaffFromCourse(course, staff);
+				}
+			}
+			send(exchange, 200, Json.course(this.model.findCourseCopy(course.getID())));
+
+		} else if(parts.length == 3 && parts[2].equals("requirements")) {
+			allow(method, "PUT");
+			int required = number(fields, "requiredStaff");
+			boolean assigned = fields.containsKey("version")
+					? this.model.assignCourseRequirements(course, required, number(fields, "version"))
+					: this.model.assignCourseRequirements(course, required);
+			checked(assigned);
+			send(exchange, 200, Json.course(this.model.findCourseCopy(course.getID())));
+
+		} else if(parts.length == 3 && parts[2].equals("approval")) {
+			allow(method, "PUT");
+			boolean approved = bool(fields, "approved");
+			if(fields.containsKey("version")) {
+				checked(this.model.giveRequestApproval(course, approved, number(fields, "version")));
+			} else {
+				this.model.giveRequestApproval(course, approved);
+			}
+			send(exchange, 200, Json.course(this.model.findCourseCopy(course.getID())));
+
+		} else {
+			throw new Failure(404, "No such resource");
+		}
+	}
+
+	/*
+	 * ==================================================
+	 * Queries
+	 * ==================================================
+	 */
+
+	/**
+	 * Staff matching the first filter given, or all staff
+	 */
+	private Collection<Staff> findStaff(Map<String, String> fields) {
+
+		int limit = fields.containsKey("limit") ? number(fields, "limit") : DEFAULT_LIMIT;
+
+		if(fields.containsKey("name")) {
+			return this.model.findStaffByName(fields.get("name"));
+		}
+		if(fields.containsKey("prefix")) {
+			return this.model.findStaffByNamePrefix(fields.get("prefix"), limit);
+		}
+		if(fields.containsKey("search")) {
+			int distance = fields.containsKey("distance") ? number(fields, "distance") : 2;
+			return this.model.searchStaff(fields.get("search"), distance, limit);
+		}
+
+		Boolean available = fields.containsKey("available") ? bool(fields, "available") : null;
+		Boolean trained = fields.containsKey("trained") ? bool(fields, "trained") : null;
+
+		if(available == null && trained == null) {
+			return this.model.returnStaffList();
+		}
+		if(trained == null) {
+			return available ? this.model.AvailableStaff() : this.model.UnavailableStaff();
+		}
+		if(available == null) {
+			return trained ? this.model.StaffWithTraining() : this.model.UntrainedStaff();
+		}
+		if(available && trained) {
+			return this.model.AvailableTrainedStaff();
+		}
+
+		// Other pairs are rare, so filter one list
+		ArrayList<Staff> staff = available ? this.model.AvailableStaff() : this.model.UnavailableStaff();
+		staff.removeIf(member -> member.isTrained() != trained);
+		return staff;
+	}
+
+	/**
+	 * Courses matching the filter given, or all courses
+	 */
+	private Collection<Course> findCourses(Map<String, String> fields) {
+
+		if(fields.containsKey("search")) {
+			int limit = fields.containsKey("limit") ? number(fields, "limit") : DEFAULT_LIMIT;
+			int distance = fields.containsKey("distance") ? number(fields, "distance") : 2;
+			return this.model.searchCourses(fields.get("search"), distance, limit);
+		}
+
+		String status = fields.getOrDefault("status", "all");
+		switch(status) {
+			case "approved":
+				return this.model.findApprovedCourses();
+			case "unapproved":
+				return this.model.findUnapprovedCourses();
+			case "full":
+				return this.model.findFullCourses();
+			case "all":
+				return this.model.returnCourseList();
+			default:
+				throw new IllegalArgumentException("Unknown status " + status);
+		}
+	}
+
+	/**
+	 * Every count as one object
+	 */
+	private String counts() {
+		return "{\"availableStaff\":" + this.model.countAvailableStaff()
+				+ ",\"unavailableStaff\":" + this.model.countUnavailableStaff()
+				+ ",\"trainedStaff\":" + this.model.countTrainedStaff()
+				+ ",\"untrainedStaff\":" + this.model.countUntrainedStaff()
+				+ ",\"availableTrainedStaff\":" + this.model.countAvailableTrainedStaff()
+				+ ",\"approvedCourses\":" + this.model.countApprovedCourses()
+				+ ",\"unapprovedCourses\":" + this.model.countUnapprovedCourses()
+				+ ",\"fullCourses\":" + this.model.countFullCourses() + "}";
+	}
+
+	/*
+	 * ==================================================
+	 * Helpers
+	 * ==================================================
+	 */
+
+	/**
+	 * Error answered with a status code
+	 */
+	private static class Failure extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+		final int status;
+
+		Failure(int status, String message) {
+			super(message);
+			this.status = status;
+		}
+	}
+
+	/**
+	 * Fields from the query string, then from a JSON body if there is one
+	 */
+	private static Map<String, String> fields(HttpExchange exchange) throws IOException {
+
+		Map<String, String> fields = new HashMap<String, String>();
+
+		String query = exchange.getRequestURI().getRawQuery();
+		if(query != null) {
+			for(String pair : query.split("&")) {
+				if(pair.isEmpty()) {
+					continue;
+				}
+				int equals = pair.indexOf('=');
+				String name = equals < 0 ? pair : pair.substring(0, equals);
+				String value = equals < 0 ? "" : pair.substring(equals + 1);
+				fields.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+			}
+		}
+
+		fields.putAll(Json.parseObject(body(exchange)));
+		return fields;
+	}
+
+	/**
+	 * Request body as text, refusing bodies over MAX_BODY
+	 */
+	private static String body(HttpExchange exchange) throws IOException {
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		try(InputStream in = exchange.getRequestBody()) {
+			for(int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+				body.write(buffer, 0, read);
+				if(body.size() > MAX_BODY) {
+					throw new Failure(413, "Body larger than " + MAX_BODY + " bytes");
+				}
+			}
+		}
+		return body.toString(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes a JSON response
+	 */
+	private static void send(HttpExchange exchange, int status, String json) throws IOException {
+
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try(OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static String error(String message) {
+		return "{\"error\":" + Json.string(message == null ? "" : message) + "}";
+	}
+
+	/**
+	 * Refuses methods other than those given
+	 */
+	private static void allow(String method, String... allowed) {
+
+		for(String name : allowed) {
+			if(name.equals(method)) {
+				return;
+			}
+		}
+		throw new Failure(405, "Method " + method + " not allowed");
+	}
+
+	/**
+	 * Answers 409 when a change was refused
+	 */
+	private static void checked(boolean applied) {
+		if(!applied) {
+			throw new Failure(409, "Changed since read, or change refused");
+		}
+	}
+
+	private static String required(Map<String, String> fields, String name) {
+
+		String value = fields.get(name);
+		if(value == null || value.isEmpty()) {
+			throw new IllegalArgumentException("Missing " + name);
+		}
+		return value;
+	}
+
+	private static int number(Map<String, String> fields, String name) {
+
+		try {
+			return Integer.parseInt(required(fields, name));
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException(name + " is not a whole number");
+		}
+	}
+
+	private static boolean bool(Map<String, String> fields, String name) {
+
+		String value = required(fields, name);
+		if(!value.equals("true") && !value.equals("false")) {
+			throw new IllegalArgumentException(name + " is not true or false");
+		}
+		return value.equals("true");
+	}
+
+	private static int id(String part) {
+
+		try {
+			return Integer.parseInt(part);
+		} catch(NumberFormatException e) {
+			throw new Failure(404, "No such ID " + part);
+		}
+	}
+
+	/**
+	 * Virtual thread per request where the JDK has them, found by
+	 * reflection so the server still builds and runs on older JDKs
+	 */
+	private static ExecutorService newExecutor() {
+
+		try {
+			Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) virtual.invoke(null);
+		} catch(ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(THREADS);
+		}
+	}
+}
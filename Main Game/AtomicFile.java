@@ -0,0 +1,61 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Helpers for replacing a data file safely. The new contents are written
+ * and forced to a temporary file next to it, which is then renamed over
+ * the old file in one step, so a crash leaves either the old file or the
+ * new one and never a half written file.
+ *
+ * public static String temp(String destination)
+ * public static FileChannel create(String temp)
+ * public static void replace(String temp, String destination)
+ *
+ */
+public class AtomicFile {
+
+	/**
+	 * Method to get temporary file path used while writing destination
+	 * @param destination data file path
+	 * @return temporary file path in the same directory
+	 */
+	public static String temp(String destination) {
+		return destination + ".tmp";
+	}
+
+	/**
+	 * Method to create an empty temporary file for writing
+	 * @param temp temporary file path
+	 * @return channel open for reading and writing
+	 * @throws IOException if the file cannot be created
+	 */
+	public static FileChannel create(String temp) throws IOException {
+		return FileChannel.open(Paths.get(temp), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * Method to rename a forced temporary file over the destination
+	 * @param temp temporary file, already forced to disk
+	 * @param destination data file path
+	 * @throws IOException if the rename fails, destination is then unchanged
+	 */
+	public static void replace(String temp, String destination) throws IOException {
+
+		Path target = Paths.get(destination);
+		Files.move(Paths.get(temp), target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+		// Force the directory so the rename itself survives a crash, not possible on every platform
+		Path directory = target.toAbsolutePath().getParent();
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// directory cannot be opened on this platform, rename is still atomic
+		}
+	}
+}
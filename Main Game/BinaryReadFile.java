@@ -0,0 +1,238 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * BinaryReadFile class, reads staff and course lists written by
+ * BinaryWriteFile. See BinaryWriteFile for the format.
+ * isBinary tells a binary file from a text file by its first bytes.
+ *
+ * public static boolean isBinary(String path)
+ * public ArrayList<Staff> readStaff(String path)
+ * public ArrayList<Course> readCourse(String path)
+ *
+ */
+public class BinaryReadFile {
+
+	/**
+	 * Method to check whether a file is in binary snapshot format
+	 * @param path file to check
+	 * @return true if file starts with the binary magic number
+	 */
+	public static boolean isBinary(String path) {
+
+		Path file = Paths.get(path);
+		if (!Files.isRegularFile(file)) {
+			return false;
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+			ByteBuffer magic = ByteBuffer.allocate(4);
+			while (magic.hasRemaining() && channel.read(magic) >= 0) {
+				// keep reading until 4 bytes or end of file
+			}
+			return !magic.hasRemaining() && magic.getInt(0) == BinaryWriteFile.MAGIC;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Method to read staff list from binary file
+	 * @param path takes String representing the path of the file to be read
+	 * @return Array list of staff members in the file
+	 */
+	public ArrayList<Staff> readStaff(String path) {
+
+		ArrayList<Staff> tempStaffList = new ArrayList<Staff>();
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+
+			Decoder in = new Decoder(map(channel, BinaryWriteFile.STAFF));
+			int count = in.count;
+			tempStaffList.ensureCapacity(count);
+
+			for (int i = 0; i < count; i++) {
+
+				int id = in.varint();
+				byte flags = in.buffer.get();
+				String name = in.string();
+				tempStaffList.add(new Staff(name, id, (flags & 1) != 0, (flags & 2) != 0));
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		return tempStaffList;
+	}
+
+	/**
+	 * Method to read course list from binary file
+	 * @param path takes String representing the path of the file to be read
+	 * @return Array list of courses in the file
+	 */
+	public ArrayList<Course> readCourse(String path) {
+
+		ArrayList<Course> tempCourseList = new ArrayList<Course>();
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+
+			Decoder in = new Decoder(map(channel, BinaryWriteFile.COURSE));
+			int count = in.count;
+			tempCourseList.ensureCapacity(count);
+
+			for (int i = 0; i < count; i++) {
+
+				int id = in.varint();
+				boolean approved = (in.buffer.get() & 1) != 0;
+				int requiredStaff = in.varint();
+				int assignedStaff = in.varint();
+				String name = in.string();
+
+				int staffCount = in.varint();
+				IntSet staffId = new IntSet(Math.max(staffCount, 1));
+				for (int j = 0; j < staffCount; j++) {
+					staffId.add(in.varint());
+				}
+
+				tempCourseList.add(new Course(id, name, approved, requiredStaff, assignedStaff, staffId));
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		return tempCourseList;
+	}
+
+	/**
+	 * Maps file and checks header and footer
+	 * @param channel open file
+	 * @param kind STAFF or COURSE
+	 * @return mapped file positioned at the first record
+	 * @throws IOException if the file is not a binary file of this kind
+	 */
+	static MappedByteBuffer map(FileChannel channel, byte kind) throws IOException {
+
+		long size = channel.size();
+		if (size < BinaryWriteFile.HEADER + BinaryWriteFile.FOOTER) {
+			throw new IOException("File too short for binary snapshot");
+		}
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("Binary snapshot larger than 2GB");
+		}
+
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+		if (buffer.getInt(0) != BinaryWriteFile.MAGIC || buffer.getInt((int) size - 4) != BinaryWriteFile.END_MAGIC) {
+			throw new IOException("Not a binary snapshot or file incomplete");
+		}
+		if (buffer.get(4) != BinaryWriteFile.VERSION) {
+			throw new IOException("Unsupported binary snapshot version " + buffer.get(4));
+		}
+		if (buffer.get(5) != kind) {
+			throw new IOException("Binary snapshot holds " + (char) buffer.get(5) + " records, expected " + (char) kind);
+		}
+
+		buffer.position(BinaryWriteFile.HEADER);
+		return buffer;
+	}
+
+	/**
+	 * Reads fields from a mapped binary snapshot
+	 */
+	static class Decoder {
+
+		final ByteBuffer buffer; // mapped file
+		final long indexOffset; // start of offset index
+		final int count; // number of records
+		private byte[] scratch; // name bytes for decoding, made when first needed
+
+		/**
+		 * Constructor
+		 * @param buffer mapped file positioned at the first record
+		 */
+		Decoder(ByteBuffer buffer) {
+			this.buffer = buffer;
+			int footer = buffer.capacity() - BinaryWriteFile.FOOTER;
+			this.indexOffset = buffer.getLong(footer);
+			this.count = buffer.getInt(footer + 8);
+		}
+
+		/**
+		 * Constructor for duplicate
+		 * @param file decoder to read the same file as
+		 */
+		private Decoder(Decoder file) {
+			this.buffer = file.buffer.duplicate().order(file.buffer.order());
+			this.indexOffset = file.indexOffset;
+			this.count = file.count;
+		}
+
+		/**
+		 * Method to get a decoder over the same file with a position of its
+		 * own, so several threads can read one mapping at once
+		 * @return new decoder
+		 */
+		Decoder duplicate() {
+			return new Decoder(this);
+		}
+
+		/**
+		 * Method to get offset of a record from the index
+		 * @param i record number
+		 * @return offset of record in file
+		 */
+		int offset(int i) {
+			return (int) buffer.getLong((int) indexOffset + i * 8);
+		}
+
+		/**
+		 * Reads zigzag varint
+		 * @return value
+		 */
+		int varint() {
+
+			int bits = 0;
+			int shift = 0;
+			byte b;
+
+			do {
+				b = buffer.get();
+				bits |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+
+			return (bits >>> 1) ^ -(bits & 1);
+		}
+
+		/**
+		 * Reads length prefixed UTF-8 string
+		 * @return string
+		 */
+		String string() {
+
+			int length = varint();
+			if (scratch == null || length > scratch.length) {
+				scratch = new byte[Math.max(length, scratch == null ? 64 : scratch.length * 2)];
+			}
+
+			boolean ascii = true;
+			for (int i = 0; i < length; i++) {
+				byte b = buffer.get();
+				ascii &= b >= 0;
+				scratch[i] = b;
+			}
+
+			return new String(scratch, 0, length, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,230 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * BinaryWriteFile class, writes staff and course lists in the binary
+ * snapshot format read by BinaryReadFile.
+ *
+ * Layout of a file:
+ * 	header	magic "TRQB", version byte, kind byte ('S' staff or 'C' course)
+ * 	records	one after another, in list order
+ * 	index	one 8 byte offset per record
+ * 	footer	8 byte index offset, 4 byte record count, magic "TRQE"
+ *
+ * Staff record: varint ID, flags byte (1 available, 2 trained), varint name length, UTF-8 name
+ * Course record: varint ID, flags byte (1 approved), varint required staff,
+ * varint assigned staff, varint name length, UTF-8 name, varint staff count, varint staff IDs
+ * Varints are zigzag encoded, 7 bits per byte, low bits first.
+ * Files are written to a temporary file and renamed into place by AtomicFile.
+ *
+ *
+ * public boolean staffToFile(String destination, ArrayList<Staff> staffList)
+ * public boolean courseToFile(String destination, ArrayList<Course> courseList)
+ *
+ */
+public class BinaryWriteFile {
+
+	/**
+	 * Format constants shared with BinaryReadFile
+	 */
+	static final int MAGIC = 0x54525142; // "TRQB"
+	static final int END_MAGIC = 0x54525145; // "TRQE"
+	static final byte VERSION = 1;
+	static final byte STAFF = 'S';
+	static final byte COURSE = 'C';
+	static final int HEADER = 6;
+	static final int FOOTER = 16;
+
+	/**
+	 * Buffer records are encoded into before being written
+	 */
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+
+	/**
+	 * Position in file of the start of the buffer
+	 */
+	private long flushed;
+
+	/**
+	 * Method to write staff list to file
+	 * @param destination path of file to write
+	 * @param staffList staff to be committed to file
+	 * @return true if file written and forced to disk
+	 */
+	public boolean staffToFile(String destination, ArrayList<Staff> staffList) {
+
+		String temp = AtomicFile.temp(destination);
+
+		try (FileChannel channel = AtomicFile.create(temp)) {
+
+			long[] offsets = new long[staffList.size()];
+			start(channel, STAFF);
+
+			for (int i = 0; i < staffList.size(); i++) {
+
+				Staff member = staffList.get(i);
+				byte[] name = member.getName().getBytes(StandardCharsets.UTF_8);
+
+				ensure(channel, 16 + name.length);
+				offsets[i] = flushed + buffer.position();
+
+				putVarint(member.getID());
+				buffer.put((byte) ((member.isAvailable() ? 1 : 0) | (member.isTrained() ? 2 : 0)));
+				putVarint(name.length);
+				buffer.put(name);
+			}
+
+			finish(channel, offsets);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+
+		try {
+			AtomicFile.replace(temp, destination);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+
+		for (Staff member : staffList) {
+			member.setDirty(false);
+		}
+		return true;
+	}
+
+	/**
+	 * Method to write course list to file
+	 * @param destination path of file to write
+	 * @param courseList courses to be committed to file
+	 * @return true if file written and forced to disk
+	 */
+	public boolean courseToFile(String destination, ArrayList<Course> courseList) {
+
+		String temp = AtomicFile.temp(destination);
+
+		try (FileChannel channel = AtomicFile.create(temp)) {
+
+			long[] offsets = new long[courseList.size()];
+			start(channel, COURSE);
+
+			for (int i = 0; i < courseList.size(); i++) {
+
+				Course course = courseList.get(i);
+				byte[] name = course.getName().getBytes(StandardCharsets.UTF_8);
+				IntView staffID = course.getStaffID();
+
+				ensure(channel, 31 + name.length);
+				offsets[i] = flushed + buffer.position();
+
+				putVarint(course.getID());
+				buffer.put((byte) (course.isApproved() ? 1 : 0));
+				putVarint(course.getRequiredStaff());
+				putVarint(course.getAssignedStaff());
+				putVarint(name.length);
+				buffer.put(name);
+				putVarint(staffID.size());
+
+				for (int j = 0; j < staffID.size(); j++) {
+					ensure(channel, 5);
+					putVarint(staffID.get(j));
+				}
+			}
+
+			finish(channel, offsets);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+
+		try {
+			AtomicFile.replace(temp, destination);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+
+		for (Course course : courseList) {
+			course.setDirty(false);
+		}
+		return true;
+	}
+
+	/**
+	 * Puts header in empty buffer
+	 * @param channel
+	 * @param kind STAFF or COURSE
+	 */
+	private void start(FileChannel channel, byte kind) {
+		buffer.clear();
+		flushed = 0;
+		buffer.putInt(MAGIC).put(VERSION).put(kind);
+	}
+
+	/**
+	 * Writes index and footer, then forces file to disk
+	 * @param channel
+	 * @param offsets record offsets
+	 */
+	private void finish(FileChannel channel, long[] offsets) throws IOException {
+
+		long indexOffset = flushed + buffer.position();
+
+		for (long offset : offsets) {
+			ensure(channel, 8);
+			buffer.putLong(offset);
+		}
+
+		ensure(channel, FOOTER);
+		buffer.putLong(indexOffset).putInt(offsets.length).putInt(END_MAGIC);
+
+		drain(channel);
+		channel.force(true);
+	}
+
+	/**
+	 * Makes room in buffer, growing it for very long records
+	 * @param channel
+	 * @param bytes bytes about to be put
+	 */
+	private void ensure(FileChannel channel, int bytes) throws IOException {
+
+		if (buffer.remaining() < bytes) {
+			drain(channel);
+		}
+		if (buffer.remaining() < bytes) {
+			buffer = ByteBuffer.allocateDirect(bytes);
+		}
+	}
+
+	/**
+	 * Writes buffer to channel and clears it
+	 * @param channel
+	 */
+	private void drain(FileChannel channel) throws IOException {
+
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			flushed += channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Puts zigzag varint in buffer
+	 * @param value
+	 */
+	private void putVarint(int value) {
+
+		int bits = (value << 1) ^ (value >> 31);
+
+		while ((bits & ~0x7F) != 0) {
+			buffer.put((byte) ((bits & 0x7F) | 0x80));
+			bits >>>= 7;
+		}
+		buffer.put((byte) bits);
+	}
+}
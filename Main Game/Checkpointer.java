@@ -0,0 +1,97 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Checkpointer class, runs a checkpoint task on its own daemon thread
+ * every interval and whenever one is requested, so the thread making
+ * changes never waits for the data files to be written.
+ * Requests made while a checkpoint is already waiting to run are merged.
+ *
+ * Public Methods:
+ * 	public Checkpointer(Runnable checkpoint, long intervalSeconds)
+ * 	public void requestNow()
+ * 	public void close()
+ *
+ */
+public class Checkpointer {
+
+	/**
+	 * Single thread checkpoints run on, one at a time
+	 */
+	private final ScheduledExecutorService executor;
+
+	/**
+	 * Task writing the checkpoint
+	 */
+	private final Runnable checkpoint;
+
+	/**
+	 * True while a requested checkpoint is waiting to run
+	 */
+	private final AtomicBoolean requested = new AtomicBoolean();
+
+
+	/**
+	 * Constructor
+	 * @param checkpoint task writing the checkpoint
+	 * @param intervalSeconds time between checkpoints, 0 to only run when requested
+	 */
+	public Checkpointer(Runnable checkpoint, long intervalSeconds) {
+
+		this.checkpoint = checkpoint;
+		this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "checkpointer");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		if(intervalSeconds > 0) {
+			this.executor.scheduleWithFixedDelay(this::run, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Method to ask for a checkpoint as soon as the thread is free
+	 */
+	public void requestNow() {
+
+		if(requested.compareAndSet(false, true)) {
+			try {
+				executor.execute(() -> {
+					requested.set(false);
+					run();
+				});
+			} catch (RejectedExecutionException e) {
+				// closed, the final save is made by whoever closed it
+			}
+		}
+	}
+
+	/**
+	 * Method to stop checkpoints, waiting for one already running to finish
+	 */
+	public void close() {
+
+		executor.shutdown();
+		try {
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Runs checkpoint, keeping the thread alive if it fails
+	 */
+	private void run() {
+
+		try {
+			checkpoint.run();
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,423 @@
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * ListOfStaff that keeps staff in columns instead of one Staff object
+ * each: IDs, slots and name ends in int arrays, availability, training
+ * and dirty flags as packed bits, and every name's UTF-8 bytes in one
+ * shared byte array. A few million staff then take a fraction of the
+ * heap of separate objects and Strings.
+ * Staff handed out are StaffRow views onto a row, made when asked for
+ * and reading and writing the columns, so changes made through them
+ * are kept. Rows are in ID order and found by binary search, so staff
+ * must be added in increasing ID order, as ListOfStaff also expects.
+ * None of ListOfStaff's own list, index or bitsets are made. The name
+ * indexes are built on the first lookup that needs them, and can be
+ * left out too, name lookups then scan the rows.
+ *
+ * Public methods:
+ * 	public ColumnarListOfStaff()
+ * 	public ColumnarListOfStaff(boolean nameIndexes)
+ * 	public int size()
+ * 	plus every public method of ListOfStaff
+ *
+ */
+public class ColumnarListOfStaff extends ListOfStaff {
+
+	private int size; // rows in use
+	private int[] ids = new int[16]; // staff ID of each row, ascending
+	private int[] slots = new int[16]; // slot in staff file, -1 if not saved yet
+	private int[] versions = new int[16]; // changes to each row since loaded
+	private int[] nameEnds = new int[16]; // end of each row's name in names
+	private byte[] names = new byte[256]; // UTF-8 names, one after another
+	private int namesLength; // bytes used in names
+	private long[] available = new long[1]; // one bit per row
+	private long[] trained = new long[1];
+	private long[] dirty = new long[1];
+
+	/**
+	 * Held while setting bits or reading words of the bit columns, as
+	 * rows sharing a word may be changed at the same time
+	 */
+	private final Object bitLock = new Object();
+
+	/**
+	 * Live views of rows by status, see RowView
+	 */
+	private final Collection<Staff> availableView = new RowView(AVAILABLE, false, false);
+	private final Collection<Staff> unavailableView = new RowView(AVAILABLE, true, false);
+	private final Collection<Staff> untrainedView = new RowView(TRAINED, true, false);
+	private final Collection<Staff> trainedView = new RowView(TRAINED, false, false);
+	private final Collection<Staff> availableTrainedView = new RowView(AVAILABLE, false, true);
+
+	/**
+	 * Status columns a RowView can select on
+	 */
+	private static final int AVAILABLE = 0;
+	private static final int TRAINED = 1;
+
+	/**
+	 * Constructor, with name indexes
+	 */
+	public ColumnarListOfStaff() {
+		this(true);
+	}
+
+	/**
+	 * Constructor
+	 * @param nameIndexes false to leave out the name indexes, saving their
+	 * memory. Name lookups then scan every row
+	 */
+	public ColumnarListOfStaff(boolean nameIndexes) {
+		super(nameIndexes);
+	}
+
+	/**
+	 * Method to get number of staff
+	 * @return staff in list
+	 */
+	public int size() {
+		return size;
+	}
+
+	public Staff find(int ID) {
+		int row = row(ID);
+		return row < 0 ? null : new StaffRow(this, row);
+	}
+
+	public Staff createStaff(String name) {
+
+		// IDs are handed out one at a time, so always follow the greatest ID
+		addStaff(new Staff(name, nextID()));
+		return new StaffRow(this, size - 1);
+	}
+
+	/**
+	 * Method to add existing staff member, copying them into a new row
+	 * @param staff staff member with ID greater than any in list
+	 * @throws IllegalArgumentException if ID is negative or not greater than any in list
+	 */
+	public void addStaff(Staff staff) {
+
+		checkID(staff.getID());
+		if (size > 0 && staff.getID() <= ids[size - 1]) {
+			throw new IllegalArgumentException("Staff ID " + staff.getID() + " not after " + ids[size - 1]);
+		}
+
+		if (size == ids.length) {
+			int capacity = size + (size >> 1) + 16;
+			ids = Arrays.copyOf(ids, capacity);
+			slots = Arrays.copyOf(slots, capacity);
+			versions = Arrays.copyOf(versions, capacity);
+			nameEnds = Arrays.copyOf(nameEnds, capacity);
+		}
+		if (size >> 6 == available.length) {
+			int words = available.length * 2;
+			available = Arrays.copyOf(available, words);
+			trained = Arrays.copyOf(trained, words);
+			dirty = Arrays.copyOf(dirty, words);
+		}
+
+		int row = size++;
+		ids[row] = staff.getID();
+		slots[row] = staff.getSlot();
+		versions[row] = staff.getVersion();
+		appendName(row, staff.getName());
+		setBit(available, row, staff.isAvailable());
+		setBit(trained, row, staff.isTrained());
+		setBit(dirty, row, staff.isDirty());
+		idAdded(staff.getID());
+		nameAdded(staff);
+	}
+
+	public ArrayList<Staff> findAvailableStaff() {
+		return new ArrayList<Staff>(availableView);
+	}
+
+	public ArrayList<Staff> findUnavailableStaff() {
+		return new ArrayList<Staff>(unavailableView);
+	}
+
+	public ArrayList<Staff> findUntrainedStaff() {
+		return new ArrayList<Staff>(untrainedView);
+	}
+
+	public ArrayList<Staff> findTrainedStaff() {
+		return new ArrayList<Staff>(trainedView);
+	}
+
+	public ArrayList<Staff> findAvailableTrainedStaff() {
+		return new ArrayList<Staff>(availableTrainedView);
+	}
+
+	public Collection<Staff> availableStaff() {
+		return availableView;
+	}
+
+	public Collection<Staff> unavailableStaff() {
+		return unavailableView;
+	}
+
+	public Collection<Staff> untrainedStaff() {
+		return untrainedView;
+	}
+
+	public Collection<Staff> trainedStaff() {
+		return trainedView;
+	}
+
+	public Collection<Staff> availableTrainedStaff() {
+		return availableTrainedView;
+	}
+
+	/**
+	 * Columns are updated directly by StaffRow, nothing to keep in step
+	 */
+	void statusChanged(Staff staff) {
+	}
+
+	/**
+	 * Getter for staffList, a new list of views onto every row
+	 * @return staff in ID order
+	 */
+	public ArrayList<Staff> getStaffList() {
+
+		ArrayList<Staff> staff = new ArrayList<Staff>(size);
+		for (int row = 0; row < size; row++) {
+			staff.add(new StaffRow(this, row));
+		}
+		return staff;
+	}
+
+	/**
+	 * Setter for staffList, copies staff into columns in ID order
+	 * @param staffList
+	 */
+	public void setStaffList(ArrayList<Staff> staffList) {
+
+		ArrayList<Staff> sorted = new ArrayList<Staff>(staffList);
+		sorted.sort(Comparator.comparingInt(Staff::getID));
+
+		size = 0;
+		namesLength = 0;
+		clearIDs();
+		clearNames();
+		ids = new int[Math.max(sorted.size(), 16)];
+		slots = new int[ids.length];
+		versions = new int[ids.length];
+		nameEnds = new int[ids.length];
+		available = new long[(ids.length >> 6) + 1];
+		trained = new long[available.length];
+		dirty = new long[available.length];
+
+		for (Staff staff : sorted) {
+			addStaff(staff);
+		}
+	}
+
+	/*
+	 * ==================================================
+	 * Column access for StaffRow
+	 * ==================================================
+	 */
+
+	int id(int row) {
+		return ids[row];
+	}
+
+	String name(int row) {
+		int start = row == 0 ? 0 : nameEnds[row - 1];
+		return new String(names, start, nameEnds[row] - start, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Replaces name of row, moving the names after it if the length changes.
+	 * Names are rarely changed, so this is not worth avoiding
+	 */
+	void setName(int row, String name) {
+
+		String oldName = name(row);
+		int start = row == 0 ? 0 : nameEnds[row - 1];
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		int grow = bytes.length - (nameEnds[row] - start);
+
+		if (grow != 0) {
+			if (namesLength + grow > names.length) {
+				names = Arrays.copyOf(names, Math.max(namesLength + grow, names.length * 2));
+			}
+			System.arraycopy(names, nameEnds[row], names, nameEnds[row] + grow, namesLength - nameEnds[row]);
+			namesLength += grow;
+			for (int i = row; i < size; i++) {
+				nameEnds[i] += grow;
+			}
+		}
+
+		System.arraycopy(bytes, 0, names, start, bytes.length);
+		setBit(dirty, row, true);
+		versions[row]++;
+		nameChanged(new StaffRow(this, row), oldName);
+	}
+
+	boolean isAvailable(int row) {
+		return getBit(available, row);
+	}
+
+	boolean isTrained(int row) {
+		return getBit(trained, row);
+	}
+
+	void setStatus(int row, boolean isAvailable, boolean isTrained) {
+		synchronized (bitLock) {
+			if (getBit(available, row) != isAvailable || getBit(trained, row) != isTrained) {
+				setBit(dirty, row, true);
+			}
+			setBit(available, row, isAvailable);
+			setBit(trained, row, isTrained);
+		}
+		versions[row]++;
+	}
+
+	int version(int row) {
+		return versions[row];
+	}
+
+	int slot(int row) {
+		return slots[row];
+	}
+
+	void setSlot(int row, int slot) {
+		slots[row] = slot;
+	}
+
+	boolean isDirty(int row) {
+		return getBit(dirty, row);
+	}
+
+	void setDirty(int row, boolean isDirty) {
+		setBit(dirty, row, isDirty);
+	}
+
+	/*
+	 * ==================================================
+	 * Helpers
+	 * ==================================================
+	 */
+
+	/**
+	 * Binary search of IDs
+	 * @param ID staff ID
+	 * @return row, -1 if not found
+	 */
+	private int row(int ID) {
+		int row = Arrays.binarySearch(ids, 0, size, ID);
+		return row < 0 ? -1 : row;
+	}
+
+	/**
+	 * Adds name bytes at end of names as row's name
+	 */
+	private void appendName(int row, String name) {
+
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		if (namesLength + bytes.length > names.length) {
+			names = Arrays.copyOf(names, Math.max(namesLength + bytes.length, names.length * 2));
+		}
+		System.arraycopy(bytes, 0, names, namesLength, bytes.length);
+		namesLength += bytes.length;
+		nameEnds[row] = namesLength;
+	}
+
+	/**
+	 * Live read-only view of rows whose bit in a status column is set, or
+	 * clear if inverted, and also trained if asked. Columns are read when
+	 * used rather than kept, as they are replaced when the list grows.
+	 * Rows are handed out as new StaffRows, in ID order
+	 */
+	private class RowView extends AbstractCollection<Staff> {
+
+		private final int column; // AVAILABLE or TRAINED
+		private final boolean invert; // select clear bits
+		private final boolean alsoTrained; // select only trained rows
+
+		RowView(int column, boolean invert, boolean alsoTrained) {
+			this.column = column;
+			this.invert = invert;
+			this.alsoTrained = alsoTrained;
+		}
+
+		/**
+		 * Selected rows among 64 starting at word w * 64
+		 */
+		private long word(int w) {
+
+			long word;
+			synchronized (bitLock) {
+				word = column == AVAILABLE ? available[w] : trained[w];
+				if (invert) {
+					word = ~word;
+				}
+				if (alsoTrained) {
+					word &= trained[w];
+				}
+			}
+			if (w == (size - 1) >> 6 && (size & 63) != 0) {
+				word &= (1L << (size & 63)) - 1;
+			}
+			return word;
+		}
+
+		public Iterator<Staff> iterator() {
+
+			return new Iterator<Staff>() {
+
+				private int w = -1; // word being read
+				private long bits; // rows left in word
+
+				public boolean hasNext() {
+					while (bits == 0 && w + 1 < (size + 63) >> 6) {
+						bits = word(++w);
+					}
+					return bits != 0;
+				}
+
+				public Staff next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					int row = (w << 6) + Long.numberOfTrailingZeros(bits);
+					bits &= bits - 1;
+					return new StaffRow(ColumnarListOfStaff.this, row);
+				}
+			};
+		}
+
+		public int size() {
+
+			int count = 0;
+			for (int w = 0; w < (size + 63) >> 6; w++) {
+				count += Long.bitCount(word(w));
+			}
+			return count;
+		}
+	}
+
+	private static boolean getBit(long[] bits, int row) {
+		return (bits[row >> 6] & (1L << row)) != 0;
+	}
+
+	private void setBit(long[] bits, int row, boolean value) {
+		synchronized (bitLock) {
+			if (value) {
+				bits[row >> 6] |= 1L << row;
+			} else {
+				bits[row >> 6] &= ~(1L << row);
+			}
+		}
+	}
+}
@@ -1,5 +1,6 @@
 import java.util.ArrayList;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller class for teaching requirements program
@@ -11,7 +12,7 @@ import java.util.Scanner;
  * 	public boolean courseDirectorOptions() <br>
  * 	public boolean adminOptions() <br> 
  * 	public boolean pttDirectorOptions() <br>
- * 	public void exit()
+ * 	public CompletableFuture<Boolean> exit()
  * 
  */
 public class Controller {
@@ -635,12 +636,13 @@ public class Controller {
 	}
 	
 	/**
-	 * Closes scanner and writed to file
+	 * Starts writing to file without waiting for it to finish
+	 * @return future completed once state is on disk
 	 */
-	public void exit() {
+	public CompletableFuture<Boolean> exit() {
 		
-		// Writes state to file
-		model.writeToFile();
+		// Writes state to file in the background
+		return model.saveAsync();
 	}
 	
 	/**
@@ -1,7 +1,4 @@
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Class for course creation/methods
  * @author Rebecca
@@ -13,27 +10,37 @@ import java.util.List;
  *public boolean changeRequirements (int newReq)
  *public int getID
  *public String getName
- *private List<Integer> getStaffID
+ *public IntView getStaffID
  *private int getRequiredStaff
  *private int getAssignedStaff
  *public void setRequirements(int requirements)
  *public boolean isApproved
  *public void setApproved(boolean approved)
+ *public int getSlot
+ *public void setSlot(int slot)
+ *public boolean isDirty
+ *public void setDirty(boolean dirty)
+ *public int getVersion
+ *public Course copy
  */
 
-public class Course {
+public class Course implements SavedRecord {
 	private int ID; //course ID
 	private String name; //course name
 	private boolean approved;//course approved
 	private int requiredStaff; //staff required for course 
 	private int assignedStaff;//staff assigned to course
-	private List<Integer> staffID;//List of staff ID's
+	private IntCollection staffID;//Set of staff ID's, on or off the heap
+	private ListOfCourses list;//list holding this course, told about status changes
+	private int slot = -1;//slot in course file, -1 if not saved yet
+	private boolean dirty;//changed since last save
+	private int version;//changes made since loaded, for spotting conflicting changes
 	
 	/**
 	 * Constructor for courses which passed to courseToFile method in writeToFile class
 	 */
 	
-	public Course(int ID, String name, boolean approved, int requiredStaff, int assignedStaff, List<Integer> staffID) {
+	public Course(int ID, String name, boolean approved, int requiredStaff, int assignedStaff, IntSet staffID) {
 		this.ID = ID; //course ID
 		this.name = name; //course name
 		this.approved = approved; //course approved
@@ -51,7 +58,8 @@ public class Course {
 		this.name = name; //course name
 		this.requiredStaff = requiredStaff; //staff required for course
 		this.assignedStaff = 0; // staff assigned to course
-		this.staffID = new ArrayList<Integer>(); //ArrayList of staffIDs created when Course object created
+		this.staffID = new IntSet(); //Set of staffIDs created when Course object created
+		this.dirty = true; //new course not saved yet
 		
 	}
 	
@@ -74,8 +82,11 @@ public class Course {
 	 */
 	
 	public void addStaff(Staff staff) {
-		this.staffID.add(staff.getID());
+		// Staff already on course are not added twice
+		dirty |= this.staffID.add(staff.getID());
 		this.assignedStaff = this.staffID.size();
+		version++;
+		statusChanged();
 		
 	}
 	
@@ -87,15 +98,11 @@ public class Course {
 	
 	public void removeStaff(Staff staff) {
 		
-		for (int i=0;i<staffID.size();i++) {
-
-			if (staffID.get(i) == staff.getID()) {
-				
-				this.staffID.remove(i);
-			}
-		}
+		dirty |= this.staffID.remove(staff.getID());
 		
 		this.assignedStaff = this.staffID.size();
+		version++;
+		statusChanged();
 		
 	}
 	
@@ -113,6 +120,9 @@ public class Course {
 			}else {
 				
 				this.requiredStaff = newReq;
+				this.dirty = true;
+				version++;
+				statusChanged();
 				
 				return true;
 			}	
@@ -136,12 +146,12 @@ public class Course {
 	}
 	
 	/**
-	 * Method to get list of staff ID's
-	 * @return list of staff ID's
+	 * Method to get staff ID's
+	 * @return read-only view of staff ID's
 	 */
 	
-	public List<Integer> getStaffID() {
-		return staffID;
+	public IntView getStaffID() {
+		return staffID.view();
 	}
 	
 	/**
@@ -171,6 +181,9 @@ public class Course {
 	
 	public void setRequirements(int requirements) {
 		this.requiredStaff = requirements;
+		this.dirty = true;
+		version++;
+		statusChanged();
 		
 	}
 	
@@ -200,12 +213,101 @@ public class Course {
 	 */
 	
 	public void setApproved(boolean approved) {
+		dirty |= this.approved != approved;
 		this.approved = approved;
+		version++;
+		statusChanged();
 	}
-		
-		
+	
+	/**
+	 * Method to get line of course in course file
+	 * @return slot, -1 if not saved yet
+	 */
+	
+	public int getSlot() {
+		return slot;
 	}
 	
-
-
-
+	/**
+	 * Method to set line of course in course file
+	 * @param slot
+	 */
+	
+	public void setSlot(int slot) {
+		this.slot = slot;
+	}
+	
+	/**
+	 * Method to check if course changed since last save
+	 * @return true if changed
+	 */
+	
+	public boolean isDirty() {
+		return dirty;
+	}
+	
+	/**
+	 * Method to mark course as changed or saved
+	 * @param dirty
+	 */
+	
+	public void setDirty(boolean dirty) {
+		this.dirty = dirty;
+	}
+	
+	/**
+	 * Method to get version, raised by every change so a change based on
+	 * an older read can be refused. Not saved, starts at 0 when loaded
+	 * @return version
+	 */
+	
+	public int getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Method to set list holding this course
+	 * @param list
+	 */
+	
+	void setList(ListOfCourses list) {
+		this.list = list;
+		statusChanged();
+	}
+	
+	/**
+	 * Method to move staff ID's into an arena outside the heap
+	 * @param arena arena to hold them
+	 */
+	
+	void storeStaffIn(IntArena arena) {
+		IntCollection moved = arena.newSet(staffID);
+		staffID.release();
+		staffID = moved;
+	}
+	
+	/**
+	 * Tells holding list that staff, requirements or approval changed
+	 */
+	
+	private void statusChanged() {
+		if (list != null) {
+			list.statusChanged(this);
+		}
+	}
+	
+	/**
+	 * Method to copy course for saving on another thread
+	 * @return copy with its own staff ID set, same slot and dirty flag, not in any list
+	 */
+	
+	public Course copy() {
+		IntSet staff = new IntSet(staffID.size());
+		staffID.forEach(staff::add);
+		Course copy = new Course(ID, name, approved, requiredStaff, assignedStaff, staff);
+		copy.slot = slot;
+		copy.dirty = dirty;
+		copy.version = version;
+		return copy;
+	}
+}
@@ -0,0 +1,63 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out IDs for new staff or courses from an atomic counter, so
+ * IDs never repeat however many threads create records at once. The
+ * counter is kept above every ID loaded or added, so it does not
+ * matter what order records were in when read. Integer.MAX_VALUE is
+ * never handed out or taken, the counter stops there once IDs run out.
+ *
+ * Public methods:
+ * 	public int next()
+ * 	public void seen(int ID)
+ * 	public void reset()
+ */
+public class IDAllocator {
+
+	/**
+	 * First ID handed out
+	 */
+	private static final int FIRST_ID = 1;
+
+	/**
+	 * Next ID not yet handed out, Integer.MAX_VALUE once there are none left
+	 */
+	private final AtomicInteger next = new AtomicInteger(FIRST_ID);
+
+	/**
+	 * Method to get an ID not handed out before
+	 * @return new ID
+	 * @throws IllegalStateException if IDs have run out
+	 */
+	public int next() {
+
+		int ID = next.getAndUpdate(n -> n == Integer.MAX_VALUE ? n : n + 1);
+		if(ID == Integer.MAX_VALUE) {
+			throw new IllegalStateException("No IDs left");
+		}
+		return ID;
+	}
+
+	/**
+	 * Method to note an ID given to a record some other way, such as
+	 * one read from a file, so it is never handed out
+	 * @param ID
+	 * @throws IllegalArgumentException if ID is Integer.MAX_VALUE
+	 */
+	public void seen(int ID) {
+
+		if(ID == Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("ID " + ID + " is out of range");
+		}
+		if(ID >= next.get()) {
+			next.accumulateAndGet(ID + 1, Math::max);
+		}
+	}
+
+	/**
+	 * Method to start again from the first ID, for a list being replaced
+	 */
+	public void reset() {
+		next.set(FIRST_ID);
+	}
+}
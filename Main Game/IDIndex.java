@@ -0,0 +1,256 @@
+
+/**
+ * Hash index from int IDs to objects, used by ListOfStaff and ListOfCourses
+ * so that finding by ID does not need to scan the whole list.
+ * Keys are stored as primitive ints (open addressing, linear probing)
+ * so no Integer objects are created on lookup.
+ *
+ * Public methods:
+ * 	public T get(int ID)
+ * 	public void put(int ID, T value)
+ * 	public T remove(int ID)
+ * 	public boolean contains(int ID)
+ * 	public int size()
+ * 	public void clear()
+ * 	public void clear(int expected)
+ */
+public class IDIndex<T> {
+
+	/**
+	 * Smallest table size, must be a power of two
+	 */
+	private static final int MIN_CAPACITY = 16;
+
+	/**
+	 * Keys for each slot
+	 */
+	private int[] keys;
+
+	/**
+	 * Values for each slot, null if slot empty
+	 */
+	private Object[] values;
+
+	/**
+	 * Number of entries in index
+	 */
+	private int size;
+
+	/**
+	 * Constructor
+	 */
+	public IDIndex() {
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * Constructor sized for expected number of entries
+	 * @param expected number of entries expected
+	 */
+	public IDIndex(int expected) {
+		allocate(tableSizeFor(expected));
+	}
+
+	/**
+	 * Method to find value stored for ID
+	 * @param ID
+	 * @return value stored for ID, null if not found
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int ID) {
+
+		int mask = keys.length - 1;
+
+		for(int i = hash(ID) & mask; values[i] != null; i = (i + 1) & mask) {
+
+			if(keys[i] == ID) {
+				return (T) values[i];
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Method to check if ID is in index
+	 * @param ID
+	 * @return true if ID stored, false if not
+	 */
+	public boolean contains(int ID) {
+		return get(ID) != null;
+	}
+
+	/**
+	 * Method to store value for ID, replacing any previous value
+	 * @param ID
+	 * @param value must not be null
+	 */
+	public void put(int ID, T value) {
+
+		if(value == null) {
+			throw new IllegalArgumentException("Null values cannot be indexed");
+		}
+
+		// Keep load factor under 1/2 so probe sequences stay short
+		if((size + 1) * 2 > keys.length) {
+			rehash(keys.length * 2);
+		}
+
+		int mask = keys.length - 1;
+		int i = hash(ID) & mask;
+
+		while(values[i] != null) {
+
+			if(keys[i] == ID) {
+				values[i] = value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+
+		keys[i] = ID;
+		values[i] = value;
+		size++;
+	}
+
+	/**
+	 * Method to remove ID from index
+	 * @param ID
+	 * @return value that was stored, null if not found
+	 */
+	@SuppressWarnings("unchecked")
+	public T remove(int ID) {
+
+		int mask = keys.length - 1;
+		int i = hash(ID) & mask;
+
+		while(values[i] != null) {
+
+			if(keys[i] == ID) {
+
+				T removed = (T) values[i];
+				shiftBack(i);
+				size--;
+				return removed;
+			}
+			i = (i + 1) & mask;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Method to get number of entries
+	 * @return number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Method to remove all entries
+	 */
+	public void clear() {
+		allocate(MIN_CAPACITY);
+	}
+
+	/**
+	 * Method to remove all entries, sizing for entries about to be added
+	 * @param expected number of entries expected
+	 */
+	public void clear(int expected) {
+		allocate(tableSizeFor(expected));
+	}
+
+	/**
+	 * Closes the gap left by a removed entry by moving later entries
+	 * of the same probe sequence back, so lookups never stop early
+	 * @param gap slot that has been emptied
+	 */
+	private void shiftBack(int gap) {
+
+		int mask = keys.length - 1;
+		int i = gap;
+
+		while(true) {
+
+			i = (i + 1) & mask;
+
+			if(values[i] == null) {
+				break;
+			}
+
+			int home = hash(keys[i]) & mask;
+
+			// Move entry if its home slot is not between the gap and its current slot
+			if(((i - home) & mask) >= ((i - gap) & mask)) {
+				keys[gap] = keys[i];
+				values[gap] = values[i];
+				gap = i;
+			}
+		}
+
+		values[gap] = null;
+	}
+
+	/**
+	 * Grows table and reinserts all entries
+	 * @param capacity new table size
+	 */
+	private void rehash(int capacity) {
+
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+
+		allocate(capacity);
+		int mask = capacity - 1;
+
+		for(int j = 0; j < oldKeys.length; j++) {
+
+			if(oldValues[j] != null) {
+
+				int i = hash(oldKeys[j]) & mask;
+				while(values[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+				size++;
+			}
+		}
+	}
+
+	/**
+	 * Creates empty table
+	 * @param capacity table size
+	 */
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new Object[capacity];
+		size = 0;
+	}
+
+	/**
+	 * Table size that keeps expected entries under half full
+	 * @param expected
+	 * @return power of two table size
+	 */
+	private static int tableSizeFor(int expected) {
+
+		int capacity = MIN_CAPACITY;
+		while(capacity < expected * 2 && capacity < (1 << 30)) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	/**
+	 * Spreads sequential IDs across the table
+	 * @param ID
+	 * @return hash
+	 */
+	private static int hash(int ID) {
+		int h = ID * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
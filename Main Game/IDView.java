@@ -0,0 +1,93 @@
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * Live read-only view of the objects whose IDs are in an IntView, such
+ * as the staff on a course. Objects are looked up as the view is
+ * iterated, so nothing is copied and the view follows the IDs as they
+ * change. IDs with no object are skipped.
+ *
+ * Public methods:
+ * 	public Iterator<T> iterator()
+ * 	public int size()
+ * 	public boolean isEmpty()
+ */
+public class IDView<T> extends AbstractCollection<T> {
+
+	/**
+	 * IDs in this view
+	 */
+	private final IntView ids;
+
+	/**
+	 * Turns IDs into objects, null if not found
+	 */
+	private final IntFunction<T> lookup;
+
+	/**
+	 * Constructor
+	 * @param ids IDs owned by a list or course
+	 * @param lookup finds object for ID
+	 */
+	public IDView(IntView ids, IntFunction<T> lookup) {
+		this.ids = ids;
+		this.lookup = lookup;
+	}
+
+	/**
+	 * Method to iterate objects in view in the order of the IDs
+	 * @return iterator, remove is not supported
+	 */
+	public Iterator<T> iterator() {
+
+		return new Iterator<T>() {
+
+			private int position;
+			private T next = advance();
+
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			public T next() {
+
+				if(next == null) {
+					throw new NoSuchElementException();
+				}
+
+				T value = next;
+				next = advance();
+				return value;
+			}
+
+			private T advance() {
+
+				while(position < ids.size()) {
+					T value = lookup.apply(ids.get(position++));
+					if(value != null) {
+						return value;
+					}
+				}
+				return null;
+			}
+		};
+	}
+
+	/**
+	 * Method to get number of IDs in view
+	 * @return number of IDs, counting any with no object
+	 */
+	public int size() {
+		return ids.size();
+	}
+
+	/**
+	 * Method to check if view is empty
+	 * @return true if empty
+	 */
+	public boolean isEmpty() {
+		return ids.size() == 0;
+	}
+}
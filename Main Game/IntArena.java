@@ -0,0 +1,194 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Block of memory outside the heap holding the values of many
+ * OffHeapIntSets, each in its own region. Regions are handed out one
+ * after another; a set that outgrows its region moves to a new one
+ * twice the size and its old region is left unused. When the block is
+ * full the live regions are copied, packed together, into a new block
+ * sized for them with room to grow, so unused regions are reclaimed and
+ * the garbage collector never sees the values at all.
+ * The arena is its sets' lock: they hold it for each call, as packing
+ * moves every set, and it is held here while making sets.
+ *
+ * Public methods:
+ * 	public IntArena()
+ * 	public IntArena(int capacity)
+ * 	public OffHeapIntSet newSet(IntView values)
+ * 	public long capacityBytes()
+ * 	public long liveBytes()
+ */
+public class IntArena {
+
+	/**
+	 * Ints in a new arena when not given
+	 */
+	private static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private IntBuffer ints; //direct memory, in native byte order
+	private int top; //ints handed out, live or not
+	private long live; //ints in regions of live sets
+	private OffHeapIntSet[] sets = new OffHeapIntSet[16]; //live sets, moved when packing
+	private int setCount; //live sets
+
+	/**
+	 * Constructor
+	 */
+
+	public IntArena() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor sized for expected number of values
+	 * @param capacity ints to start with
+	 */
+
+	public IntArena(int capacity) {
+		this.ints = allocate(Math.max(capacity, 16));
+	}
+
+	/**
+	 * Method to make a set in this arena holding copies of values
+	 * @param values values to start with
+	 * @return new set
+	 */
+
+	public synchronized OffHeapIntSet newSet(IntView values) {
+
+		int capacity = Math.max(values.size(), 2);
+		OffHeapIntSet set = new OffHeapIntSet(this, reserve(capacity), capacity);
+
+		if (setCount == sets.length) {
+			sets = Arrays.copyOf(sets, setCount * 2);
+		}
+		set.handle = setCount;
+		sets[setCount++] = set;
+
+		for (int i = 0; i < values.size(); i++) {
+			set.add(values.get(i));
+		}
+		return set;
+	}
+
+	/**
+	 * Method to get bytes of memory held
+	 * @return size of block
+	 */
+
+	public synchronized long capacityBytes() {
+		return (long) ints.capacity() * 4;
+	}
+
+	/**
+	 * Method to get bytes in regions of live sets
+	 * @return bytes in use
+	 */
+
+	public synchronized long liveBytes() {
+		return live * 4;
+	}
+
+	/*
+	 * ==================================================
+	 * Used by OffHeapIntSet
+	 * ==================================================
+	 */
+
+	int get(int index) {
+		return ints.get(index);
+	}
+
+	void put(int index, int value) {
+		ints.put(index, value);
+	}
+
+	/**
+	 * Finds room for a region, packing or growing the block if full.
+	 * Packing moves every live region, so sets must reread their offset
+	 * @param capacity ints in region
+	 * @return offset of region
+	 */
+
+	int reserve(int capacity) {
+
+		if ((long) top + capacity > ints.capacity()) {
+			pack(capacity);
+		}
+
+		int offset = top;
+		top += capacity;
+		live += capacity;
+		return offset;
+	}
+
+	/**
+	 * Marks a region as unused
+	 * @param capacity ints in region
+	 */
+
+	void unreserve(int capacity) {
+		live -= capacity;
+	}
+
+	/**
+	 * Removes set from arena and marks its region unused
+	 * @param set set no longer used
+	 */
+
+	void remove(OffHeapIntSet set) {
+
+		unreserve(set.capacity);
+
+		// Move last set into the hole
+		OffHeapIntSet last = sets[--setCount];
+		sets[set.handle] = last;
+		last.handle = set.handle;
+		sets[setCount] = null;
+		set.handle = -1;
+	}
+
+	/**
+	 * Copies live regions into a new block with room for capacity more
+	 * ints and half as much again free
+	 * @param capacity ints about to be reserved
+	 */
+
+	private void pack(int capacity) {
+
+		long needed = live + capacity;
+		long size = Math.max(DEFAULT_CAPACITY, needed + needed / 2);
+		if (size > Integer.MAX_VALUE / 4) {
+			throw new IllegalStateException("IntArena larger than " + Integer.MAX_VALUE / 4 + " ints");
+		}
+
+		IntBuffer packed = allocate((int) size);
+		int offset = 0;
+
+		for (int s = 0; s < setCount; s++) {
+			OffHeapIntSet set = sets[s];
+			for (int i = 0; i < set.size(); i++) {
+				packed.put(offset + i, ints.get(set.offset + i));
+			}
+			set.offset = offset;
+			offset += set.capacity;
+		}
+
+		// Old block is freed by its cleaner once unreachable
+		ints = packed;
+		top = offset;
+	}
+
+	/**
+	 * Allocates direct memory
+	 * @param capacity ints
+	 * @return int view of memory
+	 */
+
+	private static IntBuffer allocate(int capacity) {
+		return ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+}
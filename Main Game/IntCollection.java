@@ -0,0 +1,47 @@
+/**
+ * Set of primitive ints that can be changed, such as the staff IDs on a
+ * course. IntSet keeps its values on the heap, OffHeapIntSet keeps them
+ * in an IntArena outside it.
+ *
+ * Public methods:
+ * 	public boolean add(int value)
+ * 	public boolean remove(int value)
+ * 	public void clear()
+ * 	public IntView view()
+ * 	public void release()
+ * 	plus every public method of IntView
+ */
+public abstract class IntCollection extends IntView {
+
+	/**
+	 * Method to add value
+	 * @param value
+	 * @return true if added, false if already present
+	 */
+	public abstract boolean add(int value);
+
+	/**
+	 * Method to remove value
+	 * @param value
+	 * @return true if removed, false if not present
+	 */
+	public abstract boolean remove(int value);
+
+	/**
+	 * Method to remove all values
+	 */
+	public abstract void clear();
+
+	/**
+	 * Method to get read-only view of this set, updated as the set changes
+	 * @return read-only view
+	 */
+	public abstract IntView view();
+
+	/**
+	 * Method to give back storage held outside the heap once the set is
+	 * no longer used. Nothing to do for sets on the heap
+	 */
+	public void release() {
+	}
+}
@@ -0,0 +1,293 @@
+
+/**
+ * Set of primitive ints with constant time add, remove and contains.
+ * Values are kept packed in an array; once the set grows past a few
+ * values an open addressing table from value to position is added so
+ * lookups do not scan. Removing a value moves the last value into its place.
+ *
+ * Public methods:
+ * 	public boolean add(int value)
+ * 	public boolean remove(int value)
+ * 	public boolean contains(int value)
+ * 	public int size()
+ * 	public int get(int i)
+ * 	public void clear()
+ * 	public IntView view()
+ */
+public class IntSet extends IntCollection {
+
+	/**
+	 * Sets up to this size are searched directly without a table
+	 */
+	private static final int SMALL = 8;
+
+	private int[] values; //packed values
+	private int size; //number of values
+	private int[] slots; //hash table of position + 1 for each value, 0 if empty, null while small
+	private IntView view; //read-only view handed out by view()
+
+	/**
+	 * Constructor
+	 */
+
+	public IntSet() {
+		this(4);
+	}
+
+	/**
+	 * Constructor sized for expected number of values
+	 * @param expected
+	 */
+
+	public IntSet(int expected) {
+		this.values = new int[Math.max(expected, 1)];
+		this.size = 0;
+	}
+
+	/**
+	 * Method to add value
+	 * @param value
+	 * @return true if added, false if already present
+	 */
+
+	public boolean add(int value) {
+
+		if (contains(value)) {
+			return false;
+		}
+
+		if (size == values.length) {
+			int[] grown = new int[values.length * 2];
+			System.arraycopy(values, 0, grown, 0, size);
+			values = grown;
+		}
+
+		values[size] = value;
+		size++;
+
+		if (slots != null) {
+			if (size * 2 > slots.length) {
+				rebuild();
+			} else {
+				insertSlot(value, size - 1);
+			}
+		} else if (size > SMALL) {
+			rebuild();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Method to remove value
+	 * @param value
+	 * @return true if removed, false if not present
+	 */
+
+	public boolean remove(int value) {
+
+		int pos = indexOf(value);
+
+		if (pos < 0) {
+			return false;
+		}
+
+		if (slots != null) {
+			deleteSlot(value);
+		}
+
+		// Move last value into the hole
+		int last = size - 1;
+		if (pos != last) {
+			values[pos] = values[last];
+			if (slots != null) {
+				slots[findSlot(values[pos])] = pos + 1;
+			}
+		}
+		size--;
+
+		return true;
+	}
+
+	/**
+	 * Method to check if value is present
+	 * @param value
+	 * @return true if present
+	 */
+
+	public boolean contains(int value) {
+		return indexOf(value) >= 0;
+	}
+
+	/**
+	 * Method to get number of values
+	 * @return number of values
+	 */
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Method to get value at position
+	 * @param i position from 0 to size() - 1
+	 * @return value
+	 */
+
+	public int get(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		}
+		return values[i];
+	}
+
+	/**
+	 * Method to remove all values
+	 */
+
+	public void clear() {
+		size = 0;
+		slots = null;
+	}
+
+	/**
+	 * Method to get read-only view of this set, updated as the set changes
+	 * @return read-only view
+	 */
+
+	public IntView view() {
+
+		if (view == null) {
+			view = new IntView() {
+
+				public int size() {
+					return IntSet.this.size();
+				}
+
+				public int get(int i) {
+					return IntSet.this.get(i);
+				}
+
+				public boolean contains(int value) {
+					return IntSet.this.contains(value);
+				}
+			};
+		}
+		return view;
+	}
+
+	/**
+	 * Finds position of value
+	 * @param value
+	 * @return position, -1 if not present
+	 */
+
+	private int indexOf(int value) {
+
+		if (slots == null) {
+			for (int i = 0; i < size; i++) {
+				if (values[i] == value) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		int slot = findSlot(value);
+		return slot < 0 ? -1 : slots[slot] - 1;
+	}
+
+	/**
+	 * Finds table slot holding value
+	 * @param value
+	 * @return slot, -1 if not present
+	 */
+
+	private int findSlot(int value) {
+
+		int mask = slots.length - 1;
+
+		for (int i = hash(value) & mask; slots[i] != 0; i = (i + 1) & mask) {
+			if (values[slots[i] - 1] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Stores position of value in table
+	 * @param value
+	 * @param pos
+	 */
+
+	private void insertSlot(int value, int pos) {
+
+		int mask = slots.length - 1;
+		int i = hash(value) & mask;
+
+		while (slots[i] != 0) {
+			i = (i + 1) & mask;
+		}
+		slots[i] = pos + 1;
+	}
+
+	/**
+	 * Removes value from table, shifting later entries of the
+	 * probe sequence back so lookups never stop early
+	 * @param value must still be at its position in values
+	 */
+
+	private void deleteSlot(int value) {
+
+		int mask = slots.length - 1;
+		int gap = findSlot(value);
+		int i = gap;
+
+		while (true) {
+
+			i = (i + 1) & mask;
+
+			if (slots[i] == 0) {
+				break;
+			}
+
+			int home = hash(values[slots[i] - 1]) & mask;
+
+			if (((i - home) & mask) >= ((i - gap) & mask)) {
+				slots[gap] = slots[i];
+				gap = i;
+			}
+		}
+
+		slots[gap] = 0;
+	}
+
+	/**
+	 * Rebuilds table at a size that keeps it under half full
+	 */
+
+	private void rebuild() {
+
+		int capacity = 16;
+		while (capacity < size * 4) {
+			capacity <<= 1;
+		}
+
+		slots = new int[capacity];
+		for (int i = 0; i < size; i++) {
+			insertSlot(values[i], i);
+		}
+	}
+
+	/**
+	 * Spreads values across the table
+	 * @param value
+	 * @return hash
+	 */
+
+	private static int hash(int value) {
+		int h = value * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,83 @@
+import java.util.function.IntConsumer;
+
+/**
+ * Read-only view of a set of primitive ints, such as the staff IDs on a course.
+ * Values are read by position with get(i) so callers can loop over them
+ * without creating an iterator or boxing any Integers.
+ *
+ * Public methods:
+ * 	public int size()
+ * 	public int get(int i)
+ * 	public boolean contains(int value)
+ * 	public boolean isEmpty()
+ * 	public void forEach(IntConsumer action)
+ * 	public int[] toArray()
+ * 	public String toString()
+ */
+public abstract class IntView {
+
+	/**
+	 * Method to get number of values
+	 * @return number of values
+	 */
+	public abstract int size();
+
+	/**
+	 * Method to get value at position
+	 * @param i position from 0 to size() - 1
+	 * @return value
+	 */
+	public abstract int get(int i);
+
+	/**
+	 * Method to check if value is present
+	 * @param value
+	 * @return true if present
+	 */
+	public abstract boolean contains(int value);
+
+	/**
+	 * Method to check if there are no values
+	 * @return true if empty
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Method to run action on each value
+	 * @param action
+	 */
+	public void forEach(IntConsumer action) {
+		for (int i = 0; i < size(); i++) {
+			action.accept(get(i));
+		}
+	}
+
+	/**
+	 * Method to copy values to a new array
+	 * @return array of values
+	 */
+	public int[] toArray() {
+		int[] result = new int[size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Method to format values as [a, b, c]
+	 * @return formatted values
+	 */
+	public String toString() {
+		StringBuilder output = new StringBuilder("[");
+		for (int i = 0; i < size(); i++) {
+			if (i > 0) {
+				output.append(", ");
+			}
+			output.append(get(i));
+		}
+		return output.append(']').toString();
+	}
+}
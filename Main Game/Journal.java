@@ -0,0 +1,562 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of Model changes, written between snapshots so work
+ * is not lost if the program stops before the staff and course files are
+ * rewritten. Each change is one record: length, CRC32, op code, fields.
+ * Records are buffered as they are added, and are only on disk once sync
+ * returns. A caller adds its records and then calls sync before acting
+ * on them; the first thread to sync writes and forces
+ * everything added so far while later ones wait, then one of those
+ * forces everything added meanwhile, so changes made together share one
+ * fsync without any change being acknowledged before it is on disk.
+ * Replaying a record more than once has the same effect as replaying it once.
+ * At a checkpoint the journal is rotated to path.old, which is deleted once
+ * the snapshot holding its changes is safely on disk.
+ * If writing or forcing the file fails the journal stops taking records:
+ * that call and every later one throws UncheckedIOException, and the
+ * journal must be reopened, replaying what reached the disk.
+ * The owner closes the journal when finished with it.
+ *
+ * Public methods:
+ * 	public Journal(String path)
+ * 	public void replay(Replayer replayer)
+ * 	public void createStaff(int staffID, String name)
+ * 	public void createCourse(int courseID, String name, int requiredStaff)
+ * 	public void addStaffToCourse(int courseID, int staffID)
+ * 	public void removeStaffFromCourse(int courseID, int staffID)
+ * 	public void setRequirements(int courseID, int requiredStaff)
+ * 	public void train(int staffID)
+ * 	public void setApproval(int courseID, boolean approved)
+ * 	public void sync()
+ * 	public long size()
+ * 	public boolean rotate()
+ * 	public void dropRotated()
+ * 	public void close()
+ */
+public class Journal {
+
+	/**
+	 * Op codes for records
+	 */
+	private static final byte CREATE_STAFF = 1;
+	private static final byte CREATE_COURSE = 2;
+	private static final byte ADD_STAFF = 3;
+	private static final byte REMOVE_STAFF = 4;
+	private static final byte REQUIREMENTS = 5;
+	private static final byte TRAIN = 6;
+	private static final byte APPROVAL = 7;
+
+	/**
+	 * Bytes before each record body: length and CRC32
+	 */
+	private static final int HEADER = 8;
+
+	/**
+	 * Largest record body accepted on replay, anything bigger is corrupt
+	 */
+	private static final int MAX_RECORD = 1 << 20;
+
+	/**
+	 * Receives records read back by replay
+	 */
+	public interface Replayer {
+		void createStaff(int staffID, String name);
+		void createCourse(int courseID, String name, int requiredStaff);
+		void addStaffToCourse(int courseID, int staffID);
+		void removeStaffFromCourse(int courseID, int staffID);
+		void setRequirements(int courseID, int requiredStaff);
+		void train(int staffID);
+		void setApproval(int courseID, boolean approved);
+	}
+
+	private final String path; // journal file
+	private final String rotated; // journal file moved aside by the last checkpoint
+	private FileChannel channel; // open for appending
+	private final ByteBuffer pending = ByteBuffer.allocateDirect(64 * 1024); // records not yet written
+	private final ByteBuffer record = ByteBuffer.allocate(256); // record being encoded
+	private final CRC32 crc = new CRC32();
+	private boolean open; // taking records until closed
+	private long added; // bytes of records added since opened, across rotations
+	private long forced; // bytes of records added known to be on disk
+	private long start; // value of added at the start of the journal file
+	private boolean forcing; // a sync is forcing the file without holding the lock
+	private IOException failure; // write or force that failed, null if none
+
+	/**
+	 * Constructor, opens or creates journal file
+	 * @param path journal file path
+	 * @throws IOException if the file cannot be opened
+	 */
+	public Journal(String path) throws IOException {
+
+		this.path = path;
+		this.rotated = path + ".old";
+		this.channel = openChannel();
+		this.start = -this.channel.size();
+		this.open = true;
+	}
+
+	/**
+	 * Method to read back every complete record in order, starting with
+	 * a rotated journal left by a checkpoint that did not finish.
+	 * A torn or corrupt record at the end, left by a crash, ends the
+	 * replay and is cut off so new records follow the last good one
+	 * @param replayer receives each record
+	 * @throws IOException if the file cannot be read
+	 */
+	public synchronized void replay(Replayer replayer) throws IOException {
+
+		if (Files.exists(Paths.get(rotated))) {
+			replay(rotated, replayer);
+		}
+
+		long valid = replay(path, replayer);
+
+		if (valid < channel.size()) {
+			channel.truncate(valid);
+			channel.position(valid);
+			start = -valid;
+		}
+	}
+
+	/**
+	 * Replays records from one journal file
+	 * @param file journal file
+	 * @param replayer receives each record
+	 * @return length of the file up to the last good record
+	 * @throws IOException if the file cannot be read
+	 */
+	private long replay(String file, Replayer replayer) throws IOException {
+
+		long valid = 0;
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Channels.newInputStream(FileChannel.open(Paths.get(file), StandardOpenOption.READ))));
+
+		try {
+			while (true) {
+
+				int length = in.readInt();
+				int checksum = in.readInt();
+				if (length <= 0 || length > MAX_RECORD) {
+					break;
+				}
+
+				byte[] body = new byte[length];
+				in.readFully(body);
+
+				crc.reset();
+				crc.update(body, 0, length);
+				if ((int) crc.getValue() != checksum) {
+					break;
+				}
+
+				apply(ByteBuffer.wrap(body), replayer);
+				valid += HEADER + length;
+			}
+		} catch (EOFException e) {
+			// end of journal, possibly part way through a record
+		} finally {
+			in.close();
+		}
+
+		return valid;
+	}
+
+	/**
+	 * Method to record new staff member
+	 * @param staffID ID given to staff member
+	 * @param name
+	 */
+	public void createStaff(int staffID, String name) {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		append(CREATE_STAFF, staffID, 0, bytes);
+	}
+
+	/**
+	 * Method to record new course
+	 * @param courseID ID given to course
+	 * @param name
+	 * @param requiredStaff
+	 */
+	public void createCourse(int courseID, String name, int requiredStaff) {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		append(CREATE_COURSE, courseID, requiredStaff, bytes);
+	}
+
+	/**
+	 * Method to record staff added to course
+	 * @param courseID
+	 * @param staffID
+	 */
+	public void addStaffToCourse(int courseID, int staffID) {
+		append(ADD_STAFF, courseID, staffID, null);
+	}
+
+	/**
+	 * Method to record staff removed from course
+	 * @param courseID
+	 * @param staffID
+	 */
+	public void removeStaffFromCourse(int courseID, int staffID) {
+		append(REMOVE_STAFF, courseID, staffID, null);
+	}
+
+	/**
+	 * Method to record new course requirements
+	 * @param courseID
+	 * @param requiredStaff
+	 */
+	public void setRequirements(int courseID, int requiredStaff) {
+		append(REQUIREMENTS, courseID, requiredStaff, null);
+	}
+
+	/**
+	 * Method to record staff member trained
+	 * @param staffID
+	 */
+	public void train(int staffID) {
+		append(TRAIN, staffID, 0, null);
+	}
+
+	/**
+	 * Method to record course approval change
+	 * @param courseID
+	 * @param approved
+	 */
+	public void setApproval(int courseID, boolean approved) {
+		append(APPROVAL, courseID, approved ? 1 : 0, null);
+	}
+
+	/**
+	 * Method to wait until every record added so far is forced to disk,
+	 * forcing it if no other sync already is
+	 * @throws UncheckedIOException if the journal has failed
+	 */
+	public void sync() {
+
+		long target;
+		synchronized (this) {
+			target = added;
+		}
+
+		boolean interrupted = false;
+		try {
+			while (true) {
+
+				long end;
+				FileChannel file;
+				synchronized (this) {
+					while (forcing && forced < target && failure == null) {
+						interrupted |= await();
+					}
+					check();
+					if (forced >= target) {
+						return;
+					}
+					// Write what is buffered, then force it without the lock so
+					// records can be added meanwhile for the next force
+					writePending();
+					end = added;
+					file = channel;
+					forcing = true;
+				}
+
+				IOException error = null;
+				try {
+					file.force(false);
+				} catch (IOException e) {
+					error = e;
+				}
+
+				synchronized (this) {
+					forcing = false;
+					if (error != null) {
+						failure = error;
+					} else {
+						forced = Math.max(forced, end);
+					}
+					notifyAll();
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Method to get journal size including records not yet written
+	 * @return size in bytes
+	 */
+	public synchronized long size() {
+		return added - start;
+	}
+
+	/**
+	 * Method to move the journal aside when a checkpoint takes its snapshot
+	 * and start a new one for later changes. Must be called while no
+	 * changes are being made, so the snapshot holds exactly the moved records.
+	 * If an earlier rotated journal is still there the journal is not moved;
+	 * its records are kept and replaying them again is harmless
+	 * @return true if journal was rotated
+	 * @throws UncheckedIOException if the journal has failed or fails now
+	 */
+	public synchronized boolean rotate() {
+
+		awaitForce();
+		if (!open || Files.exists(Paths.get(rotated))) {
+			return false;
+		}
+		check();
+
+		try {
+			writePending();
+			channel.force(false);
+			forced = added;
+			channel.close();
+			Files.move(Paths.get(path), Paths.get(rotated), StandardCopyOption.ATOMIC_MOVE);
+			channel = openChannel();
+			start = added;
+			return true;
+		} catch (IOException e) {
+			throw fail(e);
+		}
+	}
+
+	/**
+	 * Method to delete the rotated journal once the snapshot holding its
+	 * changes is safely on disk
+	 * @throws UncheckedIOException if it cannot be deleted
+	 */
+	public void dropRotated() {
+		try {
+			Files.deleteIfExists(Paths.get(rotated));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not delete " + rotated, e);
+		}
+	}
+
+	/**
+	 * Opens journal file for appending
+	 * @return channel positioned at end of file
+	 * @throws IOException if the file cannot be opened
+	 */
+	private FileChannel openChannel() throws IOException {
+		FileChannel opened = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		opened.position(opened.size());
+		return opened;
+	}
+
+	/**
+	 * Method to force remaining records and close the journal
+	 * @throws UncheckedIOException if the journal has failed or fails now
+	 */
+	public void close() {
+
+		sync();
+
+		synchronized (this) {
+			awaitForce();
+			if (!open) {
+				return;
+			}
+			open = false;
+			try {
+				writePending();
+				channel.force(false);
+				forced = added;
+				channel.close();
+			} catch (IOException e) {
+				throw fail(e);
+			}
+		}
+	}
+
+	/**
+	 * Encodes a record and adds it to the pending buffer
+	 * @param op op code
+	 * @param a first int field
+	 * @param b second int field
+	 * @param name name bytes, null if record has no name
+	 * @throws UncheckedIOException if the journal has failed or fails now
+	 */
+	private synchronized void append(byte op, int a, int b, byte[] name) {
+
+		if (!open) {
+			throw new IllegalStateException("Journal closed");
+		}
+		check();
+
+		int length = 9 + (name == null ? 0 : 4 + name.length);
+
+		ByteBuffer body = length <= record.capacity() ? record : ByteBuffer.allocate(length);
+		body.clear();
+		body.put(op).putInt(a).putInt(b);
+		if (name != null) {
+			body.putInt(name.length).put(name);
+		}
+
+		crc.reset();
+		crc.update(body.array(), 0, length);
+
+		try {
+			if (pending.remaining() < HEADER + length) {
+				writePending();
+			}
+
+			if (pending.remaining() < HEADER + length) {
+				// record larger than buffer, write it directly
+				ByteBuffer large = ByteBuffer.allocate(HEADER + length);
+				large.putInt(length).putInt((int) crc.getValue()).put(body.array(), 0, length).flip();
+				write(large);
+			} else {
+				pending.putInt(length).putInt((int) crc.getValue()).put(body.array(), 0, length);
+			}
+		} catch (IOException e) {
+			throw fail(e);
+		}
+		added += HEADER + length;
+	}
+
+	/**
+	 * Decodes a record body and passes it to the replayer
+	 * @param body record body
+	 * @param replayer
+	 */
+	private static void apply(ByteBuffer body, Replayer replayer) {
+
+		byte op = body.get();
+		int a = body.getInt();
+		int b = body.getInt();
+
+		switch (op) {
+		case CREATE_STAFF:
+			replayer.createStaff(a, name(body));
+			break;
+		case CREATE_COURSE:
+			replayer.createCourse(a, name(body), b);
+			break;
+		case ADD_STAFF:
+			replayer.addStaffToCourse(a, b);
+			break;
+		case REMOVE_STAFF:
+			replayer.removeStaffFromCourse(a, b);
+			break;
+		case REQUIREMENTS:
+			replayer.setRequirements(a, b);
+			break;
+		case TRAIN:
+			replayer.train(a);
+			break;
+		case APPROVAL:
+			replayer.setApproval(a, b != 0);
+			break;
+		default:
+			// unknown op from a newer version, skip
+		}
+	}
+
+	/**
+	 * Reads length prefixed UTF-8 name
+	 * @param body
+	 * @return name
+	 */
+	private static String name(ByteBuffer body) {
+		int length = body.getInt();
+		String name = new String(body.array(), body.position(), length, StandardCharsets.UTF_8);
+		body.position(body.position() + length);
+		return name;
+	}
+
+	/**
+	 * Writes pending records to the channel, called holding the lock
+	 * @throws UncheckedIOException if the write fails
+	 */
+	private void writePending() {
+		if (pending.position() > 0) {
+			pending.flip();
+			try {
+				write(pending);
+			} catch (IOException e) {
+				throw fail(e);
+			}
+			pending.clear();
+		}
+	}
+
+	/**
+	 * Writes whole buffer to channel
+	 * @param buffer
+	 * @throws IOException if the write fails
+	 */
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Marks the journal failed, so every later call throws
+	 * @param e cause
+	 * @return exception to throw
+	 */
+	private UncheckedIOException fail(IOException e) {
+		if (failure == null) {
+			failure = e;
+		}
+		notifyAll();
+		return new UncheckedIOException("Journal failed", e);
+	}
+
+	/**
+	 * Throws if the journal has failed, called holding the lock
+	 */
+	private void check() {
+		if (failure != null) {
+			throw new UncheckedIOException("Journal failed", failure);
+		}
+	}
+
+	/**
+	 * Waits for a sync forcing the file to finish, called holding the lock.
+	 * An interrupt is kept for the caller rather than cutting the wait short
+	 */
+	private void awaitForce() {
+		boolean interrupted = false;
+		while (forcing) {
+			interrupted |= await();
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Waits to be notified, called holding the lock
+	 * @return true if interrupted while waiting
+	 */
+	private boolean await() {
+		try {
+			wait();
+			return false;
+		} catch (InterruptedException e) {
+			return true;
+		}
+	}
+}
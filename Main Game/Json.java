@@ -0,0 +1,302 @@
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JSON for ApiServer. Writes staff, courses and lists of them, and reads
+ * the flat request objects the server takes, whose values are strings,
+ * numbers, booleans or null. Nested objects and arrays are not read.
+ *
+ * Public methods:
+ * 	public static String staff(Staff staff)
+ * 	public static String course(Course course)
+ * 	public static String staffList(Collection<Staff> staff)
+ * 	public static String courseList(Collection<Course> courses)
+ * 	public static String string(String value)
+ * 	public static Map<String, String> parseObject(String text)
+ */
+public class Json {
+
+	/**
+	 * Method to write a staff member as an object
+	 * @param staff
+	 * @return JSON object
+	 */
+	public static String staff(Staff staff) {
+		return staff(new StringBuilder(96), staff).toString();
+	}
+
+	/**
+	 * Method to write a course as an object, including IDs of its staff
+	 * @param course
+	 * @return JSON object
+	 */
+	public static String course(Course course) {
+		return course(new StringBuilder(128), course).toString();
+	}
+
+	/**
+	 * Method to write staff as an array of objects
+	 * @param staff
+	 * @return JSON array
+	 */
+	public static String staffList(Collection<Staff> staff) {
+
+		StringBuilder json = new StringBuilder(staff.size() * 96 + 2).append('[');
+		for(Staff member : staff) {
+			if(json.length() > 1) {
+				json.append(',');
+			}
+			staff(json, member);
+		}
+		return json.append(']').toString();
+	}
+
+	/**
+	 * Method to write courses as an array of objects
+	 * @param courses
+	 * @return JSON array
+	 */
+	public static String courseList(Collection<Course> courses) {
+
+		StringBuilder json = new StringBuilder(courses.size() * 128 + 2).append('[');
+		for(Course course : courses) {
+			if(json.length() > 1) {
+				json.append(',');
+			}
+			course(json, course);
+		}
+		return json.append(']').toString();
+	}
+
+	/**
+	 * Method to write a string, quoted and escaped
+	 * @param value
+	 * @return JSON string
+	 */
+	public static String string(String value) {
+		return string(new StringBuilder(value.length() + 2), value).toString();
+	}
+
+	/**
+	 * Method to read a flat object. Values are given as written without
+	 * quotes, so numbers and booleans are left for the caller to parse
+	 * @param text JSON object, or empty for no fields
+	 * @return field names to values, null values left out
+	 * @throws IllegalArgumentException if text is not a flat object
+	 */
+	public static Map<String, String> parseObject(String text) {
+
+		Map<String, String> fields = new HashMap<String, String>();
+		Reader reader = new Reader(text);
+
+		reader.skipSpace();
+		if(reader.atEnd()) {
+			return fields;
+		}
+
+		reader.expect('{');
+		reader.skipSpace();
+		if(reader.peek() == '}') {
+			reader.next();
+		} else {
+			while(true) {
+				reader.skipSpace();
+				String name = reader.string();
+				reader.skipSpace();
+				reader.expect(':');
+				reader.skipSpace();
+				String value = reader.peek() == '"' ? reader.string() : reader.literal();
+				if(!"null".equals(value) || reader.lastQuoted) {
+					fields.put(name, value);
+				}
+				reader.skipSpace();
+				if(reader.peek() == ',') {
+					reader.next();
+				} else {
+					reader.expect('}');
+					break;
+				}
+			}
+		}
+
+		reader.skipSpace();
+		if(!reader.atEnd()) {
+			throw new IllegalArgumentException("Text after JSON object");
+		}
+		return fields;
+	}
+
+	private static StringBuilder staff(StringBuilder json, Staff staff) {
+		json.append("{\"id\":").append(staff.getID());
+		json.append(",\"name\":");
+		string(json, staff.getName());
+		json.append(",\"available\":").append(staff.isAvailable());
+		json.append(",\"trained\":").append(staff.isTrained());
+		json.append(",\"version\":").append(staff.getVersion());
+		return json.append('}');
+	}
+
+	private static StringBuilder course(StringBuilder json, Course course) {
+		json.append("{\"id\":").append(course.getID());
+		json.append(",\"name\":");
+		string(json, course.getName());
+		json.append(",\"approved\":").append(course.isApproved());
+		json.append(",\"requiredStaff\":").append(course.getRequiredStaff());
+		json.append(",\"assignedStaff\":").append(course.getAssignedStaff());
+		json.append(",\"staffIDs\":[");
+		IntView staffIDs = course.getStaffID();
+		for(int i = 0; i < staffIDs.size(); i++) {
+			if(i > 0) {
+				json.append(',');
+			}
+			json.append(staffIDs.get(i));
+		}
+		json.append("],\"version\":").append(course.getVersion());
+		return json.append('}');
+	}
+
+	private static StringBuilder string(StringBuilder json, String value) {
+
+		json.append('"');
+		for(int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch(c) {
+				case '"':
+					json.append("\\\"");
+					break;
+				case '\\':
+					json.append("\\\\");
+					break;
+				case '\n':
+					json.append("\\n");
+					break;
+				case '\r':
+					json.append("\\r");
+					break;
+				case '\t':
+					json.append("\\t");
+					break;
+				default:
+					if(c < 0x20) {
+						json.append(String.format("\\u%04x", (int) c));
+					} else {
+						json.append(c);
+					}
+			}
+		}
+		return json.append('"');
+	}
+
+	/**
+	 * Position in text being read
+	 */
+	private static class Reader {
+
+		private final String text;
+		private int position;
+		private boolean lastQuoted; // whether the last value read was a string
+
+		Reader(String text) {
+			this.text = text;
+		}
+
+		boolean atEnd() {
+			return position == text.length();
+		}
+
+		char peek() {
+			if(atEnd()) {
+				throw new IllegalArgumentException("JSON ends too soon");
+			}
+			return text.charAt(position);
+		}
+
+		char next() {
+			char c = peek();
+			position++;
+			return c;
+		}
+
+		void expect(char c) {
+			if(next() != c) {
+				throw new IllegalArgumentException("Expected '" + c + "' at " + (position - 1));
+			}
+		}
+
+		void skipSpace() {
+			while(!atEnd() && Character.isWhitespace(text.charAt(position))) {
+				position++;
+			}
+		}
+
+		/**
+		 * Quoted string, unescaped
+		 */
+		String string() {
+
+			expect('"');
+			StringBuilder value = new StringBuilder();
+			while(true) {
+				char c = next();
+				if(c == '"') {
+					break;
+				}
+				if(c != '\\') {
+					value.append(c);
+					continue;
+				}
+				char escaped = next();
+				switch(escaped) {
+					case 'n':
+						value.append('\n');
+						break;
+					case 'r':
+						value.append('\r');
+						break;
+					case 't':
+						value.append('\t');
+						break;
+					case 'b':
+						value.append('\b');
+						break;
+					case 'f':
+						value.append('\f');
+						break;
+					case 'u':
+						if(position + 4 > text.length()) {
+							throw new IllegalArgumentException("JSON ends too soon");
+						}
+						try {
+							value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+						} catch(NumberFormatException e) {
+							throw new IllegalArgumentException("Bad \\u escape at " + position);
+						}
+						position += 4;
+						break;
+					default:
+						value.append(escaped);
+				}
+			}
+			lastQuoted = true;
+			return value.toString();
+		}
+
+		/**
+		 * Number, true, false or null, as written
+		 */
+		String literal() {
+
+			int start = position;
+			while(!atEnd() && "{}[]\",:".indexOf(text.charAt(position)) < 0
+					&& !Character.isWhitespace(text.charAt(position))) {
+				position++;
+			}
+			if(start == position) {
+				throw new IllegalArgumentException("Expected a value at " + start);
+			}
+			lastQuoted = false;
+			return text.substring(start, position);
+		}
+	}
+}
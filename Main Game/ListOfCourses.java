@@ -1,20 +1,33 @@
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 
 /**
  * Class to store list of courses
  * @author Andrew
  *
  * Public methods:
+ *  public ListOfCourses(boolean offHeap)
  *  public Course find(int ID)
- *  public void createCourse(String name, int requiredStaff)
+ *  public Course createCourse(String name, int requiredStaff)
+ *  public void addCourse(Course course)
  *  public ArrayList<Course> findApprovedCourses()
  *  public ArrayList<Course> findUnapprovedCourses()
  *  public ArrayList<Course> findFullCourses()
+ *  public ArrayList<Course> searchByName(String query, int maxDistance, int limit)
+ *  public Collection<Course> approvedCourses()
+ *  public Collection<Course> unapprovedCourses()
+ *  public Collection<Course> fullCourses()
  *  public ArrayList<Staff> findCourseStaff(Course course, ListOfStaff staffList)
+ *  public Collection<Staff> courseStaff(Course course, ListOfStaff staffList)
  *  public ArrayList<Course> findFullCourses()
  *  public void addStaffToCourse(Course course, Staff staff)
  *  public void removeStaffFromCourse(Course course, Staff staff)
+ *  public ArrayList<Course> findStaffCourses(Staff staff)
+ *  public Collection<Course> staffCourses(Staff staff)
+ *  public int countStaffCourses(Staff staff)
+ *  public void removeStaffFromAllCourses(Staff staff)
  *  public boolean assignCourseRequirements(Course course, int req)
  *  public void giveRequestApproval(Course course, boolean approval)
  *  public void train(Staff staff)
@@ -28,11 +41,86 @@ public class ListOfCourses {
 	 */
 	private ArrayList<Course> courseList;
 	
+	/**
+	 * Index of courses by ID
+	 */
+	private IDIndex<Course> index;
+	
+	/**
+	 * Status bitsets indexed by course ID, kept up to date by Course setters.
+	 * full holds courses that are full but not yet approved
+	 */
+	private BitSet approved;
+	private BitSet unapproved;
+	private BitSet full;
+	
+	/**
+	 * Held while the status bitsets are changed or read, as different
+	 * courses are changed at the same time
+	 */
+	private final Object statusLock = new Object();
+	
+	/**
+	 * Reverse index from staff ID to IDs of courses the staff member is on.
+	 * Changes to different staff are made at the same time, so it is only
+	 * used holding its own lock
+	 */
+	private IDIndex<IntSet> staffCourses;
+	
+	/**
+	 * Holds staff ID's of courses outside the heap, null to keep them on it
+	 */
+	private IntArena arena;
+	
+	/**
+	 * Index of course IDs by trigrams of their names, for fuzzy search.
+	 * Null until the first fuzzy search builds it
+	 */
+	private volatile TrigramIndex trigrams;
+	
+	/**
+	 * Held while the trigram index is built, as searches run at the same time
+	 */
+	private final Object indexLock = new Object();
+	
+	/**
+	 * Live read-only views over the status bitsets
+	 */
+	private Collection<Course> approvedView;
+	private Collection<Course> unapprovedView;
+	private Collection<Course> fullView;
+	
+	/**
+	 * Hands out IDs for new courses, kept above every ID in the list
+	 */
+	private IDAllocator ids;
+	
 	/**
 	 * Constructor
 	 */
 	public ListOfCourses() {
+		this(false);
+	}
+	
+	/**
+	 * Constructor
+	 * @param offHeap true to keep the staff ID's of courses in an IntArena
+	 * outside the heap, so large catalogues add little for the garbage collector
+	 */
+	public ListOfCourses(boolean offHeap) {
+		this.ids = new IDAllocator();
+		this.arena = offHeap ? new IntArena() : null;
 		this.courseList = new ArrayList<Course>();
+		this.index = new IDIndex<Course>();
+		this.staffCourses = new IDIndex<IntSet>();
+		
+		this.approved = new BitSet();
+		this.unapproved = new BitSet();
+		this.full = new BitSet();
+		
+		this.approvedView = new StatusView<Course>(this.approved, this.index, this.statusLock);
+		this.unapprovedView = new StatusView<Course>(this.unapproved, this.index, this.statusLock);
+		this.fullView = new StatusView<Course>(this.full, this.index, this.statusLock);
 	}
 	
 	/**
@@ -42,42 +130,67 @@ public class ListOfCourses {
 	 */
 	public Course find(int ID) {
 		
-		for(Course course : courseList) {
-			
-			if(course.getID() == ID) {
-				return course;
-			}	
-		}
-		
-		return null;
+		return this.index.get(ID);
 	}
 	
 	/**
 	 * Method to add new course to courseList
 	 * @param name Course name
+	 * @return new course
 	 */
-	public void createCourse(String name, int requiredStaff) {
+	public Course createCourse(String name, int requiredStaff) {
 		
-		/*
-		 * Get next ID
-		 * 
-		 * Find most recent course entry ID and increment by 1
-		 *  
-		 */
+		// Add new course with next ID to list and index
+		Course course = new Course(this.ids.next(), name, requiredStaff);
+		addCourse(course);
 		
-		int nextID;
+		return course;
+	}
+	
+	/**
+	 * Gives out an ID for a new course, for callers that journal a
+	 * course before adding it
+	 * @return ID not used before
+	 */
+	int nextID() {
+		return this.ids.next();
+	}
+	
+	/**
+	 * Method to add existing course, keeping its ID
+	 * @param course course with ID not already in list
+	 * @throws IllegalArgumentException if ID is negative
+	 */
+	public void addCourse(Course course) {
 		
-		if(this.courseList.size() > 0) {
-			Course mostRecent = this.courseList.get(this.courseList.size() - 1);
-			nextID = mostRecent.getID() + 1;
+		checkID(course.getID());
+		this.courseList.add(course);
+		this.index.put(course.getID(), course);
+		this.ids.seen(course.getID());
+		TrigramIndex trigrams = this.trigrams;
+		if(trigrams != null) {
+			trigrams.add(course.getID(), course.getName());
 		}
-		else {
-			// start from 1
-			nextID = 1;
+		course.setList(this);
+		if(this.arena != null) {
+			course.storeStaffIn(this.arena);
 		}
 		
-		// Add new course to list
-		this.courseList.add(new Course(nextID, name, requiredStaff));
+		IntView staffID = course.getStaffID();
+		for(int i = 0; i < staffID.size(); i++) {
+			linkStaff(staffID.get(i), course.getID());
+		}
+	}
+	
+	/**
+	 * Refuses IDs the status bitsets cannot hold
+	 * @param ID
+	 * @throws IllegalArgumentException if ID is negative
+	 */
+	private static void checkID(int ID) {
+		if(ID < 0) {
+			throw new IllegalArgumentException("Course ID " + ID + " is negative");
+		}
 	}
 	
 	/**
@@ -86,15 +199,7 @@ public class ListOfCourses {
 	 */
 	public ArrayList<Course> findApprovedCourses(){
 		
-		ArrayList<Course> approvedCourses = new ArrayList<Course>();
-		
-		for(Course course : this.courseList) {
-			if(course.isApproved()) {
-				approvedCourses.add(course);
-			}
-		}
-		
-		return approvedCourses;
+		return new ArrayList<Course>(this.approvedView);
 	}
 	
 	/**
@@ -103,15 +208,7 @@ public class ListOfCourses {
 	 */
 	public ArrayList<Course> findUnapprovedCourses(){
 		
-		ArrayList<Course> unapprovedCourses = new ArrayList<Course>();
-		
-		for(Course course : this.courseList) {
-			if(!course.isApproved()) {
-				unapprovedCourses.add(course);
-			}
-		}
-		
-		return unapprovedCourses;
+		return new ArrayList<Course>(this.unapprovedView);
 	}
 	
 	/**
@@ -121,15 +218,91 @@ public class ListOfCourses {
 	 */
 	public ArrayList<Course> findFullCourses(){
 		
-		ArrayList<Course> fullCourses = new ArrayList<Course>();
+		return new ArrayList<Course>(this.fullView);
+	}
+	
+	/**
+	 * Gets trigram index, building it from every course on first use
+	 * @return trigram index
+	 */
+	private TrigramIndex trigrams() {
 		
-		for(Course course : this.courseList) {
-			if(course.checkFull() && (!course.isApproved())) {
-				fullCourses.add(course);
+		TrigramIndex trigrams = this.trigrams;
+		if(trigrams != null) {
+			return trigrams;
+		}
+		
+		synchronized(this.indexLock) {
+			trigrams = this.trigrams;
+			if(trigrams == null) {
+				trigrams = new TrigramIndex();
+				for(Course course : this.courseList) {
+					trigrams.add(course.getID(), course.getName());
+				}
+				this.trigrams = trigrams;
 			}
+			return trigrams;
 		}
+	}
+	
+	/**
+	 * Method to find courses whose names are close to query, for names that
+	 * may be mistyped. Case is ignored
+	 * @param query name to look for
+	 * @param maxDistance most letters inserted, deleted or changed
+	 * @param limit most courses to return
+	 * @return ArrayList of courses, closest first
+	 */
+	public ArrayList<Course> searchByName(String query, int maxDistance, int limit){
+		
+		int[] ids = trigrams().search(query, maxDistance, limit);
+		ArrayList<Course> result = new ArrayList<Course>(ids.length);
+		
+		for(int id : ids) {
+			result.add(this.index.get(id));
+		}
+		return result;
+	}
+	
+	/**
+	 * Method to get live read-only view of approved courses
+	 * @return approved courses, updated as courses change
+	 */
+	public Collection<Course> approvedCourses(){
+		return this.approvedView;
+	}
+	
+	/**
+	 * Method to get live read-only view of unapproved courses
+	 * @return unapproved courses, updated as courses change
+	 */
+	public Collection<Course> unapprovedCourses(){
+		return this.unapprovedView;
+	}
+	
+	/**
+	 * Method to get live read-only view of full courses
+	 * that are not approved
+	 * @return full courses, updated as courses change
+	 */
+	public Collection<Course> fullCourses(){
+		return this.fullView;
+	}
+	
+	/**
+	 * Called by Course when staff, requirements or approval change
+	 * so the status bitsets stay in step
+	 * @param course course that changed
+	 */
+	void statusChanged(Course course) {
+		
+		int id = course.getID();
 		
-		return fullCourses;
+		synchronized(this.statusLock) {
+			this.approved.set(id, course.isApproved());
+			this.unapproved.set(id, !course.isApproved());
+			this.full.set(id, course.checkFull() && !course.isApproved());
+		}
 	}
 	
 	/**
@@ -140,17 +313,31 @@ public class ListOfCourses {
 	 */
 	public ArrayList<Staff> findCourseStaff(Course course, ListOfStaff staffList){
 		
-		ArrayList<Staff> courseStaff = new ArrayList<Staff>();
+		IntView staffID = course.getStaffID();
+		ArrayList<Staff> courseStaff = new ArrayList<Staff>(staffID.size());
 		
-		for(int id : course.getStaffID()) {
+		// Each lookup is a hash probe so this is linear in the course size
+		for(int i = 0; i < staffID.size(); i++) {
 
-			courseStaff.add(staffList.find(id));
+			courseStaff.add(staffList.find(staffID.get(i)));
 
 		}
 		
 		return courseStaff;
 	}
 	
+	/**
+	 * Method to get live read-only view of staff on a given course.
+	 * Staff are looked up as the view is iterated, nothing is copied
+	 * @param course
+	 * @param staffList global stafflist
+	 * @return staff on course, updated as staff are added and removed
+	 */
+	public Collection<Staff> courseStaff(Course course, ListOfStaff staffList){
+		
+		return new IDView<Staff>(course.getStaffID(), staffList::find);
+	}
+	
 	/**
 	 * Method to add staff to course
 	 * @param course
@@ -160,6 +347,8 @@ public class ListOfCourses {
 		
 		course.addStaff(staff);
 		staff.setAvailable(false);
+		
+		linkStaff(staff.getID(), course.getID());
 	}
 	
 	/**
@@ -171,9 +360,134 @@ public class ListOfCourses {
 		
 		course.removeStaff(staff);
 		staff.setAvailable(true);
+		
+		// Staff on no course keep no set, as with removeStaffFromAllCourses
+		synchronized(this.staffCourses) {
+			IntSet courses = this.staffCourses.get(staff.getID());
+			if(courses != null && courses.remove(course.getID()) && courses.isEmpty()) {
+				this.staffCourses.remove(staff.getID());
+			}
+		}
 
 	}
 	
+	/**
+	 * Method to find courses a staff member is assigned to
+	 * @param staff
+	 * @return ArrayList of courses the staff member is on
+	 */
+	public ArrayList<Course> findStaffCourses(Staff staff) {
+		
+		synchronized(this.staffCourses) {
+			IntSet courseID = this.staffCourses.get(staff.getID());
+			
+			if(courseID == null) {
+				return new ArrayList<Course>();
+			}
+			
+			ArrayList<Course> courses = new ArrayList<Course>(courseID.size());
+			
+			for(int i = 0; i < courseID.size(); i++) {
+				courses.add(find(courseID.get(i)));
+			}
+			
+			return courses;
+		}
+	}
+	
+	/**
+	 * Method to get live read-only view of courses a staff member is on.
+	 * Courses are looked up as the view is iterated, nothing is copied
+	 * @param staff
+	 * @return courses the staff member is on, updated as they change
+	 */
+	public Collection<Course> staffCourses(Staff staff) {
+		
+		int staffID = staff.getID();
+		
+		// Reads the reverse index each time, as the staff member's set
+		// is made on their first course and dropped once they are on none
+		IntView courseID = new IntView() {
+			
+			public int size() {
+				synchronized(staffCourses) {
+					IntSet courses = staffCourses.get(staffID);
+					return courses == null ? 0 : courses.size();
+				}
+			}
+			
+			public int get(int i) {
+				synchronized(staffCourses) {
+					return staffCourses.get(staffID).get(i);
+				}
+			}
+			
+			public boolean contains(int value) {
+				synchronized(staffCourses) {
+					IntSet courses = staffCourses.get(staffID);
+					return courses != null && courses.contains(value);
+				}
+			}
+		};
+		
+		return new IDView<Course>(courseID, this::find);
+	}
+	
+	/**
+	 * Method to count courses a staff member is assigned to
+	 * @param staff
+	 * @return number of courses
+	 */
+	public int countStaffCourses(Staff staff) {
+		
+		synchronized(this.staffCourses) {
+			IntSet courseID = this.staffCourses.get(staff.getID());
+			
+			return courseID == null ? 0 : courseID.size();
+		}
+	}
+	
+	/**
+	 * Method to remove staff member from every course they are on
+	 * @param staff
+	 */
+	public void removeStaffFromAllCourses(Staff staff) {
+		
+		IntSet courseID;
+		synchronized(this.staffCourses) {
+			courseID = this.staffCourses.remove(staff.getID());
+		}
+		
+		if(courseID == null) {
+			return;
+		}
+		
+		for(int i = 0; i < courseID.size(); i++) {
+			find(courseID.get(i)).removeStaff(staff);
+		}
+		
+		staff.setAvailable(true);
+	}
+	
+	/**
+	 * Records staff member as being on course in the reverse index
+	 * @param staffID
+	 * @param courseID
+	 */
+	private void linkStaff(int staffID, int courseID) {
+		
+		synchronized(this.staffCourses) {
+			IntSet courses = this.staffCourses.get(staffID);
+			
+			if(courses == null) {
+				courses = new IntSet();
+				this.staffCourses.put(staffID, courses);
+			}
+			
+			courses.add(courseID);
+		}
+	}
+	
 	/**
 	 * Method to assign number of staff required by course
 	 * @param course
@@ -219,6 +533,44 @@ public class ListOfCourses {
 	 */
 	public void setCourseList(ArrayList<Course> courseList) {
 		this.courseList = courseList;
+		
+		// Rebuild index and status bitsets in place so views stay valid
+		this.index.clear(courseList.size());
+		this.ids.reset();
+		synchronized(this.staffCourses) {
+			this.staffCourses.clear();
+		}
+		this.trigrams = null;
+		synchronized(this.statusLock) {
+			this.approved.clear();
+			this.unapproved.clear();
+			this.full.clear();
+		}
+		
+		// New arena sized for the list, old one is freed once its courses are gone
+		if(this.arena != null) {
+			int staff = 0;
+			for(Course course : courseList) {
+				staff += Math.max(course.getStaffID().size(), 2);
+			}
+			this.arena = new IntArena(staff + staff / 2);
+		}
+		
+		for(Course course : courseList) {
+			checkID(course.getID());
+			this.index.put(course.getID(), course);
+			this.ids.seen(course.getID());
+			course.setList(this);
+			if(this.arena != null) {
+				course.storeStaffIn(this.arena);
+			}
+			
+			// Rebuild reverse index from course staff
+			IntView staffID = course.getStaffID();
+			for(int i = 0; i < staffID.size(); i++) {
+				linkStaff(staffID.get(i), course.getID());
+			}
+		}
 	}
 	
 	
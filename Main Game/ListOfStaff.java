@@ -1,17 +1,32 @@
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Locale;
 
 /**
  * Class to store list of staff
  * @author Andrew
  * 
  * Public methods:
+ * 	public ListOfStaff()
  * 	public Staff find(int ID) 
- * 	public void createStaff(String name) 
+ * 	public Staff createStaff(String name) 
+ * 	public void addStaff(Staff staff)
  * 	public ArrayList<Staff> findAvailableStaff()
  * 	public ArrayList<Staff> findUnavailableStaff()
  * 	public ArrayList<Staff> findUntrainedStaff()
  * 	public ArrayList<Staff> findTrainedStaff()
+ * 	public ArrayList<Staff> findAvailableTrainedStaff()
+ * 	public Collection<Staff> availableStaff()
+ * 	public Collection<Staff> unavailableStaff()
+ * 	public Collection<Staff> untrainedStaff()
+ * 	public Collection<Staff> trainedStaff()
+ * 	public Collection<Staff> availableTrainedStaff()
+ * 	public ArrayList<Staff> findByName(String name)
+ * 	public ArrayList<Staff> findByNamePrefix(String prefix, int limit)
+ * 	public ArrayList<Staff> searchByName(String query, int maxDistance, int limit)
  * 	public ArrayList<Staff> getStaffList()
  * 	public void setStaffList(ArrayList<Staff> staffList)
  *
@@ -23,12 +38,97 @@ public class ListOfStaff {
 	 */
 	private ArrayList<Staff> staffList;
 	
+	/**
+	 * Index of staff by ID
+	 */
+	private IDIndex<Staff> index;
+	
+	/**
+	 * Status bitsets indexed by staff ID, kept up to date by Staff setters
+	 */
+	private BitSet available;
+	private BitSet unavailable;
+	private BitSet trained;
+	private BitSet untrained;
+	
+	/**
+	 * Held while the status bitsets are changed or read, as staff on
+	 * different courses are changed at the same time
+	 */
+	private final Object statusLock = new Object();
+	
+	/**
+	 * Live read-only views over the status bitsets
+	 */
+	private Collection<Staff> availableView;
+	private Collection<Staff> unavailableView;
+	private Collection<Staff> untrainedView;
+	private Collection<Staff> trainedView;
+	private Collection<Staff> availableTrainedView;
+	
+	/**
+	 * Index of staff IDs by name, kept up to date by Staff.setName.
+	 * Null until the first name lookup builds it. Always null if made
+	 * without name indexes, names are then found by scanning
+	 */
+	private volatile NameIndex names;
+	
+	/**
+	 * Index of staff IDs by trigrams of their names, for fuzzy search.
+	 * Null until the first fuzzy search builds it, as it is several times
+	 * the size of the staff themselves. Always null if made without
+	 * name indexes
+	 */
+	private volatile TrigramIndex trigrams;
+	
+	/**
+	 * True if the name indexes may be built
+	 */
+	private boolean nameIndexes;
+	
+	/**
+	 * Held while a name index is built, as lookups run at the same time
+	 */
+	private final Object indexLock = new Object();
+	
+	/**
+	 * Hands out IDs for new staff, kept above every ID in the list
+	 */
+	private IDAllocator ids;
+	
 	
 	/**
 	 * Constructor
 	 */
 	public ListOfStaff(){
+		this.ids = new IDAllocator();
 		this.staffList = new ArrayList<Staff>();
+		this.index = new IDIndex<Staff>();
+		this.nameIndexes = true;
+		
+		this.available = new BitSet();
+		this.unavailable = new BitSet();
+		this.trained = new BitSet();
+		this.untrained = new BitSet();
+		
+		this.availableView = new StatusView<Staff>(this.available, this.index, this.statusLock);
+		this.unavailableView = new StatusView<Staff>(this.unavailable, this.index, this.statusLock);
+		this.untrainedView = new StatusView<Staff>(this.untrained, this.index, this.statusLock);
+		this.trainedView = new StatusView<Staff>(this.trained, this.index, this.statusLock);
+		this.availableTrainedView = new StatusView<Staff>(this.available, this.trained, this.index, this.statusLock);
+	}
+	
+	/**
+	 * Constructor for subclasses keeping staff in their own rows. The list,
+	 * ID index, status bitsets and views are left out, so every method using
+	 * them must be overridden. Only the ID allocator is made, the name
+	 * indexes are built on first use if asked for
+	 * @param nameIndexes false to leave out the name indexes, name lookups
+	 * then scan every staff member
+	 */
+	ListOfStaff(boolean nameIndexes) {
+		this.ids = new IDAllocator();
+		this.nameIndexes = nameIndexes;
 	}
 	
 	/**
@@ -38,116 +138,407 @@ public class ListOfStaff {
 	 */
 	public Staff find(int ID) {
 		
-		for(Staff staff : staffList) {
-			
-			if(staff.getID() == ID) {
-				return staff;
-			}
-		}
-		
-		return null;
+		return this.index.get(ID);
 	}
 	
 	/**
 	 * Method to create new staff member
 	 * @param name
-	 * @param hours
+	 * @return new staff member
+	 */
+	public Staff createStaff(String name) {
+		
+		// Add new staff member with next ID to list and index
+		Staff staff = new Staff(name, nextID());
+		addStaff(staff);
+		
+		return staff;
+	}
+	
+	/**
+	 * Method to add existing staff member, keeping their ID
+	 * @param staff staff member with ID not already in list
+	 * @throws IllegalArgumentException if ID is negative
+	 */
+	public void addStaff(Staff staff) {
+		
+		checkID(staff.getID());
+		this.staffList.add(staff);
+		this.index.put(staff.getID(), staff);
+		idAdded(staff.getID());
+		nameAdded(staff);
+		staff.setList(this);
+	}
+	
+	/**
+	 * Method to find available staff
+	 * @return ArrayList of available staff
+	 */
+	public ArrayList<Staff> findAvailableStaff() {
+		
+		return collect(this.available);
+	}
+	
+	/**
+	 * Method to find unavailable staff
+	 * @return ArrayList of unavailable staff
+	 */
+	public ArrayList<Staff> findUnavailableStaff() {
+		
+		return collect(this.unavailable);
+	}
+	
+	/**
+	 * Method to find untrained staff
+	 * @return ArrayList of untrained staff
+	 */
+	public ArrayList<Staff> findUntrainedStaff() {
+		
+		return collect(this.untrained);
+	}
+	
+	/**
+	 * Method to find trained staff
+	 * @return ArrayList of trained staff
+	 */
+	public ArrayList<Staff> findTrainedStaff() {
+		
+		return collect(this.trained);
+	}
+	
+	/**
+	 * Method to find staff who are both available and trained
+	 * @return ArrayList of available trained staff
 	 */
-	public void createStaff(String name) {
+	public ArrayList<Staff> findAvailableTrainedStaff() {
 		
-		/*
-		 * Get next ID
-		 * 
-		 * Find most recent staff entry and increment by 1
-		 */
+		ArrayList<Staff> result = new ArrayList<Staff>();
 		
-		int nextID;
+		// Walk the available bits and test the trained bit, no intermediate set
+		synchronized(this.statusLock) {
+			for(int id = this.available.nextSetBit(0); id >= 0; id = this.available.nextSetBit(id + 1)) {
+				
+				if(this.trained.get(id)) {
+					result.add(this.index.get(id));
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Method to get live read-only view of available staff
+	 * @return available staff, updated as staff change
+	 */
+	public Collection<Staff> availableStaff() {
+		return this.availableView;
+	}
+	
+	/**
+	 * Method to get live read-only view of unavailable staff
+	 * @return unavailable staff, updated as staff change
+	 */
+	public Collection<Staff> unavailableStaff() {
+		return this.unavailableView;
+	}
+	
+	/**
+	 * Method to get live read-only view of untrained staff
+	 * @return untrained staff, updated as staff change
+	 */
+	public Collection<Staff> untrainedStaff() {
+		return this.untrainedView;
+	}
+	
+	/**
+	 * Method to get live read-only view of trained staff
+	 * @return trained staff, updated as staff change
+	 */
+	public Collection<Staff> trainedStaff() {
+		return this.trainedView;
+	}
+	
+	/**
+	 * Method to get live read-only view of staff both available and trained
+	 * @return available trained staff, updated as staff change
+	 */
+	public Collection<Staff> availableTrainedStaff() {
+		return this.availableTrainedView;
+	}
+	
+	/**
+	 * Method to find staff with name, ignoring case
+	 * @param name full name
+	 * @return ArrayList of staff with that name
+	 */
+	public ArrayList<Staff> findByName(String name) {
 		
+		NameIndex names = names();
 		
-		// if there are already staff start ID's from greatest ID + 1
-		if(this.staffList.size() > 0) {
-			Staff mostRecent = this.staffList.get(this.staffList.size() - 1);
-			nextID = mostRecent.getID() + 1;
+		if(names == null) {
+			String key = name.toLowerCase(Locale.ROOT);
+			ArrayList<Staff> result = new ArrayList<Staff>();
+			for(Staff staff : getStaffList()) {
+				if(staff.getName().toLowerCase(Locale.ROOT).equals(key)) {
+					result.add(staff);
+				}
+			}
+			return result;
 		}
-		else {
-			// Start IDs at 1
-			nextID = 1;
+		
+		IntView ids = names.find(name);
+		ArrayList<Staff> result = new ArrayList<Staff>(ids.size());
+		
+		for(int i = 0; i < ids.size(); i++) {
+			result.add(find(ids.get(i)));
 		}
+		return result;
+	}
+	
+	/**
+	 * Method to find staff whose names start with prefix, ignoring case
+	 * @param prefix start of name
+	 * @param limit most staff to return
+	 * @return ArrayList of staff in name order
+	 */
+	public ArrayList<Staff> findByNamePrefix(String prefix, int limit) {
 		
+		NameIndex names = names();
 		
-		// Add new staff member to list
-		this.staffList.add(new Staff(name, nextID));
+		if(names == null) {
+			String key = prefix.toLowerCase(Locale.ROOT);
+			ArrayList<Staff> result = new ArrayList<Staff>();
+			for(Staff staff : getStaffList()) {
+				if(staff.getName().toLowerCase(Locale.ROOT).startsWith(key)) {
+					result.add(staff);
+				}
+			}
+			result.sort(Comparator.comparing((Staff staff) -> staff.getName().toLowerCase(Locale.ROOT)));
+			return new ArrayList<Staff>(result.subList(0, Math.min(limit, result.size())));
+		}
+		
+		int[] ids = names.findPrefix(prefix, limit);
+		ArrayList<Staff> result = new ArrayList<Staff>(ids.length);
 		
+		for(int id : ids) {
+			result.add(find(id));
+		}
+		return result;
 	}
 	
 	/**
-	 * Method to find available staff
-	 * @return ArrayList of available staff
+	 * Method to find staff whose names are close to query, for names that
+	 * may be mistyped. Case is ignored
+	 * @param query name to look for
+	 * @param maxDistance most letters inserted, deleted or changed
+	 * @param limit most staff to return
+	 * @return ArrayList of staff, closest first
 	 */
-	public ArrayList<Staff> findAvailableStaff() {
+	public ArrayList<Staff> searchByName(String query, int maxDistance, int limit) {
 		
-		ArrayList<Staff> availableStaff = new ArrayList<Staff>();
+		TrigramIndex trigrams = trigrams();
 		
-		for(Staff staff : staffList) {
+		if(trigrams == null) {
+			String key = query.toLowerCase(Locale.ROOT);
 			
-			if(staff.isAvailable()) {
-				availableStaff.add(staff);
+			// One list per distance keeps the closest first and ties in ID order
+			ArrayList<ArrayList<Staff>> byDistance = new ArrayList<ArrayList<Staff>>();
+			for(int distance = 0; distance <= maxDistance; distance++) {
+				byDistance.add(new ArrayList<Staff>());
+			}
+			for(Staff staff : getStaffList()) {
+				int distance = TrigramIndex.distance(key, staff.getName().toLowerCase(Locale.ROOT), maxDistance);
+				if(distance <= maxDistance) {
+					byDistance.get(distance).add(staff);
+				}
 			}
 			
+			ArrayList<Staff> result = new ArrayList<Staff>();
+			for(ArrayList<Staff> staff : byDistance) {
+				result.addAll(staff.subList(0, Math.min(staff.size(), limit - result.size())));
+			}
+			return result;
+		}
+		
+		int[] ids = trigrams.search(query, maxDistance, limit);
+		ArrayList<Staff> result = new ArrayList<Staff>(ids.length);
+		
+		for(int id : ids) {
+			result.add(find(id));
 		}
-		return availableStaff;
+		return result;
 	}
 	
 	/**
-	 * Method to find unavailable staff
-	 * @return ArrayList of unavailable staff
+	 * Called by Staff when name changes so the name indexes stay in step
+	 * @param staff staff member that changed
+	 * @param oldName name before the change
 	 */
-	public ArrayList<Staff> findUnavailableStaff() {
+	void nameChanged(Staff staff, String oldName) {
+		
+		NameIndex names = this.names;
+		if(names != null) {
+			names.remove(oldName, staff.getID());
+		}
+		TrigramIndex trigrams = this.trigrams;
+		if(trigrams != null) {
+			trigrams.remove(staff.getID(), oldName);
+		}
+		nameAdded(staff);
+	}
+	
+	/**
+	 * Called by Staff when availability or training changes
+	 * so the status bitsets stay in step
+	 * @param staff staff member that changed
+	 */
+	void statusChanged(Staff staff) {
 		
-		ArrayList<Staff> unavailableStaff = new ArrayList<Staff>();
+		int id = staff.getID();
 		
-		for(Staff staff : staffList) {
+		synchronized(this.statusLock) {
+			this.available.set(id, staff.isAvailable());
+			this.unavailable.set(id, !staff.isAvailable());
+			this.trained.set(id, staff.isTrained());
+			this.untrained.set(id, !staff.isTrained());
+		}
+	}
+	
+	/**
+	 * Builds list of staff whose IDs are set in bits, in ID order
+	 * @param bits status bitset
+	 * @return ArrayList of staff
+	 */
+	private ArrayList<Staff> collect(BitSet bits) {
+		
+		synchronized(this.statusLock) {
+			ArrayList<Staff> result = new ArrayList<Staff>(bits.cardinality());
 			
-			if(!staff.isAvailable()) {
-				unavailableStaff.add(staff);
+			for(int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+				result.add(this.index.get(id));
 			}
-			
+			return result;
 		}
-		return unavailableStaff;
 	}
 	
 	/**
-	 * Method to find untrained staff
-	 * @return ArrayList of untrained staff
+	 * Adds staff member to the name indexes built so far, for subclasses
+	 * keeping their own rows
+	 * @param staff staff member added
 	 */
-	public ArrayList<Staff> findUntrainedStaff() {
+	void nameAdded(Staff staff) {
+		NameIndex names = this.names;
+		if(names != null) {
+			names.add(staff.getName(), staff.getID());
+		}
+		TrigramIndex trigrams = this.trigrams;
+		if(trigrams != null) {
+			trigrams.add(staff.getID(), staff.getName());
+		}
+	}
+	
+	/**
+	 * Drops name indexes, for subclasses replacing their rows. The next
+	 * lookups build them again from the new rows
+	 */
+	void clearNames() {
+		this.names = null;
+		this.trigrams = null;
+	}
+	
+	/**
+	 * Gets name index, building it from every staff member on first use
+	 * @return name index, null if made without name indexes
+	 */
+	private NameIndex names() {
 		
-		ArrayList<Staff> untrainedStaff = new ArrayList<Staff>();
+		NameIndex names = this.names;
+		if(names != null || !this.nameIndexes) {
+			return names;
+		}
 		
-		for(Staff staff : staffList) {
-			
-			if(!staff.isTrained()) {
-				untrainedStaff.add(staff);
+		synchronized(this.indexLock) {
+			names = this.names;
+			if(names == null) {
+				names = new NameIndex();
+				for(Staff staff : getStaffList()) {
+					names.add(staff.getName(), staff.getID());
+				}
+				this.names = names;
 			}
+			return names;
 		}
-		return untrainedStaff;
 	}
 	
 	/**
-	 * Method to find trained staff
-	 * @return ArrayList of trained staff
+	 * Gets trigram index, building it from every staff member on first use
+	 * @return trigram index, null if made without name indexes
 	 */
-	public ArrayList<Staff> findTrainedStaff() {
+	private TrigramIndex trigrams() {
 		
-		ArrayList<Staff> trainedStaff = new ArrayList<Staff>();
+		TrigramIndex trigrams = this.trigrams;
+		if(trigrams != null || !this.nameIndexes) {
+			return trigrams;
+		}
 		
-		for(Staff staff : staffList) {
-			
-			if(staff.isTrained()) {
-				trainedStaff.add(staff);
+		synchronized(this.indexLock) {
+			trigrams = this.trigrams;
+			if(trigrams == null) {
+				trigrams = new TrigramIndex();
+				for(Staff staff : getStaffList()) {
+					trigrams.add(staff.getID(), staff.getName());
+				}
+				this.trigrams = trigrams;
 			}
+			return trigrams;
+		}
+	}
+	
+	/**
+	 * Refuses IDs the status bitsets cannot hold. IDs cannot change once
+	 * staff are in a list, so they are only checked as staff are added
+	 * @param ID
+	 * @throws IllegalArgumentException if ID is negative
+	 */
+	static void checkID(int ID) {
+		if(ID < 0) {
+			throw new IllegalArgumentException("Staff ID " + ID + " is negative");
+		}
+	}
+	
+	/**
+	 * Gives out an ID for a new staff member, for subclasses keeping their own rows
+	 * @return ID not used before
+	 */
+	int nextID() {
+		return this.ids.next();
+	}
+
+	/**
+	 * Notes ID of a staff member added so it is not given out again
+	 * @param ID
+	 */
+	void idAdded(int ID) {
+		this.ids.seen(ID);
+	}
+
+	/**
+	 * Starts IDs again from the first, for subclasses replacing their rows
+	 */
+	void clearIDs() {
+		this.ids.reset();
+	}
+
+	/**
+	 * Resets status bitsets to empty, in place so views stay valid
+	 */
+	private void clearStatus() {
+		synchronized(this.statusLock) {
+			this.available.clear();
+			this.unavailable.clear();
+			this.trained.clear();
+			this.untrained.clear();
 		}
-		return trainedStaff;
 	}
 	
 	/**
@@ -164,6 +555,19 @@ public class ListOfStaff {
 	 */
 	public void setStaffList(ArrayList<Staff> staffList) {
 		this.staffList = staffList;
+		
+		// Rebuild indexes and status bitsets for new list, in place so views stay valid
+		this.index.clear(staffList.size());
+		clearIDs();
+		clearNames();
+		clearStatus();
+		for(Staff staff : staffList) {
+			checkID(staff.getID());
+			this.index.put(staff.getID(), staff);
+			idAdded(staff.getID());
+			nameAdded(staff);
+			staff.setList(this);
+		}
 	}
 	
 	
@@ -0,0 +1,263 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * MappedDataset class, reads records straight out of memory-mapped
+ * binary staff and course snapshots instead of loading them. Opening
+ * only maps the files and checks their headers, so it takes the same
+ * time for any size of file, and the records stay in the page cache
+ * rather than the heap.
+ * Records are found by number through the snapshot's offset index and
+ * by ID with a binary search of it, as snapshots are written in ID order.
+ * The field accessors read single fields without building objects;
+ * staff and course build a Staff or Course only for records asked for.
+ * Each call reads through a duplicate of the mapping with a position of
+ * its own, so calls from many threads run at once without locking.
+ *
+ * public MappedDataset(String staffPath, String coursePath)
+ * public int staffCount()
+ * public int staffIndex(int ID)
+ * public int staffID(int index)
+ * public boolean staffAvailable(int index)
+ * public boolean staffTrained(int index)
+ * public Staff staff(int index)
+ * public int courseCount()
+ * public int courseIndex(int ID)
+ * public boolean courseApproved(int index)
+ * public boolean courseFull(int index)
+ * public boolean courseHasStaff(int index, int staffID)
+ * public Course course(int index)
+ *
+ */
+public class MappedDataset {
+
+	private final BinaryReadFile.Decoder staffFile;
+	private final BinaryReadFile.Decoder courseFile;
+
+	/**
+	 * Constructor, maps both files
+	 * @param staffPath binary staff snapshot
+	 * @param coursePath binary course snapshot
+	 * @throws IOException if a file cannot be mapped or is not a binary snapshot of its kind
+	 */
+	public MappedDataset(String staffPath, String coursePath) throws IOException {
+		this.staffFile = open(staffPath, BinaryWriteFile.STAFF);
+		this.courseFile = open(coursePath, BinaryWriteFile.COURSE);
+	}
+
+	/*
+	 * ==================================================
+	 * Staff
+	 * ==================================================
+	 */
+
+	/**
+	 * Method to get number of staff
+	 * @return staff in file
+	 */
+	public int staffCount() {
+		return staffFile.count;
+	}
+
+	/**
+	 * Method to find record number of staff member
+	 * @param ID staff ID
+	 * @return record number, -1 if not found
+	 */
+	public int staffIndex(int ID) {
+		return search(staffFile.duplicate(), ID);
+	}
+
+	/**
+	 * Method to read staff ID
+	 * @param index record number
+	 * @return staff ID
+	 */
+	public int staffID(int index) {
+		BinaryReadFile.Decoder staff = staffFile.duplicate();
+		staff.buffer.position(staff.offset(index));
+		return staff.varint();
+	}
+
+	/**
+	 * Method to read whether staff member is available
+	 * @param index record number
+	 * @return true if available
+	 */
+	public boolean staffAvailable(int index) {
+		return (staffFlags(index) & 1) != 0;
+	}
+
+	/**
+	 * Method to read whether staff member is trained
+	 * @param index record number
+	 * @return true if trained
+	 */
+	public boolean staffTrained(int index) {
+		return (staffFlags(index) & 2) != 0;
+	}
+
+	/**
+	 * Method to build staff member from record
+	 * @param index record number
+	 * @return new Staff holding the record's fields
+	 */
+	public Staff staff(int index) {
+
+		BinaryReadFile.Decoder staff = staffFile.duplicate();
+		staff.buffer.position(staff.offset(index));
+		int id = staff.varint();
+		byte flags = staff.buffer.get();
+		return new Staff(staff.string(), id, (flags & 1) != 0, (flags & 2) != 0);
+	}
+
+	/*
+	 * ==================================================
+	 * Courses
+	 * ==================================================
+	 */
+
+	/**
+	 * Method to get number of courses
+	 * @return courses in file
+	 */
+	public int courseCount() {
+		return courseFile.count;
+	}
+
+	/**
+	 * Method to find record number of course
+	 * @param ID course ID
+	 * @return record number, -1 if not found
+	 */
+	public int courseIndex(int ID) {
+		return search(courseFile.duplicate(), ID);
+	}
+
+	/**
+	 * Method to read whether course is approved
+	 * @param index record number
+	 * @return true if approved
+	 */
+	public boolean courseApproved(int index) {
+		BinaryReadFile.Decoder course = courseFile.duplicate();
+		course.buffer.position(course.offset(index));
+		course.varint();
+		return (course.buffer.get() & 1) != 0;
+	}
+
+	/**
+	 * Method to read whether course has all the staff it requires
+	 * @param index record number
+	 * @return true if full
+	 */
+	public boolean courseFull(int index) {
+		BinaryReadFile.Decoder course = courseFile.duplicate();
+		course.buffer.position(course.offset(index));
+		course.varint();
+		course.buffer.get();
+		return course.varint() == course.varint();
+	}
+
+	/**
+	 * Method to check whether staff member is on course
+	 * @param index record number
+	 * @param staffID staff ID
+	 * @return true if on course
+	 */
+	public boolean courseHasStaff(int index, int staffID) {
+
+		BinaryReadFile.Decoder course = courseFile.duplicate();
+		course.buffer.position(course.offset(index));
+		course.varint();
+		course.buffer.get();
+		course.varint();
+		course.varint();
+		int nameLength = course.varint();
+		course.buffer.position(course.buffer.position() + nameLength);
+
+		int staffCount = course.varint();
+		for (int i = 0; i < staffCount; i++) {
+			if (course.varint() == staffID) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Method to build course from record
+	 * @param index record number
+	 * @return new Course holding the record's fields
+	 */
+	public Course course(int index) {
+
+		BinaryReadFile.Decoder course = courseFile.duplicate();
+		course.buffer.position(course.offset(index));
+		int id = course.varint();
+		boolean approved = (course.buffer.get() & 1) != 0;
+		int requiredStaff = course.varint();
+		int assignedStaff = course.varint();
+		String name = course.string();
+
+		int staffCount = course.varint();
+		IntSet staffID = new IntSet(Math.max(staffCount, 1));
+		for (int i = 0; i < staffCount; i++) {
+			staffID.add(course.varint());
+		}
+
+		return new Course(id, name, approved, requiredStaff, assignedStaff, staffID);
+	}
+
+	/**
+	 * Maps snapshot, the mapping stays valid after the channel is closed
+	 * @param path snapshot file
+	 * @param kind STAFF or COURSE
+	 * @return decoder over mapped file
+	 */
+	private static BinaryReadFile.Decoder open(String path, byte kind) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			return new BinaryReadFile.Decoder(BinaryReadFile.map(channel, kind));
+		}
+	}
+
+	/**
+	 * Reads flags byte of staff record
+	 * @param index record number
+	 * @return flags
+	 */
+	private byte staffFlags(int index) {
+		BinaryReadFile.Decoder staff = staffFile.duplicate();
+		staff.buffer.position(staff.offset(index));
+		staff.varint();
+		return staff.buffer.get();
+	}
+
+	/**
+	 * Binary search of records by the ID at the start of each
+	 * @param file decoder over file, moved by the search
+	 * @param ID
+	 * @return record number, -1 if not found
+	 */
+	private static int search(BinaryReadFile.Decoder file, int ID) {
+
+		int low = 0;
+		int high = file.count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			file.buffer.position(file.offset(middle));
+			int found = file.varint();
+			if (found < ID) {
+				low = middle + 1;
+			} else if (found > ID) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,471 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Read-only Model over a MappedDataset, made by Model.openReadOnly.
+ * Queries read the mapped files directly; status queries check each
+ * record's flags in place and only build the Staff and Course objects
+ * they return, so heap use does not grow with the size of the files.
+ * Returned objects are copies, changing one does not change the files.
+ * Every method that would change the model throws UnsupportedOperationException.
+ *
+ * Public Methods:
+ * 	public MappedModel(MappedDataset dataset)
+ * 	plus every public method of Model
+ *
+ */
+public class MappedModel extends Model {
+
+	/**
+	 * Mapped staff and course files
+	 */
+	private final MappedDataset dataset;
+
+	/**
+	 * Checks a record's status by record number
+	 */
+	private interface Status {
+		boolean test(int index);
+	}
+
+
+	/**
+	 * Constructor
+	 * @param dataset mapped files to serve
+	 */
+	public MappedModel(MappedDataset dataset) {
+		super(new ListOfStaff(), new ListOfCourses());
+		this.dataset = dataset;
+	}
+
+	/*
+	 * ==================================================
+	 * Saving, nothing to save
+	 * ==================================================
+	 */
+
+	public CompletableFuture<Boolean> saveAsync() {
+		return CompletableFuture.completedFuture(true);
+	}
+
+	public void writeToFile() {
+	}
+
+	public void close() {
+	}
+
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	/**
+	 * Files never change, so a snapshot just reads them through this model
+	 */
+	public ModelSnapshot openSnapshot() {
+
+		return new ModelSnapshot(null, 0) {
+
+			public ArrayList<Staff> returnStaffList() {
+				return MappedModel.this.returnStaffList();
+			}
+
+			public Staff findStaff(int ID) {
+				return MappedModel.this.findStaff(ID);
+			}
+
+			public ArrayList<Course> returnCourseList() {
+				return MappedModel.this.returnCourseList();
+			}
+
+			public Course findCourse(int ID) {
+				return MappedModel.this.findCourse(ID);
+			}
+
+			public ArrayList<Staff> findCourseStaff(Course course) {
+				return MappedModel.this.findCourseStaff(course);
+			}
+
+			public ArrayList<Course> findStaffCourses(Staff staff) {
+				return MappedModel.this.findStaffCourses(staff);
+			}
+		};
+	}
+
+	/*
+	 * ==================================================
+	 * Staff
+	 * ==================================================
+	 */
+
+	public ArrayList<Staff> returnStaffList() {
+		return findStaff(index -> true);
+	}
+
+	public Staff findStaff(int ID) {
+		int index = dataset.staffIndex(ID);
+		return index < 0 ? null : dataset.staff(index);
+	}
+
+	/**
+	 * Staff are decoded afresh for every call and never change, so are their own copies
+	 */
+	public Staff findStaffCopy(int ID) {
+		return findStaff(ID);
+	}
+
+	public ArrayList<Staff> copiesOfStaff(Collection<Staff> staff) {
+		return new ArrayList<Staff>(staff);
+	}
+
+	public ArrayList<Staff> AvailableStaff() {
+		return findStaff(dataset::staffAvailable);
+	}
+
+	public ArrayList<Staff> UnavailableStaff() {
+		return findStaff(index -> !dataset.staffAvailable(index));
+	}
+
+	public ArrayList<Staff> UntrainedStaff() {
+		return findStaff(index -> !dataset.staffTrained(index));
+	}
+
+	public ArrayList<Staff> StaffWithTraining() {
+		return findStaff(dataset::staffTrained);
+	}
+
+	public ArrayList<Staff> AvailableTrainedStaff() {
+		return findStaff(index -> dataset.staffAvailable(index) && dataset.staffTrained(index));
+	}
+
+	/**
+	 * Files never change, so a list found now stays up to date
+	 */
+	public Collection<Staff> viewAvailableStaff() {
+		return Collections.unmodifiableList(AvailableStaff());
+	}
+
+	public Collection<Staff> viewUnavailableStaff() {
+		return Collections.unmodifiableList(UnavailableStaff());
+	}
+
+	public Collection<Staff> viewUntrainedStaff() {
+		return Collections.unmodifiableList(UntrainedStaff());
+	}
+
+	public Collection<Staff> viewTrainedStaff() {
+		return Collections.unmodifiableList(StaffWithTraining());
+	}
+
+	public Collection<Staff> viewAvailableTrainedStaff() {
+		return Collections.unmodifiableList(AvailableTrainedStaff());
+	}
+
+	/**
+	 * Counts read the flags in place without building any staff
+	 */
+	public int countAvailableStaff() {
+		return count(dataset.staffCount(), dataset::staffAvailable);
+	}
+
+	public int countUnavailableStaff() {
+		return count(dataset.staffCount(), index -> !dataset.staffAvailable(index));
+	}
+
+	public int countUntrainedStaff() {
+		return count(dataset.staffCount(), index -> !dataset.staffTrained(index));
+	}
+
+	public int countTrainedStaff() {
+		return count(dataset.staffCount(), dataset::staffTrained);
+	}
+
+	public int countAvailableTrainedStaff() {
+		return count(dataset.staffCount(), index -> dataset.staffAvailable(index) && dataset.staffTrained(index));
+	}
+
+	/**
+	 * Files have no name indexes, so name lookups and searches read and
+	 * compare names one by one
+	 */
+	public ArrayList<Staff> findStaffByName(String name) {
+
+		ArrayList<Staff> staff = new ArrayList<Staff>();
+		for (int i = 0; i < dataset.staffCount(); i++) {
+			Staff member = dataset.staff(i);
+			if (member.getName().equalsIgnoreCase(name)) {
+				staff.add(member);
+			}
+		}
+		return staff;
+	}
+
+	public ArrayList<Staff> findStaffByNamePrefix(String prefix, int limit) {
+
+		String key = prefix.toLowerCase(Locale.ROOT);
+		ArrayList<Staff> staff = new ArrayList<Staff>();
+		for (int i = 0; i < dataset.staffCount(); i++) {
+			Staff member = dataset.staff(i);
+			if (member.getName().toLowerCase(Locale.ROOT).startsWith(key)) {
+				staff.add(member);
+			}
+		}
+
+		staff.sort(Comparator.comparing((Staff member) -> member.getName().toLowerCase(Locale.ROOT)));
+		return new ArrayList<Staff>(staff.subList(0, Math.min(limit, staff.size())));
+	}
+
+	public ArrayList<Staff> searchStaff(String query, int maxDistance, int limit) {
+
+		String key = query.toLowerCase(Locale.ROOT);
+		ArrayList<Staff> staff = findStaff(index -> true);
+		return closest(staff, Staff::getName, key, maxDistance, limit);
+	}
+
+	/*
+	 * ==================================================
+	 * Courses
+	 * ==================================================
+	 */
+
+	public ArrayList<Course> returnCourseList() {
+		return findCourses(index -> true);
+	}
+
+	public Course findCourse(int ID) {
+		int index = dataset.courseIndex(ID);
+		return index < 0 ? null : dataset.course(index);
+	}
+
+	/**
+	 * Courses are decoded afresh for every call and never change, so are their own copies
+	 */
+	public Course findCourseCopy(int ID) {
+		return findCourse(ID);
+	}
+
+	public ArrayList<Course> copiesOfCourses(Collection<Course> courses) {
+		return new ArrayList<Course>(courses);
+	}
+
+	public ArrayList<Course> findApprovedCourses() {
+		return findCourses(dataset::courseApproved);
+	}
+
+	public ArrayList<Course> findUnapprovedCourses() {
+		return findCourses(index -> !dataset.courseApproved(index));
+	}
+
+	public ArrayList<Course> findFullCourses() {
+		return findCourses(index -> dataset.courseFull(index) && !dataset.courseApproved(index));
+	}
+
+	public ArrayList<Course> searchCourses(String query, int maxDistance, int limit) {
+
+		String key = query.toLowerCase(Locale.ROOT);
+		ArrayList<Course> courses = findCourses(index -> true);
+		return closest(courses, Course::getName, key, maxDistance, limit);
+	}
+
+	/**
+	 * Files never change, so a list found now stays up to date
+	 */
+	public Collection<Course> viewApprovedCourses() {
+		return Collections.unmodifiableList(findApprovedCourses());
+	}
+
+	public Collection<Course> viewUnapprovedCourses() {
+		return Collections.unmodifiableList(findUnapprovedCourses());
+	}
+
+	public Collection<Course> viewFullCourses() {
+		return Collections.unmodifiableList(findFullCourses());
+	}
+
+	public int countApprovedCourses() {
+		return count(dataset.courseCount(), dataset::courseApproved);
+	}
+
+	public int countUnapprovedCourses() {
+		return count(dataset.courseCount(), index -> !dataset.courseApproved(index));
+	}
+
+	public int countFullCourses() {
+		return count(dataset.courseCount(), index -> dataset.courseFull(index) && !dataset.courseApproved(index));
+	}
+
+	public ArrayList<Staff> findCourseStaff(Course course) {
+
+		ArrayList<Staff> staff = new ArrayList<Staff>();
+		IntView staffID = course.getStaffID();
+		for (int i = 0; i < staffID.size(); i++) {
+			Staff member = findStaff(staffID.get(i));
+			if (member != null) {
+				staff.add(member);
+			}
+		}
+		return staff;
+	}
+
+	public Collection<Staff> viewCourseStaff(Course course) {
+		return Collections.unmodifiableList(findCourseStaff(course));
+	}
+
+	public ArrayList<Course> findStaffCourses(Staff staff) {
+		return findCourses(index -> dataset.courseHasStaff(index, staff.getID()));
+	}
+
+	public Collection<Course> viewStaffCourses(Staff staff) {
+		return Collections.unmodifiableList(findStaffCourses(staff));
+	}
+
+	public int countStaffCourses(Staff staff) {
+		return count(dataset.courseCount(), index -> dataset.courseHasStaff(index, staff.getID()));
+	}
+
+	/*
+	 * ==================================================
+	 * Changes, not allowed
+	 * ==================================================
+	 */
+
+	public Staff createStaff(String name) {
+		throw readOnly();
+	}
+
+	public Course createCourse(String name, int requiredHours) {
+		throw readOnly();
+	}
+
+	public void addStaffToCourse(Course course, Staff staff) {
+		throw readOnly();
+	}
+
+	public void removeStaffFromCourse(Course course, Staff staff) {
+		throw readOnly();
+	}
+
+	public void removeStaffFromAllCourses(Staff staff) {
+		throw readOnly();
+	}
+
+	public boolean assignCourseRequirements(Course course, int req) {
+		throw readOnly();
+	}
+
+	public void train(Staff staff) {
+		throw readOnly();
+	}
+
+	public void giveRequestApproval(Course course, boolean approval) {
+		throw readOnly();
+	}
+
+	public boolean addStaffToCourse(Course course, int courseVersion, Staff staff, int staffVersion) {
+		throw readOnly();
+	}
+
+	public boolean removeStaffFromCourse(Course course, int courseVersion, Staff staff, int staffVersion) {
+		throw readOnly();
+	}
+
+	public boolean assignCourseRequirements(Course course, int req, int courseVersion) {
+		throw readOnly();
+	}
+
+	public boolean train(Staff staff, int staffVersion) {
+		throw readOnly();
+	}
+
+	public boolean giveRequestApproval(Course course, boolean approval, int courseVersion) {
+		throw readOnly();
+	}
+
+	/**
+	 * Builds staff whose records pass status check
+	 * @param status check on record number
+	 * @return matching staff in file order
+	 */
+	private ArrayList<Staff> findStaff(Status status) {
+
+		ArrayList<Staff> staff = new ArrayList<Staff>();
+		for (int i = 0; i < dataset.staffCount(); i++) {
+			if (status.test(i)) {
+				staff.add(dataset.staff(i));
+			}
+		}
+		return staff;
+	}
+
+	/**
+	 * Counts records passing status check
+	 * @param records number of records
+	 * @param status check on record number
+	 * @return number passing
+	 */
+	private static int count(int records, Status status) {
+
+		int count = 0;
+		for (int i = 0; i < records; i++) {
+			if (status.test(i)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Builds courses whose records pass status check
+	 * @param status check on record number
+	 * @return matching courses in file order
+	 */
+	private ArrayList<Course> findCourses(Status status) {
+
+		ArrayList<Course> courses = new ArrayList<Course>();
+		for (int i = 0; i < dataset.courseCount(); i++) {
+			if (status.test(i)) {
+				courses.add(dataset.course(i));
+			}
+		}
+		return courses;
+	}
+
+	/**
+	 * Picks records whose names are within maxDistance edits of key,
+	 * closest first, in file order at the same distance
+	 * @param records records to check
+	 * @param name gets name of a record
+	 * @param key lower case query
+	 * @param maxDistance most edits allowed
+	 * @param limit most records to return
+	 * @return closest records
+	 */
+	private static <T> ArrayList<T> closest(ArrayList<T> records, Function<T, String> name, String key, int maxDistance, int limit) {
+
+		// Stable sort by distance keeps file order within each distance
+		ArrayList<T> found = new ArrayList<T>();
+		IdentityHashMap<T, Integer> distances = new IdentityHashMap<T, Integer>();
+		for (T record : records) {
+			int distance = TrigramIndex.distance(name.apply(record).toLowerCase(Locale.ROOT), key, maxDistance);
+			if (distance <= maxDistance) {
+				found.add(record);
+				distances.put(record, distance);
+			}
+		}
+		found.sort(Comparator.comparing(distances::get));
+		return new ArrayList<T>(found.subList(0, Math.min(limit, found.size())));
+	}
+
+	/**
+	 * Exception thrown by every change
+	 * @return exception to throw
+	 */
+	private static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("Model opened read-only");
+	}
+}
@@ -0,0 +1,471 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * MappedReadFile class, reads the same files as ReadFile but maps them
+ * into memory and parses numbers and booleans straight from the bytes.
+ * Only the names are turned into Strings, so loading large files does
+ * not create a String per token or run any regular expressions.
+ * Large files are split into chunks at line boundaries and the chunks
+ * are parsed in parallel on the common fork-join pool.
+ *
+ * public ArrayList<Staff> readStaff(String path)
+ * public ArrayList<Course> readCourse(String path)
+ * public void setParallel(boolean parallel)
+ *
+ */
+public class MappedReadFile {
+
+	/**
+	 * Largest part of a file mapped at once, files bigger than this are
+	 * read in windows that end on a line boundary
+	 */
+	private static final long WINDOW = 1L << 30;
+
+	/**
+	 * Charset names are decoded with, same as Scanner uses by default
+	 */
+	private static final Charset CHARSET = Charset.defaultCharset();
+
+	/**
+	 * Smallest chunk worth handing to another thread
+	 */
+	private static final int MIN_CHUNK = 4 << 20;
+
+	/**
+	 * Parse chunks in parallel, can be turned off to compare against one thread
+	 */
+	private boolean parallel = true;
+
+	/**
+	 * Method to choose between parallel and single threaded parsing
+	 * @param parallel true to parse chunks on the fork-join pool
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	/**
+	 * Method to read staff list from file into an array list of staff
+	 * @param path takes String representing the path of the file to be read
+	 * @return Array list of staff members listed into the file
+	 */
+	public ArrayList<Staff> readStaff(String path) {
+
+		ArrayList<Staff> tempStaffList = read(path, Parser::staff);
+
+		// remember each record's line so it can be rewritten in place
+		for (int i = 0; i < tempStaffList.size(); i++) {
+			tempStaffList.get(i).setSlot(i);
+		}
+
+		if (!inOrder(tempStaffList, Staff::getID)) {
+			tempStaffList.sort(Comparator.comparingInt(Staff::getID));
+		}
+
+		return tempStaffList; // return ArrayList to model
+	}
+
+	/**
+	 * Method to read course list from file into an array list of courses
+	 * @param path takes String representing the path of the file to be read
+	 * @return Array list of courses listed in the file
+	 */
+	public ArrayList<Course> readCourse(String path) {
+
+		ArrayList<Course> tempCourseList = read(path, Parser::courses);
+
+		for (int i = 0; i < tempCourseList.size(); i++) {
+			tempCourseList.get(i).setSlot(i);
+		}
+
+		if (!inOrder(tempCourseList, Course::getID)) {
+			tempCourseList.sort(Comparator.comparingInt(Course::getID));
+		}
+
+		return tempCourseList;
+	}
+
+	/**
+	 * Maps file one window at a time and parses each window in chunks
+	 * @param path file to read
+	 * @param parse parser method for the record type
+	 * @return records in file order
+	 */
+	private <T> ArrayList<T> read(String path, BiConsumer<Parser, ArrayList<T>> parse) {
+
+		ArrayList<T> records = new ArrayList<T>();
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+
+			long size = channel.size();
+			long position = 0;
+
+			while (position < size) { // map one window at a time until file read
+
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+				int end = windowEnd(buffer, position + buffer.capacity() == size);
+
+				if (!parallel || end < MIN_CHUNK * 2) {
+					parse.accept(new Parser(buffer, 0, end), records);
+				} else {
+					parseChunks(buffer, end, parse, records);
+				}
+				position += end;
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		return records;
+	}
+
+	/**
+	 * Splits a window into chunks at line boundaries, parses them on the
+	 * fork-join pool and appends the results in chunk order
+	 * @param buffer mapped window
+	 * @param end end of last complete line in window
+	 * @param parse parser method for the record type
+	 * @param records list results are appended to
+	 */
+	private static <T> void parseChunks(ByteBuffer buffer, int end, BiConsumer<Parser, ArrayList<T>> parse, ArrayList<T> records) {
+
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		int chunks = Math.max(1, Math.min(pool.getParallelism() * 4, end / MIN_CHUNK));
+		int chunkSize = end / chunks;
+
+		List<ChunkTask<T>> tasks = new ArrayList<ChunkTask<T>>(chunks);
+		int start = 0;
+
+		while (start < end) {
+
+			// move chunk end forward to the next line break
+			int stop = Math.min(start + chunkSize, end);
+			while (stop < end && buffer.get(stop - 1) != '\n') {
+				stop++;
+			}
+
+			tasks.add(new ChunkTask<T>(buffer, start, stop, parse));
+			start = stop;
+		}
+
+		for (ChunkTask<T> task : tasks) {
+			task.fork();
+		}
+
+		int total = records.size();
+		for (ChunkTask<T> task : tasks) {
+			total += task.join().size();
+		}
+
+		records.ensureCapacity(total);
+		for (ChunkTask<T> task : tasks) {
+			records.addAll(task.join());
+		}
+	}
+
+	/**
+	 * Checks records are in ascending ID order
+	 * @param records
+	 * @param id function giving a record's ID
+	 * @return true if sorted
+	 */
+	private static <T> boolean inOrder(ArrayList<T> records, ToIntFunction<T> id) {
+
+		for (int i = 1; i < records.size(); i++) {
+			if (id.applyAsInt(records.get(i - 1)) > id.applyAsInt(records.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Finds where parsing of a window should stop so no line is split
+	 * @param buffer mapped window
+	 * @param last true if window reaches the end of the file
+	 * @return position just after the last complete line
+	 * @throws IOException if a single line is longer than the window
+	 */
+	private static int windowEnd(ByteBuffer buffer, boolean last) throws IOException {
+
+		int end = buffer.capacity();
+
+		if (last) {
+			return end;
+		}
+
+		while (end > 0 && buffer.get(end - 1) != '\n') {
+			end--;
+		}
+
+		if (end == 0) {
+			throw new IOException("Line longer than " + WINDOW + " bytes");
+		}
+
+		return end;
+	}
+
+	/**
+	 * Fork-join task parsing one chunk of a window into its own list
+	 */
+	private static class ChunkTask<T> extends RecursiveTask<ArrayList<T>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ByteBuffer buffer; // shared window, only read with absolute gets
+		private final int start; // first byte of chunk
+		private final int end; // byte after chunk
+		private final BiConsumer<Parser, ArrayList<T>> parse; // parser method for record type
+
+		ChunkTask(ByteBuffer buffer, int start, int end, BiConsumer<Parser, ArrayList<T>> parse) {
+			this.buffer = buffer;
+			this.start = start;
+			this.end = end;
+			this.parse = parse;
+		}
+
+		protected ArrayList<T> compute() {
+			ArrayList<T> records = new ArrayList<T>();
+			parse.accept(new Parser(buffer, start, end), records);
+			return records;
+		}
+	}
+
+	/**
+	 * Parses records from a region of a buffer, one record per line
+	 */
+	static class Parser {
+
+		private final ByteBuffer buffer; // bytes being parsed
+		private final int end; // position parsing stops at
+		private int position; // current position
+		private byte[] scratch = new byte[64]; // copy of name bytes for decoding
+
+		/**
+		 * Constructor
+		 * @param buffer bytes to parse
+		 * @param start first byte of region, must be the start of a line
+		 * @param end byte after region, must be the end of a line
+		 */
+		Parser(ByteBuffer buffer, int start, int end) {
+			this.buffer = buffer;
+			this.position = start;
+			this.end = end;
+		}
+
+		/**
+		 * Parses staff lines: name ID available trained
+		 * @param out list staff are added to
+		 */
+		void staff(ArrayList<Staff> out) {
+
+			while (nextLine()) {
+
+				String name = name();
+				int id = number();
+				boolean available = bool();
+				boolean trained = bool();
+				out.add(new Staff(name, id, available, trained));
+				skipLine();
+			}
+		}
+
+		/**
+		 * Parses course lines: ID name approved required assigned staffID...
+		 * @param out list courses are added to
+		 */
+		void courses(ArrayList<Course> out) {
+
+			while (nextLine()) {
+
+				int id = number();
+				String name = name();
+				boolean approved = bool();
+				int requiredStaff = number();
+				int assignedStaff = number();
+
+				// staff IDs run to the end of the line
+				IntSet staffId = new IntSet(Math.max(assignedStaff, 1));
+				while (skipSpaces()) {
+					staffId.add(number());
+				}
+
+				out.add(new Course(id, name, approved, requiredStaff, assignedStaff, staffId));
+				skipLine();
+			}
+		}
+
+		/**
+		 * Moves to the first token of the next non blank line
+		 * @return false if no lines left
+		 */
+		private boolean nextLine() {
+
+			while (position < end) {
+
+				byte b = buffer.get(position);
+				if (b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+					position++;
+				} else {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Skips spaces within the current line
+		 * @return true if a token follows on this line
+		 */
+		private boolean skipSpaces() {
+
+			while (position < end) {
+
+				byte b = buffer.get(position);
+				if (b == ' ' || b == '\t' || b == '\r') {
+					position++;
+				} else {
+					return b != '\n';
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Skips to the start of the next line
+		 */
+		private void skipLine() {
+
+			while (position < end && buffer.get(position) != '\n') {
+				position++;
+			}
+		}
+
+		/**
+		 * Reads a whitespace separated token as a String
+		 * @return name
+		 */
+		private String name() {
+
+			skipSpaces();
+			int start = position;
+			boolean ascii = true;
+
+			while (position < end) {
+
+				byte b = buffer.get(position);
+				if (b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+					break;
+				}
+				ascii &= b >= 0;
+				position++;
+			}
+
+			int length = position - start;
+			if (length == 0) {
+				throw error("name");
+			}
+			if (length > scratch.length) {
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			}
+			for (int i = 0; i < length; i++) {
+				scratch[i] = buffer.get(start + i);
+			}
+
+			return new String(scratch, 0, length, ascii ? StandardCharsets.ISO_8859_1 : CHARSET);
+		}
+
+		/**
+		 * Reads a decimal int
+		 * @return value
+		 */
+		private int number() {
+
+			skipSpaces();
+			boolean negative = false;
+
+			if (position < end && buffer.get(position) == '-') {
+				negative = true;
+				position++;
+			}
+
+			int start = position;
+			long value = 0;
+
+			while (position < end) {
+
+				int digit = buffer.get(position) - '0';
+				if (digit < 0 || digit > 9) {
+					break;
+				}
+				value = value * 10 + digit;
+				if (value > 1L + Integer.MAX_VALUE) {
+					throw error("number");
+				}
+				position++;
+			}
+
+			if (position == start || (position < end && !isSpace(buffer.get(position)))) {
+				throw error("number");
+			}
+			if (!negative && value > Integer.MAX_VALUE) {
+				throw error("number");
+			}
+
+			return (int) (negative ? -value : value);
+		}
+
+		/**
+		 * Reads a boolean, true if the token is "true" ignoring case
+		 * as Boolean.parseBoolean does
+		 * @return value
+		 */
+		private boolean bool() {
+
+			skipSpaces();
+			int start = position;
+
+			while (position < end && !isSpace(buffer.get(position))) {
+				position++;
+			}
+
+			return position - start == 4
+					&& (buffer.get(start) | 0x20) == 't'
+					&& (buffer.get(start + 1) | 0x20) == 'r'
+					&& (buffer.get(start + 2) | 0x20) == 'u'
+					&& (buffer.get(start + 3) | 0x20) == 'e';
+		}
+
+		/**
+		 * Checks for token separator
+		 * @param b byte
+		 * @return true if whitespace
+		 */
+		private static boolean isSpace(byte b) {
+			return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+		}
+
+		/**
+		 * Builds exception for a malformed field
+		 * @param field what was being read
+		 * @return exception to throw
+		 */
+		private NumberFormatException error(String field) {
+			return new NumberFormatException("Invalid " + field + " at byte " + position);
+		}
+	}
+}
@@ -1,31 +1,120 @@
 
+import java.io.IOException;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 
 /**
  * Model class for teaching requirements program
  * @author Andrew
  * 
+ * Changes are recorded in a Journal as they are made and replayed on
+ * start up, so they survive a crash before writeToFile is called. A
+ * change is only made to the lists once its record is on disk, so one
+ * whose record cannot be written throws without changing anything.
+ * A Checkpointer writes the data files in the background from a copy
+ * of the lists taken at a consistent point, so changes are never held
+ * up by a save. Saves go through a SaveService, which writes the staff
+ * and course files at the same time. Files are replaced atomically, or
+ * updated in place behind a slot log finished on start up, so a crash
+ * mid-save leaves a whole snapshot and the journal to rebuild from.
+ * Staff and course files may be text or binary snapshots, each is
+ * written back in the format it was read in.
+ * openReadOnly gives a MappedModel that reads binary snapshots in place
+ * without loading them, for jobs that only read the data.
+ * 
+ * Model is safe to share between threads, so many sessions can use one
+ * dataset. Queries, searches and changes to one course and one staff
+ * member share the read lock. Each record also has a lock striped by
+ * ID: a change holds the stripes of the records it touches while it
+ * changes, publishes and journals them, taking the course's before the
+ * staff member's, so changes to different records run side by side and
+ * changes to one record reach the journal in the order they were made.
+ * Creating staff and courses, removing staff from all their courses and
+ * saving touch many records, so take the exclusive lock instead.
+ * Live views take the read lock, and the stripe of the record they
+ * belong to, for each step, so they can be read while changes are made.
+ * openSnapshot gives a ModelSnapshot that reads one committed version
+ * without locking, for long reports that must not see a change half
+ * made. Versions are only kept once the first snapshot is opened.
+ * Each staff member and course also counts its changes in getVersion.
+ * The change methods taking versions check the records are still at
+ * the versions the caller read while holding the same stripes as the
+ * change, and return false without changing anything if not, so two
+ * sessions working from the same read cannot overwrite each other's
+ * changes without noticing. Checks of different records run side by side.
+ * 
  * Public Methods:
+ * 	public Model(long checkpointSeconds)
+ * 	public Model(long checkpointSeconds, ListOfStaff staffList)
+ * 	public Model(long checkpointSeconds, ListOfStaff staffList, ListOfCourses courseList)
+ * 	public static Model openReadOnly(String staffPath, String coursePath)
+ * 	public CompletableFuture<Boolean> saveAsync()
  * 	public void writeToFile()
+ * 	public void close()
+ * 	public boolean isReadOnly()
+ * 	public ModelSnapshot openSnapshot()
  * 	public ArrayList<Staff> returnStaffList()
  * 	public Staff findStaff(int ID)
- * 	public void createStaff(String name, int hours)
+ * 	public Staff findStaffCopy(int ID)
+ * 	public ArrayList<Staff> copiesOfStaff(Collection<Staff> staff)
+ * 	public Staff createStaff(String name)
  * 	public ArrayList<Staff> AvailableStaff()
  * 	public ArrayList<Staff> UnavailableStaff()
  * 	public ArrayList<Staff> UntrainedStaff()
  * 	public ArrayList<Staff> StaffWithTraining()
+ * 	public ArrayList<Staff> AvailableTrainedStaff()
+ * 	public Collection<Staff> viewAvailableStaff()
+ * 	public Collection<Staff> viewUnavailableStaff()
+ * 	public Collection<Staff> viewUntrainedStaff()
+ * 	public Collection<Staff> viewTrainedStaff()
+ * 	public Collection<Staff> viewAvailableTrainedStaff()
+ * 	public int countAvailableStaff()
+ * 	public int countUnavailableStaff()
+ * 	public int countUntrainedStaff()
+ * 	public int countTrainedStaff()
+ * 	public int countAvailableTrainedStaff()
+ * 	public ArrayList<Staff> findStaffByName(String name)
+ * 	public ArrayList<Staff> findStaffByNamePrefix(String prefix, int limit)
+ * 	public ArrayList<Staff> searchStaff(String query, int maxDistance, int limit)
  * 	public ArrayList<Course> returnCourseList()
- * 	public void  createCourse(String name, int requiredHours) 
+ * 	public Course createCourse(String name, int requiredHours)
  * 	public Course findCourse(int ID)
+ * 	public Course findCourseCopy(int ID)
+ * 	public ArrayList<Course> copiesOfCourses(Collection<Course> courses)
  * 	public ArrayList<Course> findApprovedCourses()
  * 	public ArrayList<Course> findUnapprovedCourses()
  * 	public ArrayList<Course> findFullCourses()
+ * 	public ArrayList<Course> searchCourses(String query, int maxDistance, int limit)
+ * 	public Collection<Course> viewApprovedCourses()
+ * 	public Collection<Course> viewUnapprovedCourses()
+ * 	public Collection<Course> viewFullCourses()
+ * 	public int countApprovedCourses()
+ * 	public int countUnapprovedCourses()
+ * 	public int countFullCourses()
  * 	public ArrayList<Staff> findCourseStaff(Course course)
+ * 	public Collection<Staff> viewCourseStaff(Course course)
+ * 	public int countCourseStaff(Course course)
  * 	public void addStaffToCourse(Course course, Staff staff)
  * 	public void removeStaffFromCourse(Course course, Staff staff)
+ * 	public ArrayList<Course> findStaffCourses(Staff staff)
+ * 	public Collection<Course> viewStaffCourses(Staff staff)
+ * 	public int countStaffCourses(Staff staff)
+ * 	public void removeStaffFromAllCourses(Staff staff)
  * 	public boolean assignCourseRequirements(Course course, int req)
  * 	public void train(Course course, Staff staff)
  * 	public void giveRequestApproval(Course course, boolean approval)
+ * 	public boolean addStaffToCourse(Course course, int courseVersion, Staff staff, int staffVersion)
+ * 	public boolean removeStaffFromCourse(Course course, int courseVersion, Staff staff, int staffVersion)
+ * 	public boolean assignCourseRequirements(Course course, int req, int courseVersion)
+ * 	public boolean train(Staff staff, int staffVersion)
+ * 	public boolean giveRequestApproval(Course course, boolean approval, int courseVersion)
  *
  */
 public class Model {
@@ -40,25 +129,465 @@ public class Model {
 	 */
 	private ListOfStaff staffList;
 	
+	/**
+	 * Exclusive while records are created or many are changed, shared by
+	 * queries and changes to one course and staff member
+	 */
+	private final StampedLock state = new StampedLock();
+	
+	/**
+	 * Locks of courses and staff, a record's found from its ID. Held
+	 * for writing while a record is changed, for reading while its staff
+	 * or courses are read. Course stripes are taken before staff stripes
+	 */
+	private static final int STRIPES = 64;
+	private final StampedLock[] courseStripes = stripes();
+	private final StampedLock[] staffStripes = stripes();
+	
+	/**
+	 * Committed versions read by snapshots, null until the first is opened
+	 */
+	private volatile Versions versions;
+	
+	/**
+	 * Journal of changes since staff and course files were last written,
+	 * null if it could not be opened
+	 */
+	private Journal journal;
+	
+	/**
+	 * Writers kept between saves so they remember the layout of the files
+	 * and only rewrite records that changed. One each as the files are
+	 * written at the same time
+	 */
+	private SlotWriteFile staffWriter = new SlotWriteFile();
+	private SlotWriteFile courseWriter = new SlotWriteFile();
+	
+	/**
+	 * Writes checkpoints in the background, null if there is no journal
+	 */
+	private Checkpointer checkpointer;
+	
+	/**
+	 * Writes saves on worker threads, one save at a time
+	 */
+	private final SaveService saver = new SaveService();
+	
+	/**
+	 * True if staff or course file was read as a binary snapshot
+	 */
+	private boolean binaryStaff;
+	private boolean binaryCourses;
+	
+	/**
+	 * Data file paths
+	 */
+	private static final String STAFF_PATH = "Main Game/Staff.txt";
+	private static final String COURSE_PATH = "Main Game/Course.txt";
+	private static final String JOURNAL_PATH = "Main Game/Journal.log";
+	
+	/**
+	 * Journal size at which it is compacted into the data files
+	 */
+	private static final long COMPACT_SIZE = 4 << 20;
+	
+	/**
+	 * Seconds between background checkpoints when not given
+	 */
+	public static final long CHECKPOINT_SECONDS = 60;
 
 
 	/**
-	 * Constructor
+	 * Constructor, checkpointing every CHECKPOINT_SECONDS
 	 */
 	public Model() {
-		courseList = new ListOfCourses();
-		staffList = new ListOfStaff();
+		this(CHECKPOINT_SECONDS);
+	}
+	
+	/**
+	 * Constructor
+	 * @param checkpointSeconds seconds between background checkpoints,
+	 * 0 to only checkpoint when the journal grows past COMPACT_SIZE
+	 */
+	public Model(long checkpointSeconds) {
+		this(checkpointSeconds, new ListOfStaff());
+	}
+	
+	/**
+	 * Constructor with a chosen staff list, such as a ColumnarListOfStaff
+	 * for very large rosters
+	 * @param checkpointSeconds seconds between background checkpoints,
+	 * 0 to only checkpoint when the journal grows past COMPACT_SIZE
+	 * @param staffList empty staff list to load staff into
+	 */
+	public Model(long checkpointSeconds, ListOfStaff staffList) {
+		this(checkpointSeconds, staffList, new ListOfCourses());
+	}
+	
+	/**
+	 * Constructor with chosen staff and course lists, such as a
+	 * ListOfCourses keeping course staff outside the heap
+	 * @param checkpointSeconds seconds between background checkpoints,
+	 * 0 to only checkpoint when the journal grows past COMPACT_SIZE
+	 * @param staffList empty staff list to load staff into
+	 * @param courseList empty course list to load courses into
+	 */
+	public Model(long checkpointSeconds, ListOfStaff staffList, ListOfCourses courseList) {
+		this.courseList = courseList;
+		this.staffList = staffList;
 		
 		/*
-		 *  Populate from files
+		 *  Populate from files, finishing any in-place save cut short first
 		 */
-		ReadFile reader = new ReadFile();
+		SlotWriteFile.recover(STAFF_PATH);
+		SlotWriteFile.recover(COURSE_PATH);
+		this.binaryStaff = BinaryReadFile.isBinary(STAFF_PATH);
+		this.binaryCourses = BinaryReadFile.isBinary(COURSE_PATH);
 		
-		this.staffList.setStaffList(reader.readStaff("Main Game/Staff.txt"));
-		this.courseList.setCourseList(reader.readCourse("Main Game/Course.txt"));
+		// Read staff on another thread while courses are read on this one
+		CompletableFuture<ArrayList<Staff>> staff = CompletableFuture.supplyAsync(() -> binaryStaff
+				? new BinaryReadFile().readStaff(STAFF_PATH) : new MappedReadFile().readStaff(STAFF_PATH));
+		this.courseList.setCourseList(binaryCourses
+				? new BinaryReadFile().readCourse(COURSE_PATH) : new MappedReadFile().readCourse(COURSE_PATH));
+		this.staffList.setStaffList(staff.join());
+		
+		/*
+		 * Reapply changes made since files were last written
+		 */
+		openJournal();
+		
+		if(this.journal != null) {
+			this.checkpointer = new Checkpointer(this::writeToFile, checkpointSeconds);
+		}
 
 	}
 	
+	/**
+	 * Constructor for a model that does not read the data files or keep
+	 * a journal, for subclasses serving data some other way
+	 * @param staffList staff to hold
+	 * @param courseList courses to hold
+	 */
+	protected Model(ListOfStaff staffList, ListOfCourses courseList) {
+		this.staffList = staffList;
+		this.courseList = courseList;
+	}
+	
+	/**
+	 * Method to open binary staff and course snapshots read-only, without
+	 * loading them. Changing the returned model throws UnsupportedOperationException
+	 * @param staffPath binary staff snapshot
+	 * @param coursePath binary course snapshot
+	 * @return read-only model over the mapped files
+	 * @throws IOException if a file is not a binary snapshot
+	 */
+	public static Model openReadOnly(String staffPath, String coursePath) throws IOException {
+		return new MappedModel(new MappedDataset(staffPath, coursePath));
+	}
+	
+	/**
+	 * Opens journal and replays its records over the loaded lists
+	 */
+	private void openJournal() {
+		
+		try {
+			this.journal = new Journal(JOURNAL_PATH);
+			this.journal.replay(new Journal.Replayer() {
+				
+				public void createStaff(int staffID, String name) {
+					if(staffList.find(staffID) == null) {
+						staffList.addStaff(new Staff(name, staffID));
+					}
+				}
+				
+				public void createCourse(int courseID, String name, int requiredStaff) {
+					if(courseList.find(courseID) == null) {
+						courseList.addCourse(new Course(courseID, name, requiredStaff));
+					}
+				}
+				
+				public void addStaffToCourse(int courseID, int staffID) {
+					Course course = courseList.find(courseID);
+					Staff staff = staffList.find(staffID);
+					if(course != null && staff != null) {
+						courseList.addStaffToCourse(course, staff);
+					}
+				}
+				
+				public void removeStaffFromCourse(int courseID, int staffID) {
+					Course course = courseList.find(courseID);
+					Staff staff = staffList.find(staffID);
+					if(course != null && staff != null) {
+						courseList.removeStaffFromCourse(course, staff);
+					}
+				}
+				
+				public void setRequirements(int courseID, int requiredStaff) {
+					Course course = courseList.find(courseID);
+					if(course != null) {
+						course.setRequirements(requiredStaff);
+					}
+				}
+				
+				public void train(int staffID) {
+					Staff staff = staffList.find(staffID);
+					if(staff != null) {
+						courseList.train(staff);
+					}
+				}
+				
+				public void setApproval(int courseID, boolean approved) {
+					Course course = courseList.find(courseID);
+					if(course != null) {
+						courseList.giveRequestApproval(course, approved);
+					}
+				}
+			});
+		} catch (IOException e) {
+			// Carry on without a journal, changes are still saved on exit
+			e.printStackTrace();
+			this.journal = null;
+		}
+	}
+	
+	/**
+	 * Waits until the journal records of changes made so far are on disk.
+	 * Called by each change after journalling it and before changing the
+	 * lists. Changes to other records made meanwhile share the same sync
+	 * @throws UncheckedIOException if the journal has failed, in which
+	 * case the caller must not make its change
+	 */
+	private void sync() {
+		
+		if(this.journal != null) {
+			this.journal.sync();
+		}
+	}
+	
+	/**
+	 * Asks for a checkpoint once journal has grown past COMPACT_SIZE.
+	 * Called after letting go of the locks
+	 */
+	private void compact() {
+		
+		if(this.checkpointer != null && this.journal.size() > COMPACT_SIZE) {
+			this.checkpointer.requestNow();
+		}
+	}
+	
+	/*
+	 * ==================================================
+	 * Locking
+	 * ==================================================
+	 */
+	
+	/**
+	 * Runs query holding the read lock
+	 * @param query reads lists and indexes only
+	 * @return result of query
+	 */
+	private <T> T read(Supplier<T> query) {
+		
+		long stamp = this.state.readLock();
+		try {
+			return query.get();
+		} finally {
+			this.state.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * As read, for counts, so no Integer is made
+	 * @param query reads lists and indexes only
+	 * @return result of query
+	 */
+	private int readInt(IntSupplier query) {
+		
+		long stamp = this.state.readLock();
+		try {
+			return query.getAsInt();
+		} finally {
+			this.state.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Runs query holding the read lock and the read lock of a record's stripe
+	 * @param stripe stripe of the record query reads
+	 * @param query reads lists, indexes and the record
+	 * @return result of query
+	 */
+	private <T> T read(StampedLock stripe, Supplier<T> query) {
+		
+		long stamp = this.state.readLock();
+		try {
+			long stripeStamp = stripe.readLock();
+			try {
+				return query.get();
+			} finally {
+				stripe.unlockRead(stripeStamp);
+			}
+		} finally {
+			this.state.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Makes change to one course and staff member holding the read lock and
+	 * their stripes
+	 * @param course course changed, null if none
+	 * @param staff staff member changed, null if none
+	 * @param change journals, syncs, then changes lists and publishes the
+	 * records. Returns false if refused, having changed nothing
+	 * @return result of change
+	 */
+	private boolean change(Course course, Staff staff, BooleanSupplier change) {
+		
+		StampedLock courseStripe = course == null ? null : stripe(this.courseStripes, course.getID());
+		StampedLock staffStripe = staff == null ? null : stripe(this.staffStripes, staff.getID());
+		
+		boolean changed;
+		long stamp = this.state.readLock();
+		try {
+			long courseStamp = courseStripe == null ? 0 : courseStripe.writeLock();
+			try {
+				long staffStamp = staffStripe == null ? 0 : staffStripe.writeLock();
+				try {
+					changed = change.getAsBoolean();
+				} finally {
+					if(staffStripe != null) {
+						staffStripe.unlockWrite(staffStamp);
+					}
+				}
+			} finally {
+				if(courseStripe != null) {
+					courseStripe.unlockWrite(courseStamp);
+				}
+			}
+		} finally {
+			this.state.unlockRead(stamp);
+		}
+		compact();
+		return changed;
+	}
+	
+	/**
+	 * As change, for changes that are never refused
+	 * @param course course changed, null if none
+	 * @param staff staff member changed, null if none
+	 * @param change journals, syncs, then changes lists and publishes the records
+	 */
+	private void change(Course course, Staff staff, Runnable change) {
+		
+		change(course, staff, () -> {
+			change.run();
+			return true;
+		});
+	}
+	
+	/**
+	 * Makes change holding the exclusive lock, for changes touching many records
+	 * @param change journals, syncs, then changes lists and publishes the records
+	 */
+	private void change(Runnable change) {
+		
+		long stamp = this.state.writeLock();
+		try {
+			change.run();
+		} finally {
+			this.state.unlockWrite(stamp);
+		}
+		compact();
+	}
+	
+	/**
+	 * Stripe guarding a record
+	 * @param stripes course or staff stripes
+	 * @param ID record ID
+	 * @return lock for record
+	 */
+	private static StampedLock stripe(StampedLock[] stripes, int ID) {
+		return stripes[ID & (STRIPES - 1)];
+	}
+	
+	private static StampedLock[] stripes() {
+		
+		StampedLock[] stripes = new StampedLock[STRIPES];
+		for(int i = 0; i < STRIPES; i++) {
+			stripes[i] = new StampedLock();
+		}
+		return stripes;
+	}
+	
+	/**
+	 * Live view read under the read lock, and a record's stripe if given,
+	 * one call at a time. Iterators are made and stepped holding the locks
+	 */
+	private class LockedView<T> extends AbstractCollection<T> {
+		
+		private final Collection<T> view;
+		private final StampedLock stripe; // null if view reads no record
+		
+		LockedView(Collection<T> view, StampedLock stripe) {
+			this.view = view;
+			this.stripe = stripe;
+		}
+		
+		public Iterator<T> iterator() {
+			
+			Iterator<T> iterator = locked(view::iterator);
+			return new Iterator<T>() {
+				
+				public boolean hasNext() {
+					return locked(iterator::hasNext);
+				}
+				
+				public T next() {
+					return locked(iterator::next);
+				}
+			};
+		}
+		
+		public int size() {
+			return locked(view::size);
+		}
+		
+		public boolean isEmpty() {
+			return locked(view::isEmpty);
+		}
+		
+		private <R> R locked(Supplier<R> step) {
+			return stripe == null ? read(step) : read(stripe, step);
+		}
+	}
+	
+	/**
+	 * Publishes records as the next version if any snapshot has been
+	 * opened. Called holding the stripes of the records, or the exclusive lock
+	 * @param staff staff member changed, null if none
+	 * @param courses courses changed
+	 */
+	private void publish(Staff staff, Course... courses) {
+		
+		if(this.versions != null) {
+			this.versions.publish(staff, courses);
+		}
+	}
+	
+	/**
+	 * Courses with IDs given
+	 * @param courseIDs
+	 * @return courses, in the same order
+	 */
+	private Course[] findCourses(int[] courseIDs) {
+		
+		Course[] courses = new Course[courseIDs.length];
+		for(int i = 0; i < courses.length; i++) {
+			courses[i] = this.courseList.find(courseIDs[i]);
+		}
+		return courses;
+	}
+	
 	/*
 	 * ==================================================
 	 * Methods for creating staff and using staffList
@@ -68,22 +597,173 @@ public class Model {
 	
 	
 	/**
-	 * Write staff and course lists to file
+	 * Write changed staff and courses to file now, waiting until they are on disk
 	 */
 	public void writeToFile() {
-		WriteFile writer = new WriteFile();
+		saveAsync().join();
+	}
+	
+	/**
+	 * Method to write changed staff and courses to file in the background.
+	 * When the save starts the lists are copied and the journal rotated
+	 * while no changes can be made, then the copies are written without
+	 * holding up changes. The rotated journal is deleted once both files
+	 * are on disk, otherwise it is replayed on the next start up.
+	 * @return future completed with true once both files are on disk
+	 */
+	public CompletableFuture<Boolean> saveAsync() {
+		return saver.save(this::snapshot);
+	}
+	
+	/**
+	 * Copies lists and rotates journal for a save
+	 * @return snapshot writing the copies
+	 */
+	private SaveService.Snapshot snapshot() {
 		
-		writer.staffToFile("Main Game/Staff.txt", this.staffList.getStaffList());
-		writer.courseToFile("Main Game/Course.txt", this.courseList.getCourseList());
+		ArrayList<Staff> staff;
+		ArrayList<Course> courses;
+		long stamp = this.state.writeLock();
+		try {
+			staff = copyStaff();
+			courses = copyCourses();
+			if(this.journal != null) {
+				this.journal.rotate();
+			}
+		} finally {
+			this.state.unlockWrite(stamp);
+		}
+		
+		return new SaveService.Snapshot() {
+			
+			public boolean writeStaff() {
+				return binaryStaff
+						? new BinaryWriteFile().staffToFile(STAFF_PATH, staff)
+						: staffWriter.staffToFile(STAFF_PATH, staff);
+			}
+			
+			public boolean writeCourses() {
+				return binaryCourses
+						? new BinaryWriteFile().courseToFile(COURSE_PATH, courses)
+						: courseWriter.courseToFile(COURSE_PATH, courses);
+			}
+			
+			public void finish(boolean written) {
+				
+				long stamp = state.writeLock();
+				try {
+					settle(staff, staffList.getStaffList(), written);
+					settle(courses, courseList.getCourseList(), written);
+				} finally {
+					state.unlockWrite(stamp);
+				}
+				
+				// Keep rotated journal if either file failed so nothing is lost.
+				// One left by an earlier failed save is also in these files
+				if(written && journal != null) {
+					journal.dropRotated();
+				}
+			}
+		};
 	}
 	
+	/**
+	 * Copies staff list, marking originals clean as the copies will save them
+	 * @return copy of every staff member in list order
+	 */
+	private ArrayList<Staff> copyStaff() {
+		
+		ArrayList<Staff> staff = this.staffList.getStaffList();
+		ArrayList<Staff> copies = new ArrayList<Staff>(staff.size());
+		for(Staff member : staff) {
+			copies.add(member.copy());
+			member.setDirty(false);
+		}
+		return copies;
+	}
 	
+	/**
+	 * Copies course list, marking originals clean as the copies will save them
+	 * @return copy of every course in list order
+	 */
+	private ArrayList<Course> copyCourses() {
+		
+		ArrayList<Course> courses = this.courseList.getCourseList();
+		ArrayList<Course> copies = new ArrayList<Course>(courses.size());
+		for(Course course : courses) {
+			copies.add(course.copy());
+			course.setDirty(false);
+		}
+		return copies;
+	}
+	
+	/**
+	 * Gives saved slots back to the records copied, or marks them dirty again
+	 * if the save failed. Records are never removed, so list positions match.
+	 * @param copies records that were saved
+	 * @param records records in the model
+	 * @param written true if save succeeded
+	 */
+	private static <T extends SavedRecord> void settle(ArrayList<T> copies, ArrayList<T> records, boolean written) {
+		
+		for(int i = 0; i < copies.size(); i++) {
+			if(written) {
+				records.get(i).setSlot(copies.get(i).getSlot());
+			} else if(copies.get(i).isDirty()) {
+				records.get(i).setDirty(true);
+			}
+		}
+	}
+	
+	/**
+	 * Stop checkpoints and close journal, forcing any changes not yet on disk
+	 */
+	public void close() {
+		
+		if(this.checkpointer != null) {
+			this.checkpointer.close();
+		}
+		if(this.journal != null) {
+			this.journal.close();
+		}
+	}
+
+	/**
+	 * Method to check whether changes and saves are refused
+	 * @return false, changes are allowed
+	 */
+	public boolean isReadOnly() {
+		return false;
+	}
+
+	/**
+	 * Method to open a consistent read-only snapshot of the staff and
+	 * courses as they are now. The first call copies every record, later
+	 * changes copy only the records they touch
+	 * @return snapshot, to be closed once finished with
+	 */
+	public ModelSnapshot openSnapshot() {
+
+		if(this.versions == null) {
+			long stamp = this.state.writeLock();
+			try {
+				if(this.versions == null) {
+					this.versions = new Versions(this.staffList.getStaffList(), this.courseList.getCourseList());
+				}
+			} finally {
+				this.state.unlockWrite(stamp);
+			}
+		}
+		return this.versions.open();
+	}
+
+
 	/**
 	 * Method to get ArrayList of all staff
 	 * @return staffList from within this.staffList object
 	 */
 	public ArrayList<Staff> returnStaffList(){
-		return this.staffList.getStaffList();
+		return read(() -> new ArrayList<Staff>(this.staffList.getStaffList()));
 	}
 	
 	/**
@@ -92,18 +772,64 @@ public class Model {
 	 * @return staff member
 	 */
 	public Staff findStaff(int ID) {
-		return this.staffList.find(ID);
+		return read(() -> this.staffList.find(ID));
+	}
+	
+	/**
+	 * Method to copy staff member with given ID as they are now, taken
+	 * holding their stripe so the copy is never half way through a change
+	 * @param ID staff ID
+	 * @return copy, not changed by later changes, null if no staff member has ID
+	 */
+	public Staff findStaffCopy(int ID) {
+		
+		return read(stripe(this.staffStripes, ID), () -> {
+			Staff staff = this.staffList.find(ID);
+			return staff == null ? null : staff.copy();
+		});
+	}
+	
+	/**
+	 * Method to copy staff members as they are now, each taken holding
+	 * their stripe, for reading while changes are made
+	 * @param staff staff from this model
+	 * @return copies, in the same order
+	 */
+	public ArrayList<Staff> copiesOfStaff(Collection<Staff> staff) {
+		
+		ArrayList<Staff> copies = new ArrayList<Staff>(staff.size());
+		for(Staff member : staff) {
+			copies.add(read(stripe(this.staffStripes, member.getID()), member::copy));
+		}
+		return copies;
 	}
 	
 	/**
 	 * Method to add new staff member to staffList
 	 * @param name staff member name
-	 * @param hours number of hours available
+	 * @return new staff member
 	 */
-	public void createStaff(String name) {
-		
-		this.staffList.createStaff(name);
+	public Staff createStaff(String name) {
 		
+		// Journalled before the lock is released, so the record comes
+		// before any change another session makes to the new staff member
+		Staff staff;
+		long stamp = this.state.writeLock();
+		try {
+			int ID = this.staffList.nextID();
+			if(this.journal != null) {
+				this.journal.createStaff(ID, name);
+			}
+			sync();
+			
+			this.staffList.addStaff(new Staff(name, ID));
+			staff = this.staffList.find(ID);
+			publish(staff);
+		} finally {
+			this.state.unlockWrite(stamp);
+		}
+		compact();
+		return staff;
 	}
 	
 	/**
@@ -112,7 +838,7 @@ public class Model {
 	 */
 	public ArrayList<Staff> AvailableStaff(){
 		
-		return staffList.findAvailableStaff();
+		return read(staffList::findAvailableStaff);
 	}
 	
 	/**
@@ -121,7 +847,7 @@ public class Model {
 	 */
 	public ArrayList<Staff> UnavailableStaff(){
 		
-		return staffList.findUnavailableStaff();
+		return read(staffList::findUnavailableStaff);
 	}
 	
 	/**
@@ -130,7 +856,7 @@ public class Model {
 	 */
 	public ArrayList<Staff> UntrainedStaff(){
 				
-		return staffList.findUntrainedStaff();
+		return read(staffList::findUntrainedStaff);
 	}
 	
 	/**
@@ -139,7 +865,136 @@ public class Model {
 	 */
 	public ArrayList<Staff> StaffWithTraining(){
 		
-		return staffList.findTrainedStaff();
+		return read(staffList::findTrainedStaff);
+	}
+	
+	/**
+	 * Method to return list of staff who are available and trained
+	 * @return list of available trained staff
+	 */
+	public ArrayList<Staff> AvailableTrainedStaff(){
+		
+		return read(staffList::findAvailableTrainedStaff);
+	}
+	
+	/*
+	 * Live views and counts of staff by status. Views are read-only and
+	 * follow changes without being rebuilt, so they can be iterated,
+	 * streamed or counted on every redraw without copying the staff
+	 */
+	
+	/**
+	 * Method to return live read-only view of available staff
+	 * @return available staff, updated as staff change
+	 */
+	public Collection<Staff> viewAvailableStaff(){
+		return new LockedView<Staff>(staffList.availableStaff(), null);
+	}
+	
+	/**
+	 * Method to return live read-only view of unavailable staff
+	 * @return unavailable staff, updated as staff change
+	 */
+	public Collection<Staff> viewUnavailableStaff(){
+		return new LockedView<Staff>(staffList.unavailableStaff(), null);
+	}
+	
+	/**
+	 * Method to return live read-only view of untrained staff
+	 * @return untrained staff, updated as staff change
+	 */
+	public Collection<Staff> viewUntrainedStaff(){
+		return new LockedView<Staff>(staffList.untrainedStaff(), null);
+	}
+	
+	/**
+	 * Method to return live read-only view of trained staff
+	 * @return trained staff, updated as staff change
+	 */
+	public Collection<Staff> viewTrainedStaff(){
+		return new LockedView<Staff>(staffList.trainedStaff(), null);
+	}
+	
+	/**
+	 * Method to return live read-only view of available trained staff
+	 * @return available trained staff, updated as staff change
+	 */
+	public Collection<Staff> viewAvailableTrainedStaff(){
+		return new LockedView<Staff>(staffList.availableTrainedStaff(), null);
+	}
+	
+	/**
+	 * Method to count available staff without listing them
+	 * @return number of available staff
+	 */
+	public int countAvailableStaff() {
+		return readInt(() -> staffList.availableStaff().size());
+	}
+	
+	/**
+	 * Method to count unavailable staff without listing them
+	 * @return number of unavailable staff
+	 */
+	public int countUnavailableStaff() {
+		return readInt(() -> staffList.unavailableStaff().size());
+	}
+	
+	/**
+	 * Method to count untrained staff without listing them
+	 * @return number of untrained staff
+	 */
+	public int countUntrainedStaff() {
+		return readInt(() -> staffList.untrainedStaff().size());
+	}
+	
+	/**
+	 * Method to count trained staff without listing them
+	 * @return number of trained staff
+	 */
+	public int countTrainedStaff() {
+		return readInt(() -> staffList.trainedStaff().size());
+	}
+	
+	/**
+	 * Method to count available trained staff without listing them
+	 * @return number of available trained staff
+	 */
+	public int countAvailableTrainedStaff() {
+		return readInt(() -> staffList.availableTrainedStaff().size());
+	}
+	
+	/**
+	 * Method to find staff by full name, ignoring case
+	 * @param name staff member name
+	 * @return staff with that name
+	 */
+	public ArrayList<Staff> findStaffByName(String name){
+		
+		return read(() -> staffList.findByName(name));
+	}
+	
+	/**
+	 * Method to find staff whose names start with prefix, ignoring case
+	 * @param prefix start of name
+	 * @param limit most staff to return
+	 * @return staff in name order
+	 */
+	public ArrayList<Staff> findStaffByNamePrefix(String prefix, int limit){
+		
+		return read(() -> staffList.findByNamePrefix(prefix, limit));
+	}
+	
+	/**
+	 * Method to find staff with names close to a possibly mistyped query,
+	 * ignoring case
+	 * @param query name to look for
+	 * @param maxDistance most letters inserted, deleted or changed
+	 * @param limit most staff to return
+	 * @return staff, closest first
+	 */
+	public ArrayList<Staff> searchStaff(String query, int maxDistance, int limit){
+		
+		return read(() -> staffList.searchByName(query, maxDistance, limit));
 	}
 	
 	/*
@@ -153,17 +1008,33 @@ public class Model {
 	 * @return courseList from within this.courseList object
 	 */
 	public ArrayList<Course> returnCourseList() {
-		return this.courseList.getCourseList();
+		return read(() -> new ArrayList<Course>(this.courseList.getCourseList()));
 	}
 	
 	/**
 	 * Create new course
 	 * @param name course name
+	 * @return new course
 	 */
-	public void  createCourse(String name, int requiredHours) {
-		
-		courseList.createCourse(name, requiredHours);
+	public Course createCourse(String name, int requiredHours) {
 		
+		Course course;
+		long stamp = this.state.writeLock();
+		try {
+			int ID = this.courseList.nextID();
+			if(this.journal != null) {
+				this.journal.createCourse(ID, name, requiredHours);
+			}
+			sync();
+			
+			course = new Course(ID, name, requiredHours);
+			this.courseList.addCourse(course);
+			publish(null, course);
+		} finally {
+			this.state.unlockWrite(stamp);
+		}
+		compact();
+		return course;
 	}
 	
 	/**
@@ -172,7 +1043,36 @@ public class Model {
 	 * @return
 	 */
 	public Course findCourse(int ID) {
-		return this.courseList.find(ID);
+		return read(() -> this.courseList.find(ID));
+	}
+	
+	/**
+	 * Method to copy course with given ID as it is now, taken holding its
+	 * stripe so its staff and version always agree
+	 * @param ID course ID
+	 * @return copy, not changed by later changes, null if no course has ID
+	 */
+	public Course findCourseCopy(int ID) {
+		
+		return read(stripe(this.courseStripes, ID), () -> {
+			Course course = this.courseList.find(ID);
+			return course == null ? null : course.copy();
+		});
+	}
+	
+	/**
+	 * Method to copy courses as they are now, each taken holding its
+	 * stripe, for reading while changes are made
+	 * @param courses courses from this model
+	 * @return copies, in the same order
+	 */
+	public ArrayList<Course> copiesOfCourses(Collection<Course> courses) {
+		
+		ArrayList<Course> copies = new ArrayList<Course>(courses.size());
+		for(Course course : courses) {
+			copies.add(read(stripe(this.courseStripes, course.getID()), course::copy));
+		}
+		return copies;
 	}
 	
 	/**
@@ -180,7 +1080,7 @@ public class Model {
 	 * @return ArrayList of approved courses
 	 */
 	public ArrayList<Course> findApprovedCourses(){
-		return this.courseList.findApprovedCourses();
+		return read(this.courseList::findApprovedCourses);
 	}
 	
 	/**
@@ -188,7 +1088,7 @@ public class Model {
 	 * @return ArrayList of unapproved courses
 	 */
 	public ArrayList<Course> findUnapprovedCourses(){
-		return this.courseList.findUnapprovedCourses();
+		return read(this.courseList::findUnapprovedCourses);
 	}
 	
 	/**
@@ -196,7 +1096,67 @@ public class Model {
 	 * @return ArrayList of full courses
 	 */
 	public ArrayList<Course> findFullCourses(){
-		return this.courseList.findFullCourses();
+		return read(this.courseList::findFullCourses);
+	}
+	
+	/**
+	 * Method to find courses with names close to a possibly mistyped query,
+	 * ignoring case
+	 * @param query name to look for
+	 * @param maxDistance most letters inserted, deleted or changed
+	 * @param limit most courses to return
+	 * @return courses, closest first
+	 */
+	public ArrayList<Course> searchCourses(String query, int maxDistance, int limit){
+		return read(() -> this.courseList.searchByName(query, maxDistance, limit));
+	}
+	
+	/**
+	 * Method to return live read-only view of approved courses
+	 * @return approved courses, updated as courses change
+	 */
+	public Collection<Course> viewApprovedCourses(){
+		return new LockedView<Course>(this.courseList.approvedCourses(), null);
+	}
+	
+	/**
+	 * Method to return live read-only view of unapproved courses
+	 * @return unapproved courses, updated as courses change
+	 */
+	public Collection<Course> viewUnapprovedCourses(){
+		return new LockedView<Course>(this.courseList.unapprovedCourses(), null);
+	}
+	
+	/**
+	 * Method to return live read-only view of full courses awaiting approval
+	 * @return full unapproved courses, updated as courses change
+	 */
+	public Collection<Course> viewFullCourses(){
+		return new LockedView<Course>(this.courseList.fullCourses(), null);
+	}
+	
+	/**
+	 * Method to count approved courses without listing them
+	 * @return number of approved courses
+	 */
+	public int countApprovedCourses() {
+		return readInt(() -> this.courseList.approvedCourses().size());
+	}
+	
+	/**
+	 * Method to count unapproved courses without listing them
+	 * @return number of unapproved courses
+	 */
+	public int countUnapprovedCourses() {
+		return readInt(() -> this.courseList.unapprovedCourses().size());
+	}
+	
+	/**
+	 * Method to count full courses awaiting approval without listing them
+	 * @return number of full unapproved courses
+	 */
+	public int countFullCourses() {
+		return readInt(() -> this.courseList.fullCourses().size());
 	}
 	
 	/**
@@ -206,7 +1166,29 @@ public class Model {
 	 */
 	public ArrayList<Staff> findCourseStaff(Course course){
 		
-		return this.courseList.findCourseStaff(course, this.staffList);
+		return read(stripe(this.courseStripes, course.getID()),
+				() -> this.courseList.findCourseStaff(course, this.staffList));
+	}
+	
+	/**
+	 * Method to return live read-only view of staff on a given course
+	 * @param course
+	 * @return staff on course, looked up as the view is iterated
+	 */
+	public Collection<Staff> viewCourseStaff(Course course){
+		
+		return new LockedView<Staff>(this.courseList.courseStaff(course, this.staffList),
+				stripe(this.courseStripes, course.getID()));
+	}
+	
+	/**
+	 * Method to count staff on a given course without listing them
+	 * @param course
+	 * @return number of staff on course
+	 */
+	public int countCourseStaff(Course course) {
+		
+		return read(stripe(this.courseStripes, course.getID()), () -> course.getStaffID().size());
 	}
 	
 	/**
@@ -216,8 +1198,7 @@ public class Model {
 	 */
 	public void addStaffToCourse(Course course, Staff staff) {
 		
-		courseList.addStaffToCourse(course, staff);
-		
+		change(course, staff, () -> addStaff(course, staff));
 	}
 	
 	/**
@@ -227,7 +1208,63 @@ public class Model {
 	 */
 	public void removeStaffFromCourse(Course course, Staff staff) {
 		
-		courseList.removeStaffFromCourse(course, staff);
+		change(course, staff, () -> removeStaff(course, staff));
+	}
+	
+	/**
+	 * Method to return ArrayList of courses a staff member is on
+	 * @param staff
+	 * @return ArrayList of courses
+	 */
+	public ArrayList<Course> findStaffCourses(Staff staff){
+		
+		return read(() -> this.courseList.findStaffCourses(staff));
+	}
+	
+	/**
+	 * Method to return live read-only view of courses a staff member is on
+	 * @param staff
+	 * @return courses, looked up as the view is iterated
+	 */
+	public Collection<Course> viewStaffCourses(Staff staff){
+		
+		return new LockedView<Course>(this.courseList.staffCourses(staff),
+				stripe(this.staffStripes, staff.getID()));
+	}
+	
+	/**
+	 * Method to count courses a staff member is on
+	 * @param staff
+	 * @return number of courses
+	 */
+	public int countStaffCourses(Staff staff) {
+		
+		return readInt(() -> this.courseList.countStaffCourses(staff));
+	}
+	
+	/**
+	 * Method to remove staff member from all their courses
+	 * @param staff
+	 */
+	public void removeStaffFromAllCourses(Staff staff) {
+		
+		change(() -> {
+			ArrayList<Course> courses = this.courseList.findStaffCourses(staff);
+			int[] courseIDs = new int[courses.size()];
+			for(int i = 0; i < courseIDs.length; i++) {
+				courseIDs[i] = courses.get(i).getID();
+			}
+			
+			if(this.journal != null) {
+				for(int courseID : courseIDs) {
+					this.journal.removeStaffFromCourse(courseID, staff.getID());
+				}
+			}
+			sync();
+			
+			this.courseList.removeStaffFromAllCourses(staff);
+			publish(staff, findCourses(courseIDs));
+		});
 	}
 	
 	
@@ -238,8 +1275,7 @@ public class Model {
 	 */
 	public boolean assignCourseRequirements(Course course, int req) {
 
-		return this.courseList.assignCourseRequirements(course, req);
-		
+		return change(course, null, () -> assignRequirements(course, req));
 	}
 	
 	
@@ -250,7 +1286,8 @@ public class Model {
 	 * @param staff
 	 */
 	public void train(Staff staff) {
-		courseList.train(staff);
+		
+		change(null, staff, () -> trainStaff(staff));
 	}
 	
 	/**
@@ -258,8 +1295,195 @@ public class Model {
 	 * @param course
 	 */
 	public void giveRequestApproval(Course course, boolean approval) {
+		
+		change(course, null, () -> setApproval(course, approval));
+	}
+	
+	/*
+	 * Changes to the lists, each journalling the change and waiting for it
+	 * to be on disk before changing the lists and publishing the records
+	 * it touched. Called holding the stripes of those records
+	 */
+	
+	private void addStaff(Course course, Staff staff) {
+		
+		if(this.journal != null) {
+			this.journal.addStaffToCourse(course.getID(), staff.getID());
+		}
+		sync();
+		this.courseList.addStaffToCourse(course, staff);
+		publish(staff, course);
+	}
+	
+	private void removeStaff(Course course, Staff staff) {
+		
+		if(this.journal != null) {
+			this.journal.removeStaffFromCourse(course.getID(), staff.getID());
+		}
+		sync();
+		this.courseList.removeStaffFromCourse(course, staff);
+		publish(staff, course);
+	}
+	
+	private boolean assignRequirements(Course course, int req) {
+		
+		// Refused before journalling, as Course.changeRequirements would
+		if(course.getAssignedStaff() > req) {
+			return false;
+		}
+		if(this.journal != null) {
+			this.journal.setRequirements(course.getID(), req);
+		}
+		sync();
+		this.courseList.assignCourseRequirements(course, req);
+		publish(null, course);
+		return true;
+	}
+	
+	private void trainStaff(Staff staff) {
+		
+		if(this.journal != null) {
+			this.journal.train(staff.getID());
+		}
+		sync();
+		this.courseList.train(staff);
+		publish(staff);
+	}
+	
+	private void setApproval(Course course, boolean approval) {
+		
+		if(this.journal != null) {
+			this.journal.setApproval(course.getID(), approval);
+		}
+		sync();
 		this.courseList.giveRequestApproval(course, approval);
+		publish(null, course);
+	}
+	
+	/*
+	 * ==================================================
+	 * Changes checked against versions read
+	 * ==================================================
+	 */
+	
+	/**
+	 * Method to add staff member to course if neither has changed since read
+	 * @param course course as read, may be a copy from a snapshot
+	 * @param courseVersion version of course when read
+	 * @param staff staff member as read, may be a copy from a snapshot
+	 * @param staffVersion version of staff member when read
+	 * @return true if added, false if either has changed since
+	 */
+	public boolean addStaffToCourse(Course course, int courseVersion, Staff staff, int staffVersion) {
+		
+		return change(course, staff, () -> {
+			Course liveCourse = current(course, courseVersion);
+			Staff liveStaff = current(staff, staffVersion);
+			if(liveCourse == null || liveStaff == null) {
+				return false;
+			}
+			addStaff(liveCourse, liveStaff);
+			return true;
+		});
+	}
+	
+	/**
+	 * Method to remove staff member from course if neither has changed since read
+	 * @param course course as read, may be a copy from a snapshot
+	 * @param courseVersion version of course when read
+	 * @param staff staff member as read, may be a copy from a snapshot
+	 * @param staffVersion version of staff member when read
+	 * @return true if removed, false if either has changed since
+	 */
+	public boolean removeStaffFromCourse(Course course, int courseVersion, Staff staff, int staffVersion) {
+		
+		return change(course, staff, () -> {
+			Course liveCourse = current(course, courseVersion);
+			Staff liveStaff = current(staff, staffVersion);
+			if(liveCourse == null || liveStaff == null) {
+				return false;
+			}
+			removeStaff(liveCourse, liveStaff);
+			return true;
+		});
+	}
+	
+	/**
+	 * Method to assign course requirements if course has not changed since read
+	 * @param course course as read, may be a copy from a snapshot
+	 * @param req new required staff
+	 * @param courseVersion version of course when read
+	 * @return true if assigned, false if course has changed since or has
+	 * more staff than req
+	 */
+	public boolean assignCourseRequirements(Course course, int req, int courseVersion) {
+		
+		return change(course, null, () -> {
+			Course liveCourse = current(course, courseVersion);
+			return liveCourse != null && assignRequirements(liveCourse, req);
+		});
+	}
+	
+	/**
+	 * Method to train staff member if they have not changed since read
+	 * @param staff staff member as read, may be a copy from a snapshot
+	 * @param staffVersion version of staff member when read
+	 * @return true if trained, false if staff member has changed since
+	 */
+	public boolean train(Staff staff, int staffVersion) {
+		
+		return change(null, staff, () -> {
+			Staff liveStaff = current(staff, staffVersion);
+			if(liveStaff == null) {
+				return false;
+			}
+			trainStaff(liveStaff);
+			return true;
+		});
+	}
+	
+	/**
+	 * Method to approve or reject course if it has not changed since read
+	 * @param course course as read, may be a copy from a snapshot
+	 * @param approval
+	 * @param courseVersion version of course when read
+	 * @return true if set, false if course has changed since
+	 */
+	public boolean giveRequestApproval(Course course, boolean approval, int courseVersion) {
+		
+		return change(course, null, () -> {
+			Course liveCourse = current(course, courseVersion);
+			if(liveCourse == null) {
+				return false;
+			}
+			setApproval(liveCourse, approval);
+			return true;
+		});
+	}
+	
+	/**
+	 * Live course if still at version, called holding its stripe
+	 * @param course course as read
+	 * @param version version when read
+	 * @return live course, null if missing or changed
+	 */
+	private Course current(Course course, int version) {
+		
+		Course live = this.courseList.find(course.getID());
+		return live != null && live.getVersion() == version ? live : null;
+	}
+	
+	/**
+	 * Live staff member if still at version, called holding their stripe
+	 * @param staff staff member as read
+	 * @param version version when read
+	 * @return live staff member, null if missing or changed
+	 */
+	private Staff current(Staff staff, int version) {
+		
+		Staff live = this.staffList.find(staff.getID());
+		return live != null && live.getVersion() == version ? live : null;
 	}
 
 	
-}
+}
\ No newline at end of file
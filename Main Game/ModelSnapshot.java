@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+
+/**
+ * Consistent read-only view of a Model as of one version, made by
+ * Model.openSnapshot. Reads never lock or wait for changes, and changes
+ * made after the snapshot was opened are never seen, so a long report
+ * sees every change either whole or not at all.
+ * Returned staff and courses are copies kept for the snapshot and must
+ * not be changed; find the live record with Model.findStaff or
+ * Model.findCourse before changing it. Close the snapshot once finished
+ * with so the versions it holds can be reclaimed.
+ *
+ * Public methods:
+ * 	public long getVersion()
+ * 	public ArrayList<Staff> returnStaffList()
+ * 	public Staff findStaff(int ID)
+ * 	public ArrayList<Course> returnCourseList()
+ * 	public Course findCourse(int ID)
+ * 	public ArrayList<Staff> findCourseStaff(Course course)
+ * 	public ArrayList<Course> findStaffCourses(Staff staff)
+ * 	public void close()
+ */
+public class ModelSnapshot implements AutoCloseable {
+
+	/**
+	 * Versions read, null for a snapshot of data that never changes
+	 */
+	private final Versions versions;
+
+	/**
+	 * Version seen
+	 */
+	private final long version;
+
+	private boolean closed;
+
+	/**
+	 * Constructor, used by Versions.open and by subclasses over data that never changes
+	 * @param versions versions to read
+	 * @param version version seen
+	 */
+	protected ModelSnapshot(Versions versions, long version) {
+		this.versions = versions;
+		this.version = version;
+	}
+
+	/**
+	 * Method to get version seen
+	 * @return version number
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Method to get all staff
+	 * @return staff as of this version
+	 */
+	public ArrayList<Staff> returnStaffList() {
+		return versions.staff.all(version);
+	}
+
+	/**
+	 * Method to find a staff member by ID
+	 * @param ID
+	 * @return staff member as of this version, null if not found
+	 */
+	public Staff findStaff(int ID) {
+		return versions.staff.get(ID, version);
+	}
+
+	/**
+	 * Method to get all courses
+	 * @return courses as of this version
+	 */
+	public ArrayList<Course> returnCourseList() {
+		return versions.courses.all(version);
+	}
+
+	/**
+	 * Method to find a course by ID
+	 * @param ID
+	 * @return course as of this version, null if not found
+	 */
+	public Course findCourse(int ID) {
+		return versions.courses.get(ID, version);
+	}
+
+	/**
+	 * Method to find staff on a course
+	 * @param course live course or one from this snapshot
+	 * @return staff on the course as of this version
+	 */
+	public ArrayList<Staff> findCourseStaff(Course course) {
+
+		ArrayList<Staff> staff = new ArrayList<Staff>();
+		Course seen = findCourse(course.getID());
+		if(seen == null) {
+			return staff;
+		}
+
+		IntView staffIDs = seen.getStaffID();
+		for(int i = 0; i < staffIDs.size(); i++) {
+			Staff member = findStaff(staffIDs.get(i));
+			if(member != null) {
+				staff.add(member);
+			}
+		}
+		return staff;
+	}
+
+	/**
+	 * Method to find courses a staff member is on. Checks every course
+	 * @param staff live staff member or one from this snapshot
+	 * @return courses as of this version
+	 */
+	public ArrayList<Course> findStaffCourses(Staff staff) {
+
+		ArrayList<Course> courses = new ArrayList<Course>();
+		for(Course course : returnCourseList()) {
+			if(course.getStaffID().contains(staff.getID())) {
+				courses.add(course);
+			}
+		}
+		return courses;
+	}
+
+	/**
+	 * Method to close snapshot, letting the versions it holds be reclaimed.
+	 * Closing more than once does nothing
+	 */
+	public void close() {
+
+		synchronized(this) {
+			if(closed) {
+				return;
+			}
+			closed = true;
+		}
+		if(versions != null) {
+			versions.close(version);
+		}
+	}
+}
@@ -0,0 +1,323 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Index of IDs by name, ignoring case. Each distinct name is stored once
+ * and given a code; the IDs with that name are kept against the code.
+ * Codes are kept in an array sorted by name, so names starting with a
+ * prefix are found by binary search. Names added since the array was
+ * last sorted wait in a pending list that prefix lookups also check.
+ * A lookup that finds more than a few pending merges them in first, so
+ * adding a name stays cheap and a bulk load is sorted once. Each name
+ * also keeps its first characters packed into a long, so most
+ * comparisons while sorting never look at the Strings.
+ * Lookups may run at the same time as each other, but not with add,
+ * remove or clear. A lookup that merges holds the index's lock while
+ * it does, and the merge makes new arrays, so other lookups keep
+ * reading the ones they started with.
+ *
+ * Public methods:
+ * 	public void add(String name, int ID)
+ * 	public void remove(String name, int ID)
+ * 	public IntView find(String name)
+ * 	public int[] findPrefix(String prefix, int limit)
+ * 	public void clear()
+ */
+public class NameIndex {
+
+	/**
+	 * Pending names a prefix lookup checks one by one before merging them
+	 */
+	private static final int PENDING = 1024;
+
+	private static final IntView NONE = new IntSet(1).view();
+
+	private HashMap<String, Integer> codes = new HashMap<String, Integer>(); // name to code
+	private String[] keys = new String[16]; // name of each code, lower case
+	private long[] leads = new long[16]; // first characters of each name, packed to compare in order
+	private IntSet[] ids = new IntSet[16]; // IDs with each name
+	private int count; // codes given out
+
+	private int[] sorted = new int[16]; // codes in name order
+	private int sortedCount;
+	private int[] pending = new int[16]; // codes not yet in sorted
+	private int pendingCount;
+
+	/**
+	 * Method to add ID under name
+	 * @param name
+	 * @param ID
+	 */
+	public void add(String name, int ID) {
+
+		String key = key(name);
+		Integer code = codes.get(key);
+
+		if (code == null) {
+			code = newCode(key);
+		}
+		ids[code].add(ID);
+	}
+
+	/**
+	 * Method to remove ID from under name. The name keeps its code, with no IDs
+	 * @param name
+	 * @param ID
+	 */
+	public void remove(String name, int ID) {
+
+		Integer code = codes.get(key(name));
+		if (code != null) {
+			ids[code].remove(ID);
+		}
+	}
+
+	/**
+	 * Method to find IDs with name, ignoring case
+	 * @param name
+	 * @return read-only view of IDs, empty if none
+	 */
+	public IntView find(String name) {
+
+		Integer code = codes.get(key(name));
+		return code == null ? NONE : ids[code].view();
+	}
+
+	/**
+	 * Method to find IDs whose names start with prefix, ignoring case
+	 * @param prefix
+	 * @param limit most IDs to return
+	 * @return IDs in name order
+	 */
+	public int[] findPrefix(String prefix, int limit) {
+
+		int[] sorted;
+		int sortedCount;
+		int[] pending;
+		int pendingCount;
+		synchronized (this) {
+			if (this.pendingCount > PENDING) {
+				merge();
+			}
+			sorted = this.sorted;
+			sortedCount = this.sortedCount;
+			pending = this.pending;
+			pendingCount = this.pendingCount;
+		}
+
+		String key = key(prefix);
+		ArrayList<Integer> matches = new ArrayList<Integer>();
+
+		// Codes from the sorted array are already in order and can stop at limit
+		int names = 0;
+		for (int i = lowerBound(sorted, sortedCount, key); i < sortedCount && names < limit; i++) {
+			int code = sorted[i];
+			if (!keys[code].startsWith(key)) {
+				break;
+			}
+			if (!ids[code].isEmpty()) {
+				matches.add(code);
+				names += ids[code].size();
+			}
+		}
+
+		boolean merged = false;
+		for (int i = 0; i < pendingCount; i++) {
+			int code = pending[i];
+			if (keys[code].startsWith(key) && !ids[code].isEmpty()) {
+				matches.add(code);
+				merged = true;
+			}
+		}
+		if (merged) {
+			matches.sort(this::compare);
+		}
+
+		int[] result = new int[Math.min(limit, countIDs(matches))];
+		int n = 0;
+		for (int code : matches) {
+			for (int i = 0; i < ids[code].size() && n < result.length; i++) {
+				result[n++] = ids[code].get(i);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Method to remove all names
+	 */
+	public void clear() {
+		codes.clear();
+		keys = new String[16];
+		leads = new long[16];
+		ids = new IntSet[16];
+		count = 0;
+		sorted = new int[16];
+		sortedCount = 0;
+		pending = new int[16];
+		pendingCount = 0;
+	}
+
+	/**
+	 * Gives name the next code, adding it to the pending list
+	 * @param key lower case name
+	 * @return code
+	 */
+	private int newCode(String key) {
+
+		if (count == keys.length) {
+			keys = Arrays.copyOf(keys, count * 2);
+			leads = Arrays.copyOf(leads, count * 2);
+			ids = Arrays.copyOf(ids, count * 2);
+		}
+
+		int code = count++;
+		keys[code] = key;
+		leads[code] = lead(key);
+		ids[code] = new IntSet(1);
+		codes.put(key, code);
+
+		if (pendingCount == pending.length) {
+			pending = Arrays.copyOf(pending, pendingCount * 2);
+		}
+		pending[pendingCount++] = code;
+		return code;
+	}
+
+	/**
+	 * Sorts pending codes and merges them into the sorted array
+	 */
+	private void merge() {
+
+		int[] adding = Arrays.copyOf(pending, pendingCount);
+		sort(adding, new int[adding.length], 0, adding.length);
+
+		int[] merged = new int[sortedCount + pendingCount];
+		int i = 0;
+		int j = 0;
+		int n = 0;
+		while (i < sortedCount || j < adding.length) {
+			if (j == adding.length || (i < sortedCount && compare(sorted[i], adding[j]) <= 0)) {
+				merged[n++] = sorted[i++];
+			} else {
+				merged[n++] = adding[j++];
+			}
+		}
+
+		sorted = merged;
+		sortedCount = n;
+		pending = new int[16];
+		pendingCount = 0;
+	}
+
+	/**
+	 * Merge sort of codes by name, using work for merging
+	 * @param codes codes to sort
+	 * @param work scratch array as long as codes
+	 * @param from first position
+	 * @param to position after last
+	 */
+	private void sort(int[] codes, int[] work, int from, int to) {
+
+		if (to - from < 16) {
+			for (int i = from + 1; i < to; i++) {
+				int code = codes[i];
+				int j = i;
+				while (j > from && compare(codes[j - 1], code) > 0) {
+					codes[j] = codes[j - 1];
+					j--;
+				}
+				codes[j] = code;
+			}
+			return;
+		}
+
+		int middle = (from + to) >>> 1;
+		sort(codes, work, from, middle);
+		sort(codes, work, middle, to);
+		if (compare(codes[middle - 1], codes[middle]) <= 0) {
+			return;
+		}
+
+		System.arraycopy(codes, from, work, from, to - from);
+		int i = from;
+		int j = middle;
+		for (int n = from; n < to; n++) {
+			if (j == to || (i < middle && compare(work[i], work[j]) <= 0)) {
+				codes[n] = work[i++];
+			} else {
+				codes[n] = work[j++];
+			}
+		}
+	}
+
+	/**
+	 * Compares names of two codes, by packed first characters and then in full
+	 * @return negative, zero or positive as for String.compareTo
+	 */
+	private int compare(int a, int b) {
+		int lead = Long.compareUnsigned(leads[a], leads[b]);
+		return lead != 0 ? lead : keys[a].compareTo(keys[b]);
+	}
+
+	/**
+	 * Binary search for first sorted name not before key
+	 * @param sorted codes in name order
+	 * @param sortedCount codes in use
+	 * @param key lower case prefix
+	 * @return position in sorted array
+	 */
+	private int lowerBound(int[] sorted, int sortedCount, String key) {
+
+		int low = 0;
+		int high = sortedCount;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (keys[sorted[middle]].compareTo(key) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Counts IDs under codes
+	 * @param matches codes
+	 * @return total IDs
+	 */
+	private int countIDs(ArrayList<Integer> matches) {
+		int total = 0;
+		for (int code : matches) {
+			total += ids[code].size();
+		}
+		return total;
+	}
+
+	/**
+	 * Packs first four characters of key into a long, sixteen bits each,
+	 * missing ones as 0. Longs compared unsigned are then in the same order
+	 * as the keys, except that keys with equal longs must be compared in full
+	 * @param key lower case name
+	 * @return packed characters
+	 */
+	private static long lead(String key) {
+		long lead = 0;
+		for (int i = 0; i < 4; i++) {
+			lead = lead << 16 | (i < key.length() ? key.charAt(i) : 0);
+		}
+		return lead;
+	}
+
+	/**
+	 * Lower case form names are compared in
+	 * @param name
+	 * @return key
+	 */
+	private static String key(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+}
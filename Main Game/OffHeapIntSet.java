@@ -0,0 +1,202 @@
+/**
+ * Set of primitive ints kept in an IntArena outside the heap, made by
+ * IntArena.newSet. Values are packed at the start of the set's region,
+ * which doubles in size when full. Lookups scan the values, which is
+ * quick for the handful of staff a course holds.
+ * Removing a value moves the last value into its place.
+ * Growing one set may pack the arena and move every other set, so each
+ * call holds the arena's lock, and sets in one arena can be used from
+ * several threads at once.
+ *
+ * Public methods:
+ * 	public boolean add(int value)
+ * 	public boolean remove(int value)
+ * 	public boolean contains(int value)
+ * 	public int size()
+ * 	public int get(int i)
+ * 	public void clear()
+ * 	public IntView view()
+ * 	public void release()
+ */
+public class OffHeapIntSet extends IntCollection {
+
+	private final IntArena arena; //arena holding the values
+	int offset; //start of region in arena, changed when the arena packs
+	int capacity; //ints in region
+	int handle; //position in arena's list of sets, -1 once released
+	private int size; //number of values
+
+	/**
+	 * Constructor
+	 * @param arena arena holding the values
+	 * @param offset start of region
+	 * @param capacity ints in region
+	 */
+
+	OffHeapIntSet(IntArena arena, int offset, int capacity) {
+		this.arena = arena;
+		this.offset = offset;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Method to add value
+	 * @param value
+	 * @return true if added, false if already present
+	 */
+
+	public boolean add(int value) {
+
+		synchronized (arena) {
+			if (contains(value)) {
+				return false;
+			}
+
+			if (size == capacity) {
+				grow();
+			}
+
+			arena.put(offset + size, value);
+			size++;
+			return true;
+		}
+	}
+
+	/**
+	 * Method to remove value
+	 * @param value
+	 * @return true if removed, false if not present
+	 */
+
+	public boolean remove(int value) {
+
+		synchronized (arena) {
+			int pos = indexOf(value);
+
+			if (pos < 0) {
+				return false;
+			}
+
+			// Move last value into the hole
+			size--;
+			arena.put(offset + pos, arena.get(offset + size));
+			return true;
+		}
+	}
+
+	/**
+	 * Method to check if value is present
+	 * @param value
+	 * @return true if present
+	 */
+
+	public boolean contains(int value) {
+		synchronized (arena) {
+			return indexOf(value) >= 0;
+		}
+	}
+
+	/**
+	 * Method to get number of values
+	 * @return number of values
+	 */
+
+	public int size() {
+		synchronized (arena) {
+			return size;
+		}
+	}
+
+	/**
+	 * Method to get value at position
+	 * @param i position from 0 to size() - 1
+	 * @return value
+	 */
+
+	public int get(int i) {
+		synchronized (arena) {
+			if (i < 0 || i >= size) {
+				throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+			}
+			return arena.get(offset + i);
+		}
+	}
+
+	/**
+	 * Method to remove all values
+	 */
+
+	public void clear() {
+		synchronized (arena) {
+			size = 0;
+		}
+	}
+
+	/**
+	 * Method to get read-only view of this set, updated as the set changes.
+	 * A new view is made each time so no object is kept per set
+	 * @return read-only view
+	 */
+
+	public IntView view() {
+
+		return new IntView() {
+
+			public int size() {
+				return OffHeapIntSet.this.size();
+			}
+
+			public int get(int i) {
+				return OffHeapIntSet.this.get(i);
+			}
+
+			public boolean contains(int value) {
+				return OffHeapIntSet.this.contains(value);
+			}
+		};
+	}
+
+	/**
+	 * Method to give region back to the arena, the set must not be used after
+	 */
+
+	public void release() {
+		synchronized (arena) {
+			if (handle >= 0) {
+				arena.remove(this);
+				size = 0;
+			}
+		}
+	}
+
+	/**
+	 * Finds position of value
+	 * @param value
+	 * @return position, -1 if not present
+	 */
+
+	private int indexOf(int value) {
+		for (int i = 0; i < size; i++) {
+			if (arena.get(offset + i) == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Moves values to a region twice the size
+	 */
+
+	private void grow() {
+
+		// Reserving may pack the arena and move this region, so offset is read after
+		int grown = arena.reserve(capacity * 2);
+		for (int i = 0; i < size; i++) {
+			arena.put(grown + i, arena.get(offset + i));
+		}
+		arena.unreserve(capacity);
+		offset = grown;
+		capacity *= 2;
+	}
+}
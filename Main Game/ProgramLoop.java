@@ -1,3 +1,7 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Controller class for teaching requirements program
  * @author Aaron Callaghan
@@ -12,11 +16,21 @@ public class ProgramLoop {
 	private static Controller controller;
 	
 	/**
-	 * Main program loop
+	 * Main program loop, or the ApiServer with no menus if started with --server [port]
 	 * @param args0
 	 */
 	public static void main(String[] args0) {
 		
+		// Runs headless for scheduling tools instead of the menus
+		if(args0.length > 0 && args0[0].equals("--server")) {
+			try {
+				ApiServer.main(Arrays.copyOfRange(args0, 1, args0.length));
+			} catch(IOException e) {
+				System.out.println("Could not start server: " + e.getMessage());
+			}
+			return;
+		}
+		
 		// Initialises new model
 		Model model = new Model();
 		// Initialises view		
@@ -41,8 +55,13 @@ public class ProgramLoop {
 			// Activates user menu loop based on user choice			
 			case 0:
 			
-				// Writes to file and ends program
-				controller.exit();
+				// Starts writing to file and ends program straight away
+				CompletableFuture<Boolean> saved = controller.exit();
+				// Waits for the files to be on disk as the program shuts down
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+					saved.join();
+					model.close();
+				}));
 				// Exits main loop
 				quit = true;
 				break;
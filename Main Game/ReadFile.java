@@ -65,7 +65,11 @@ public class ReadFile {
 		ArrayList<Course> tempCourseList = new ArrayList<Course>();
 		
 		while (file.hasNextLine()) {
-			String[] current = file.nextLine().split(" ");
+			String line = file.nextLine();
+			if (line.trim().isEmpty()) { // slots blanked by SlotWriteFile hold no course
+				continue;
+			}
+			String[] current = line.split(" ");
 				int id = Integer.parseInt(current[0]);
 				// (TEST)System.out.println(id);
 				String name = current[1];
@@ -77,7 +81,7 @@ public class ReadFile {
 				int assignedStaff = Integer.parseInt(current[4]);
 				// (TEST) System.out.println(assignedStaff);
 				
-				ArrayList<Integer> staffId = new ArrayList<Integer>();
+				IntSet staffId = new IntSet(Math.max(current.length - 5, 1));
 				// once defined size elements are read, a second while loop runs through staff id associated with each course
       			// these are variable in length as such hasNextInt() condition ensures all will be read and added to courses
 				for (int i= 5; i<current.length; i++) {
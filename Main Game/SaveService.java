@@ -0,0 +1,93 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * SaveService class, writes staff and course files on worker threads so
+ * callers get a future back straight away instead of waiting on disk.
+ * The two files of a save are written at the same time. Saves run one
+ * after another in the order asked for, and each snapshot is only taken
+ * once the save before it has finished, so it sees that save's result.
+ * Workers are daemon threads; whoever needs a save on disk before the
+ * program ends must wait on its future, for example in a shutdown hook.
+ *
+ * public CompletableFuture<Boolean> save(Supplier<Snapshot> snapshot)
+ *
+ */
+public class SaveService {
+
+	/**
+	 * Consistent copy of the data to save, taken when its save starts
+	 */
+	public interface Snapshot {
+
+		/**
+		 * Method to write staff file
+		 * @return true if file written and forced to disk
+		 */
+		boolean writeStaff();
+
+		/**
+		 * Method to write course file
+		 * @return true if file written and forced to disk
+		 */
+		boolean writeCourses();
+
+		/**
+		 * Method called once both files have been written or failed
+		 * @param written true if both files were written
+		 */
+		void finish(boolean written);
+	}
+
+	/**
+	 * One worker for each file
+	 */
+	private final ExecutorService workers = Executors.newFixedThreadPool(2, task -> {
+		Thread thread = new Thread(task, "save");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Last save asked for, the next one starts after it
+	 */
+	private CompletableFuture<Boolean> last = CompletableFuture.completedFuture(true);
+
+	/**
+	 * Method to save in the background
+	 * @param snapshot takes the snapshot to write when the save starts
+	 * @return future completed with true once both files are on disk
+	 */
+	public synchronized CompletableFuture<Boolean> save(Supplier<Snapshot> snapshot) {
+
+		last = last.handle((previous, failure) -> null).thenComposeAsync(ignored -> {
+
+			Snapshot files = snapshot.get();
+			CompletableFuture<Boolean> staff = write(files::writeStaff);
+			CompletableFuture<Boolean> courses = write(files::writeCourses);
+
+			return staff.thenCombine(courses, (staffWritten, coursesWritten) -> {
+				boolean written = staffWritten && coursesWritten;
+				files.finish(written);
+				return written;
+			});
+		}, workers);
+
+		return last;
+	}
+
+	/**
+	 * Writes one file on a worker, treating an unexpected exception as a failed write
+	 * @param file writes the file
+	 * @return future completed with true if file written
+	 */
+	private CompletableFuture<Boolean> write(Supplier<Boolean> file) {
+
+		return CompletableFuture.supplyAsync(file, workers).exceptionally(failure -> {
+			failure.printStackTrace();
+			return false;
+		});
+	}
+}
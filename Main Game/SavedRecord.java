@@ -0,0 +1,37 @@
+
+/**
+ * Interface for records saved by SlotWriteFile, lets it find which
+ * records changed since the last save and where each one is in the file
+ *
+ * Public methods:
+ * 	public int getSlot()
+ * 	public void setSlot(int slot)
+ * 	public boolean isDirty()
+ * 	public void setDirty(boolean dirty)
+ */
+public interface SavedRecord {
+
+	/**
+	 * Method to get number of record's slot in its file
+	 * @return slot, -1 if never saved
+	 */
+	public int getSlot();
+
+	/**
+	 * Method to set number of record's slot in its file
+	 * @param slot
+	 */
+	public void setSlot(int slot);
+
+	/**
+	 * Method to check if record changed since last save
+	 * @return true if changed
+	 */
+	public boolean isDirty();
+
+	/**
+	 * Method to mark record as changed or saved
+	 * @param dirty
+	 */
+	public void setDirty(boolean dirty);
+}
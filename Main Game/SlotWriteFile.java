@@ -0,0 +1,605 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.ToIntFunction;
+import java.util.zip.CRC32;
+
+/**
+ * SlotWriteFile class, writes the same text format as WriteFile but pads
+ * every line with spaces, giving each record its own slot in the file.
+ * Each slot is sized from its record's line plus a quarter again, so
+ * later saves only rewrite the records that are dirty and append new
+ * ones instead of rewriting the whole file. A record that outgrows its
+ * slot is moved to the end of the file and its old slot blanked out.
+ * The readers skip the padding and blank lines as ordinary whitespace.
+ * The file is rewritten in full when it is first saved, when most
+ * records changed, or when blanked slots take up half of it.
+ * Lines are encoded by TextEncoder straight into the slot buffers.
+ * An incremental save writes the slots it changes in place. They are
+ * first written to a slot log next to the file and forced, so a crash
+ * part way through is finished by recover on the next start up, and a
+ * torn log is thrown away with the file still untouched. A full rewrite
+ * goes to a temporary file renamed into place by AtomicFile.
+ *
+ * public boolean staffToFile(String destination, ArrayList<Staff> staffList)
+ * public boolean courseToFile(String destination, ArrayList<Course> courseList)
+ * public static boolean recover(String destination)
+ *
+ */
+public class SlotWriteFile {
+
+	/**
+	 * Line separator bytes
+	 */
+	private static final byte[] NEWLINE = TextEncoder.NEWLINE;
+
+	/**
+	 * Least room left after a record's line for it to grow into
+	 */
+	private static final int MIN_SLACK = 8;
+
+	/**
+	 * Bytes after the last slot image in a slot log: image count and CRC32
+	 */
+	private static final int TRAILER = Integer.BYTES + Long.BYTES;
+
+	/**
+	 * Slot positions of each file saved or checked by this writer
+	 */
+	private HashMap<String, Layout> layouts = new HashMap<String, Layout>();
+
+	/**
+	 * Where each slot of one file is. Slots keep their number when a
+	 * record is moved, so only the position changes
+	 */
+	private static class Layout {
+
+		long[] positions = new long[16]; // first byte of each slot
+		int[] strides = new int[16]; // bytes in each slot, line separator included
+		int count; // number of slots in file
+		long end; // size of file
+		long blank; // bytes in slots blanked out by moves or lines not holding a record
+
+		/**
+		 * Adds a slot after the last one
+		 * @param position first byte of slot
+		 * @param stride bytes in slot
+		 * @return slot number
+		 */
+		int add(long position, int stride) {
+			if (count == positions.length) {
+				positions = Arrays.copyOf(positions, count * 2);
+				strides = Arrays.copyOf(strides, count * 2);
+			}
+			positions[count] = position;
+			strides[count] = stride;
+			end = Math.max(end, position + stride);
+			return count++;
+		}
+	}
+
+	/**
+	 * Method to save staff list to file
+	 * @param destination path of staff file
+	 * @param staffList staff to be committed to file
+	 * @return true if file written and forced to disk
+	 */
+	public boolean staffToFile(String destination, ArrayList<Staff> staffList) {
+		return save(destination, staffList, TextEncoder::staffLength, TextEncoder::putStaff);
+	}
+
+	/**
+	 * Method to save course list to file
+	 * @param destination path of course file
+	 * @param courseList courses to be committed to file
+	 * @return true if file written and forced to disk
+	 */
+	public boolean courseToFile(String destination, ArrayList<Course> courseList) {
+		return save(destination, courseList, TextEncoder::courseLength, TextEncoder::putCourse);
+	}
+
+	/**
+	 * Encodes a record into a buffer, such as TextEncoder.putStaff
+	 */
+	private interface LineWriter<T> {
+		void put(ByteBuffer buffer, T record);
+	}
+
+	/**
+	 * Method to finish an incremental save cut short by a crash. Called
+	 * before the file is read. A complete slot log is written into the
+	 * file again, a torn one was never started on and is thrown away
+	 * @param destination file path
+	 * @return true if the file was changed
+	 */
+	public static boolean recover(String destination) {
+
+		Path logPath = Paths.get(log(destination));
+		try {
+			if (!Files.isRegularFile(logPath)) {
+				return false;
+			}
+
+			boolean applied = false;
+			try (FileChannel logChannel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+				ArrayList<Long> positions = new ArrayList<Long>();
+				ArrayList<ByteBuffer> images = new ArrayList<ByteBuffer>();
+				if (readLog(logChannel, positions, images) && Files.isRegularFile(Paths.get(destination))) {
+					try (FileChannel channel = FileChannel.open(Paths.get(destination), StandardOpenOption.WRITE)) {
+						apply(channel, positions, images);
+					}
+					applied = true;
+				}
+				clear(logChannel);
+			}
+
+			Files.delete(logPath);
+			return applied;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Rewrites dirty records in place and appends new ones, falling back
+	 * to a full rewrite when the file's layout cannot be used
+	 * @param destination file path
+	 * @param records records in list order
+	 * @param length gives encoded length of a record's line
+	 * @param line encodes a record's line
+	 * @return true if file written and forced to disk
+	 */
+	private <T extends SavedRecord> boolean save(String destination, ArrayList<T> records, ToIntFunction<T> length, LineWriter<T> line) {
+
+		Layout layout;
+
+		// A log left by a failed save must be in the file before slots are found
+		recover(destination);
+
+		try {
+			layout = layout(destination, records);
+			ArrayList<T> changed = layout == null ? null : changed(layout, records, length);
+
+			if (changed != null) {
+				update(destination, layout, changed, length, line);
+			} else {
+				String temp = AtomicFile.temp(destination);
+				try (FileChannel channel = AtomicFile.create(temp)) {
+					layout = rewrite(channel, records, length, line);
+					channel.force(true);
+				}
+				AtomicFile.replace(temp, destination);
+			}
+
+			layouts.put(destination, layout);
+		} catch (IOException e) {
+			e.printStackTrace();
+			layouts.remove(destination);
+			return false;
+		}
+
+		// Records are only clean once they are on disk
+		for (T record : records) {
+			record.setDirty(false);
+		}
+		return true;
+	}
+
+	/**
+	 * Finds layout of file, checking it still matches the records.
+	 * A file not saved by this writer is accepted if it has one line per
+	 * record read from it, not counting blank lines
+	 * @param destination file path
+	 * @param records records in list order
+	 * @return layout, null if file must be rewritten in full
+	 */
+	private <T extends SavedRecord> Layout layout(String destination, ArrayList<T> records) throws IOException {
+
+		if (!Files.isRegularFile(Paths.get(destination))) {
+			return null;
+		}
+
+		try (FileChannel channel = FileChannel.open(Paths.get(destination), StandardOpenOption.READ)) {
+			return layout(destination, channel, records);
+		}
+	}
+
+	/**
+	 * Finds layout of open file
+	 * @param destination file path
+	 * @param channel file open for reading
+	 * @param records records in list order
+	 * @return layout, null if file must be rewritten in full
+	 */
+	private <T extends SavedRecord> Layout layout(String destination, FileChannel channel, ArrayList<T> records) throws IOException {
+
+		long size = channel.size();
+		int slots = 0;
+		int last = -1;
+		for (T record : records) {
+			if (record.getSlot() >= 0) {
+				slots++;
+				last = Math.max(last, record.getSlot());
+			}
+		}
+
+		Layout layout = layouts.get(destination);
+		if (layout != null) {
+			return layout.count == slots && size == layout.end ? layout : null;
+		}
+
+		if (size == 0 || slots == 0 || size > Integer.MAX_VALUE) {
+			return null;
+		}
+
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+		// Readers number records in file order skipping blank lines, so slots do the same
+		layout = new Layout();
+		int start = 0;
+		boolean blank = true;
+		for (int i = 0; i < size; i++) {
+
+			byte b = buffer.get(i);
+			if (b != '\n') {
+				blank &= b == ' ' || b == '\t' || b == '\r';
+				continue;
+			}
+
+			if (blank) {
+				layout.blank += i + 1 - start;
+			} else {
+				layout.add(start, i + 1 - start);
+			}
+			start = i + 1;
+			blank = true;
+		}
+
+		if (start != size || layout.count != slots || last >= slots) {
+			return null;
+		}
+
+		layout.end = size;
+		return layout;
+	}
+
+	/**
+	 * Finds records to write in an incremental save
+	 * @param layout layout of file
+	 * @param records records in list order
+	 * @param length gives encoded length of a record's line
+	 * @return dirty and new records, null if a full rewrite is needed instead
+	 */
+	private <T extends SavedRecord> ArrayList<T> changed(Layout layout, ArrayList<T> records, ToIntFunction<T> length) {
+
+		ArrayList<T> changed = new ArrayList<T>();
+		for (T record : records) {
+			if (record.isDirty() || record.getSlot() < 0) {
+				changed.add(record);
+			}
+		}
+
+		// Rewriting most of the file is quicker done in one pass
+		if (changed.size() * 2 > records.size()) {
+			return null;
+		}
+
+		// Records moved to the end leave their old slots blank
+		long blank = layout.blank;
+		for (T record : changed) {
+			int slot = record.getSlot();
+			if (slot >= 0 && length.applyAsInt(record) + NEWLINE.length > layout.strides[slot]) {
+				blank += layout.strides[slot];
+			}
+		}
+
+		// Half the file blank is compacted by rewriting it
+		if (blank * 2 > layout.end) {
+			return null;
+		}
+
+		return changed;
+	}
+
+	/**
+	 * Writes changed records into their slots. New records and records
+	 * grown too big for their slot get a new slot after the last one.
+	 * The slot images are forced to the slot log before the file is
+	 * touched, and the log is cleared once the file is forced
+	 * @param destination file path
+	 * @param layout layout of file
+	 * @param changed dirty and new records in list order
+	 * @param length gives encoded length of a record's line
+	 * @param line encodes a record's line
+	 */
+	private <T extends SavedRecord> void update(String destination, Layout layout, ArrayList<T> changed, ToIntFunction<T> length, LineWriter<T> line) throws IOException {
+
+		ArrayList<Long> positions = new ArrayList<Long>(changed.size());
+		ArrayList<ByteBuffer> images = new ArrayList<ByteBuffer>(changed.size());
+
+		for (int i = 0; i < changed.size(); i++) {
+
+			T record = changed.get(i);
+			int size = length.applyAsInt(record);
+
+			if (record.getSlot() < 0) {
+				record.setSlot(layout.add(layout.end, stride(size)));
+			} else if (size + NEWLINE.length > layout.strides[record.getSlot()]) {
+
+				// Blank out old slot and move record to the end
+				int number = record.getSlot();
+				positions.add(layout.positions[number]);
+				images.add(blank(ByteBuffer.allocate(layout.strides[number]), layout.strides[number]));
+				layout.blank += layout.strides[number];
+
+				layout.positions[number] = layout.end;
+				layout.strides[number] = stride(size);
+				layout.end += layout.strides[number];
+			}
+
+			positions.add(layout.positions[record.getSlot()]);
+			images.add(fill(ByteBuffer.allocate(layout.strides[record.getSlot()]), layout.strides[record.getSlot()], record, line));
+		}
+
+		// Log first, so a crash while the file is being written can be finished
+		String temp = AtomicFile.temp(log(destination));
+		try (FileChannel logChannel = AtomicFile.create(temp)) {
+			writeLog(logChannel, positions, images);
+			logChannel.force(true);
+		}
+		AtomicFile.replace(temp, log(destination));
+
+		try (FileChannel channel = FileChannel.open(Paths.get(destination), StandardOpenOption.WRITE)) {
+			apply(channel, positions, images);
+		}
+
+		try (FileChannel logChannel = FileChannel.open(Paths.get(log(destination)), StandardOpenOption.WRITE)) {
+			clear(logChannel);
+		}
+		Files.delete(Paths.get(log(destination)));
+	}
+
+	/**
+	 * Gives path of slot log kept while a file is updated in place
+	 * @param destination file path
+	 * @return log path in the same directory
+	 */
+	private static String log(String destination) {
+		return destination + ".slots";
+	}
+
+	/**
+	 * Writes slot images to log: position, length and bytes of each,
+	 * then the image count and a CRC32 of everything before it
+	 * @param channel empty log
+	 * @param positions where each image goes in the file
+	 * @param images slot images ready to write
+	 */
+	private static void writeLog(FileChannel channel, ArrayList<Long> positions, ArrayList<ByteBuffer> images) throws IOException {
+
+		CRC32 crc = new CRC32();
+		ByteBuffer header = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+
+		for (int i = 0; i < images.size(); i++) {
+
+			ByteBuffer image = images.get(i);
+			header.clear();
+			header.putLong(positions.get(i)).putInt(image.remaining()).flip();
+			crc.update(header.duplicate());
+			crc.update(image.duplicate());
+			append(channel, header);
+			append(channel, image.duplicate());
+		}
+
+		ByteBuffer trailer = ByteBuffer.allocate(TRAILER);
+		trailer.putInt(images.size()).putLong(crc.getValue()).flip();
+		append(channel, trailer);
+	}
+
+	/**
+	 * Reads slot images back from a log, checking it is complete
+	 * @param channel log
+	 * @param positions list positions are added to
+	 * @param images list images are added to
+	 * @return false if the log is torn or empty, lists are then left empty
+	 */
+	private static boolean readLog(FileChannel channel, ArrayList<Long> positions, ArrayList<ByteBuffer> images) throws IOException {
+
+		long size = channel.size();
+		if (size < TRAILER || size > Integer.MAX_VALUE) {
+			return false;
+		}
+
+		ByteBuffer log = ByteBuffer.allocate((int) size);
+		while (log.hasRemaining()) {
+			if (channel.read(log, log.position()) < 0) {
+				return false;
+			}
+		}
+		log.flip();
+
+		CRC32 crc = new CRC32();
+		crc.update(log.duplicate().limit(log.limit() - TRAILER));
+		int count = log.getInt(log.limit() - TRAILER);
+		if (crc.getValue() != log.getLong(log.limit() - Long.BYTES)) {
+			return false;
+		}
+
+		log.limit(log.limit() - TRAILER);
+		while (log.remaining() >= Long.BYTES + Integer.BYTES) {
+			long position = log.getLong();
+			int length = log.getInt();
+			if (length < 0 || length > log.remaining()) {
+				break;
+			}
+			ByteBuffer image = log.slice().limit(length);
+			log.position(log.position() + length);
+			positions.add(position);
+			images.add(image);
+		}
+
+		if (images.size() != count || log.hasRemaining()) {
+			positions.clear();
+			images.clear();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes slot images into the file and forces it. Images are left
+	 * unread so the same ones can be written again
+	 * @param channel file open for writing
+	 * @param positions where each image goes
+	 * @param images slot images
+	 */
+	private static void apply(FileChannel channel, ArrayList<Long> positions, ArrayList<ByteBuffer> images) throws IOException {
+
+		for (int i = 0; i < images.size(); i++) {
+			write(channel, images.get(i).duplicate(), positions.get(i));
+		}
+		channel.force(false);
+	}
+
+	/**
+	 * Empties a log and forces it, so a delete lost in a crash cannot
+	 * bring old images back
+	 * @param channel log
+	 */
+	private static void clear(FileChannel channel) throws IOException {
+		channel.truncate(0);
+		channel.force(true);
+	}
+
+	/**
+	 * Rewrites every record, each in a slot sized from its own line
+	 * @param channel open file
+	 * @param records records in list order
+	 * @param length gives encoded length of a record's line
+	 * @param line encodes a record's line
+	 * @return new layout
+	 */
+	private <T extends SavedRecord> Layout rewrite(FileChannel channel, ArrayList<T> records, ToIntFunction<T> length, LineWriter<T> line) throws IOException {
+
+		Layout layout = new Layout();
+		ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		ByteBuffer slot = ByteBuffer.allocate(256);
+
+		for (int i = 0; i < records.size(); i++) {
+
+			T record = records.get(i);
+			int stride = stride(length.applyAsInt(record));
+			record.setSlot(layout.add(layout.end, stride));
+			slot = fill(slot, stride, record, line);
+
+			if (buffer.remaining() < stride) {
+				drain(channel, buffer);
+			}
+			if (stride > buffer.capacity()) {
+				while (slot.hasRemaining()) {
+					channel.write(slot);
+				}
+			} else {
+				buffer.put(slot);
+			}
+		}
+		drain(channel, buffer);
+
+		return layout;
+	}
+
+	/**
+	 * Gives slot size for a line, leaving a quarter of it again to grow into
+	 * @param length encoded length of line
+	 * @return bytes in slot, line separator included
+	 */
+	private static int stride(int length) {
+		return length + Math.max(MIN_SLACK, length / 4) + NEWLINE.length;
+	}
+
+	/**
+	 * Puts line, space padding and separator in slot buffer ready to write
+	 * @param slot buffer to reuse, replaced if smaller than stride
+	 * @param stride bytes in slot
+	 * @param record record to encode, must fit in slot
+	 * @param line encodes a record's line
+	 * @return buffer holding slot
+	 */
+	private static <T> ByteBuffer fill(ByteBuffer slot, int stride, T record, LineWriter<T> line) {
+		slot = slot.capacity() < stride ? ByteBuffer.allocate(stride) : slot;
+		slot.clear().limit(stride);
+		line.put(slot, record);
+		pad(slot);
+		return slot;
+	}
+
+	/**
+	 * Puts a blank line in slot buffer ready to write
+	 * @param slot buffer to reuse, replaced if smaller than stride
+	 * @param stride bytes in slot
+	 * @return buffer holding slot
+	 */
+	private static ByteBuffer blank(ByteBuffer slot, int stride) {
+		slot = slot.capacity() < stride ? ByteBuffer.allocate(stride) : slot;
+		slot.clear().limit(stride);
+		pad(slot);
+		return slot;
+	}
+
+	/**
+	 * Fills rest of slot with spaces and the line separator, ready to write
+	 * @param slot buffer limited to slot size
+	 */
+	private static void pad(ByteBuffer slot) {
+		while (slot.remaining() > NEWLINE.length) {
+			slot.put((byte) ' ');
+		}
+		slot.put(NEWLINE).flip();
+	}
+
+	/**
+	 * Writes all of buffer at a position in channel
+	 * @param channel
+	 * @param buffer
+	 * @param position
+	 */
+	private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	/**
+	 * Writes all of buffer at channel position
+	 * @param channel
+	 * @param buffer
+	 */
+	private static void append(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Writes buffer contents at channel position and clears it
+	 * @param channel
+	 * @param buffer
+	 */
+	private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
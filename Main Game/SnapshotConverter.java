@@ -0,0 +1,50 @@
+import java.util.ArrayList;
+
+/**
+ * Converts staff and course files between the text format and the
+ * binary snapshot format. The format of the input file is detected,
+ * the output is written in the other format.
+ *
+ *	public methods:
+ *		public static void main(String[] args)
+ *		public static boolean convert(String kind, String source, String destination)
+ */
+public class SnapshotConverter {
+
+	/**
+	 * Usage: SnapshotConverter staff|course source destination
+	 * @param args
+	 */
+	public static void main(String[] args) {
+
+		if (args.length != 3 || !(args[0].equals("staff") || args[0].equals("course"))) {
+			System.out.println("Usage: SnapshotConverter staff|course <source> <destination>");
+			return;
+		}
+
+		if (!convert(args[0], args[1], args[2])) {
+			System.out.println("Conversion failed");
+		}
+	}
+
+	/**
+	 * Method to convert file to the other format
+	 * @param kind "staff" or "course"
+	 * @param source file to read, text or binary
+	 * @param destination file to write in the other format
+	 * @return true if written
+	 */
+	public static boolean convert(String kind, String source, String destination) {
+
+		boolean binary = BinaryReadFile.isBinary(source);
+
+		if (kind.equals("staff")) {
+
+			ArrayList<Staff> staff = binary ? new BinaryReadFile().readStaff(source) : new MappedReadFile().readStaff(source);
+			return binary ? new SlotWriteFile().staffToFile(destination, staff) : new BinaryWriteFile().staffToFile(destination, staff);
+		}
+
+		ArrayList<Course> courses = binary ? new BinaryReadFile().readCourse(source) : new MappedReadFile().readCourse(source);
+		return binary ? new SlotWriteFile().courseToFile(destination, courses) : new BinaryWriteFile().courseToFile(destination, courses);
+	}
+}
@@ -11,15 +11,25 @@
  *public void setAvailable(boolean available)
  *public boolean isTrained
  *public void setTrained(boolean trained) 
+ *public int getSlot
+ *public void setSlot(int slot)
+ *public boolean isDirty
+ *public void setDirty(boolean dirty)
+ *public int getVersion
+ *public Staff copy
  *public String toString
  */
 
-public class Staff {
+public class Staff implements SavedRecord {
 	
 	private int ID; // staff ID
 	private String name; //staff name
 	private boolean available; //staff available
 	private boolean trained;//staff trained
+	private ListOfStaff list;//list holding this staff member, told about status changes
+	private int slot = -1;//slot in staff file, -1 if not saved yet
+	private boolean dirty;//changed since last save
+	private int version;//changes made since loaded, for spotting conflicting changes
 	
 	/**
 	 * Constructor for staff 
@@ -30,6 +40,7 @@ public class Staff {
 		this.ID = ID;
 		this.available = false;
 		this.trained = false;
+		this.dirty = true;
 	}
 	
 
@@ -54,12 +65,23 @@ public class Staff {
 	}
 	
 	/**
-	 * Method to set ID
-	 * @param iD
+	 * Method to set ID, only before the staff member is added to a list,
+	 * as lists index staff and their status by ID
+	 * @param iD new ID, not negative
+	 * @throws IllegalArgumentException if iD is negative
+	 * @throws IllegalStateException if staff member is in a list
 	 */
 
 	public void setID(int iD) {
+		if (iD < 0) {
+			throw new IllegalArgumentException("Staff ID " + iD + " is negative");
+		}
+		if (list != null) {
+			throw new IllegalStateException("Staff ID cannot change once in a list");
+		}
 		ID = iD;
+		dirty = true;
+		version++;
 	}
 	
 	/**
@@ -77,7 +99,13 @@ public class Staff {
 	 */
 
 	public void setName(String name) {
+		String oldName = this.name;
 		this.name = name;
+		dirty = true;
+		version++;
+		if (list != null) {
+			list.nameChanged(this, oldName);
+		}
 	}
 	/**
 	 * Method to set if staff available
@@ -94,7 +122,10 @@ public class Staff {
 	 */
 
 	public void setAvailable(boolean available) {
+		dirty |= this.available != available;
 		this.available = available;
+		version++;
+		statusChanged();
 	}
 	
 	/**
@@ -112,8 +143,99 @@ public class Staff {
 	 */
 
 	public void setTrained(boolean trained) {
+		dirty |= this.trained != trained || available != trained;
 		this.trained = trained;
 		available = trained;
+		version++;
+		statusChanged();
+	}
+	
+	/**
+	 * Method to get line of staff member in staff file
+	 * @return slot, -1 if not saved yet
+	 */
+
+	public int getSlot() {
+		return slot;
+	}
+	
+	/**
+	 * Method to set line of staff member in staff file
+	 * @param slot
+	 */
+
+	public void setSlot(int slot) {
+		this.slot = slot;
+	}
+	
+	/**
+	 * Method to check if staff member changed since last save
+	 * @return true if changed
+	 */
+
+	public boolean isDirty() {
+		return dirty;
+	}
+	
+	/**
+	 * Method to mark staff member as changed or saved
+	 * @param dirty
+	 */
+
+	public void setDirty(boolean dirty) {
+		this.dirty = dirty;
+	}
+	
+	/**
+	 * Method to get version, raised by every change so a change based on
+	 * an older read can be refused. Not saved, starts at 0 when loaded
+	 * @return version
+	 */
+
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Method to set version, for copies
+	 * @param version
+	 */
+
+	void setVersion(int version) {
+		this.version = version;
+	}
+
+	/**
+	 * Method to set list holding this staff member
+	 * @param list
+	 */
+	
+	void setList(ListOfStaff list) {
+		this.list = list;
+		statusChanged();
+	}
+	
+	/**
+	 * Tells holding list that availability or training changed
+	 */
+	
+	private void statusChanged() {
+		if (list != null) {
+			list.statusChanged(this);
+		}
+	}
+	
+	/**
+	 * Method to copy staff member for saving on another thread
+	 * @return copy with same slot and dirty flag, not in any list
+	 */
+
+	public Staff copy() {
+		Staff copy = new Staff(name, ID, available, trained);
+		copy.slot = slot;
+		copy.dirty = dirty;
+		copy.version = version;
+		return copy;
 	}
 	
 	/**
@@ -0,0 +1,125 @@
+/**
+ * Staff member held as a row of a ColumnarListOfStaff. Only the list and
+ * row number are kept; every getter and setter goes to the list's
+ * columns, so a StaffRow is cheap to make and is made when asked for.
+ * Two StaffRows for the same row are equal.
+ *
+ * Public methods: as Staff, plus
+ * public boolean equals(Object other)
+ * public int hashCode()
+ */
+
+public class StaffRow extends Staff {
+
+	private final ColumnarListOfStaff columns; //list holding the row
+	private final int row; //row number in list
+
+	/**
+	 * Constructor
+	 * @param columns list holding the row
+	 * @param row row number
+	 */
+
+	StaffRow(ColumnarListOfStaff columns, int row) {
+		super(null, 0, false, false);
+		this.columns = columns;
+		this.row = row;
+	}
+
+	public int getID() {
+		return columns.id(row);
+	}
+
+	/**
+	 * Rows are always in a list, kept in ID order, so IDs cannot change
+	 */
+
+	public void setID(int iD) {
+		throw new IllegalStateException("Staff ID cannot change once in a list");
+	}
+
+	public String getName() {
+		return columns.name(row);
+	}
+
+	public void setName(String name) {
+		columns.setName(row, name);
+	}
+
+	public boolean isAvailable() {
+		return columns.isAvailable(row);
+	}
+
+	public void setAvailable(boolean available) {
+		columns.setStatus(row, available, columns.isTrained(row));
+	}
+
+	public boolean isTrained() {
+		return columns.isTrained(row);
+	}
+
+	/**
+	 * Training also makes staff available, as for Staff
+	 */
+
+	public void setTrained(boolean trained) {
+		columns.setStatus(row, trained, trained);
+	}
+
+	public int getSlot() {
+		return columns.slot(row);
+	}
+
+	public void setSlot(int slot) {
+		columns.setSlot(row, slot);
+	}
+
+	public boolean isDirty() {
+		return columns.isDirty(row);
+	}
+
+	public int getVersion() {
+		return columns.version(row);
+	}
+
+	public void setDirty(boolean dirty) {
+		columns.setDirty(row, dirty);
+	}
+
+	/**
+	 * Rows always belong to their list
+	 */
+
+	void setList(ListOfStaff list) {
+	}
+
+	/**
+	 * Method to copy staff member out of the columns
+	 * @return plain Staff with same fields, slot and dirty flag
+	 */
+
+	public Staff copy() {
+		Staff copy = new Staff(getName(), getID(), isAvailable(), isTrained());
+		copy.setSlot(getSlot());
+		copy.setDirty(isDirty());
+		copy.setVersion(getVersion());
+		return copy;
+	}
+
+	public boolean equals(Object other) {
+		return other instanceof StaffRow && ((StaffRow) other).columns == columns && ((StaffRow) other).row == row;
+	}
+
+	public int hashCode() {
+		return System.identityHashCode(columns) * 31 + row;
+	}
+
+	public String toString() {
+		String output = "";
+		output += "StaffID: " + getID() + "\t";
+		output += "Name: " + getName() + "\t";
+		output += "Available: " + isAvailable() + "\t";
+
+		return output;
+	}
+}
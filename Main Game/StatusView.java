@@ -0,0 +1,137 @@
+import java.util.AbstractCollection;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Live read-only view of the objects whose IDs are set in a status bitset,
+ * and in a second bitset if given. The owning list keeps the bitsets up
+ * to date, so the view always reflects the current state without being
+ * rebuilt. Iterates in ID order. The bitsets are read holding the lock
+ * the list holds while setting them, so a view can be read while
+ * another thread changes a status.
+ *
+ * Public methods:
+ * 	public Iterator<T> iterator()
+ * 	public int size()
+ * 	public boolean isEmpty()
+ */
+public class StatusView<T> extends AbstractCollection<T> {
+
+	/**
+	 * Bitset of IDs in this view
+	 */
+	private final BitSet bits;
+
+	/**
+	 * Bitset IDs must also be set in, null if none
+	 */
+	private final BitSet also;
+
+	/**
+	 * Index used to turn IDs into objects
+	 */
+	private final IDIndex<T> index;
+
+	/**
+	 * Lock the list holds while changing the bitsets
+	 */
+	private final Object lock;
+
+	/**
+	 * Constructor
+	 * @param bits status bitset owned by the list
+	 * @param index ID index owned by the list
+	 * @param lock lock the list holds while changing bits
+	 */
+	public StatusView(BitSet bits, IDIndex<T> index, Object lock) {
+		this(bits, null, index, lock);
+	}
+
+	/**
+	 * Constructor for objects with two statuses, such as available and trained
+	 * @param bits status bitset owned by the list
+	 * @param also second status bitset owned by the list
+	 * @param index ID index owned by the list
+	 * @param lock lock the list holds while changing bits or also
+	 */
+	public StatusView(BitSet bits, BitSet also, IDIndex<T> index, Object lock) {
+		this.bits = bits;
+		this.also = also;
+		this.index = index;
+		this.lock = lock;
+	}
+
+	/**
+	 * Method to iterate objects in view in ID order
+	 * @return iterator, remove is not supported
+	 */
+	public Iterator<T> iterator() {
+
+		return new Iterator<T>() {
+
+			private int next = nextID(0);
+
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			public T next() {
+
+				if(next < 0) {
+					throw new NoSuchElementException();
+				}
+
+				T value = index.get(next);
+				next = nextID(next + 1);
+				return value;
+			}
+		};
+	}
+
+	/**
+	 * Method to get number of objects in view
+	 * @return number of objects
+	 */
+	public int size() {
+
+		synchronized(lock) {
+			if(also == null) {
+				return bits.cardinality();
+			}
+
+			int size = 0;
+			for(int id = nextID(0); id >= 0; id = nextID(id + 1)) {
+				size++;
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * Method to check if view is empty
+	 * @return true if empty
+	 */
+	public boolean isEmpty() {
+
+		synchronized(lock) {
+			return also == null ? bits.isEmpty() : !bits.intersects(also);
+		}
+	}
+
+	/**
+	 * Finds next ID in view
+	 * @param from first ID to check
+	 * @return next ID at or after from, -1 if none
+	 */
+	private int nextID(int from) {
+
+		synchronized(lock) {
+			int id = bits.nextSetBit(from);
+			while(also != null && id >= 0 && !also.get(id)) {
+				id = bits.nextSetBit(id + 1);
+			}
+			return id;
+		}
+	}
+}
@@ -0,0 +1,286 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many sessions against one Model at the same time, then checks the
+ * lists still agree with each other. Sessions also open snapshots and
+ * check they do not change while being read, and take turns toggling
+ * the approval of one course through its version, where every toggle
+ * that succeeds must have been made from the latest version. Live
+ * views are walked and names searched while the changes are made. Prints
+ * FAILED and exits with 1 if any session threw, the sessions
+ * deadlocked, a snapshot changed, a toggle was lost, or the lists disagree.
+ * Optional arguments: threads, operations per thread
+ */
+public class StressTest {
+
+	private static final int STAFF = 200;
+	private static final int COURSES = 50;
+
+	/**
+	 * Model without data files or journal, so nothing on disk is changed
+	 */
+	private static class MemoryModel extends Model {
+		MemoryModel() {
+			super(new ListOfStaff(), new ListOfCourses());
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int operations = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+
+		Model model = new MemoryModel();
+		for(int i = 0; i < STAFF; i++) {
+			model.createStaff("Staff " + i);
+		}
+		for(int i = 0; i < COURSES; i++) {
+			model.createCourse("Course " + i, 1 + i % 6);
+		}
+		model.createCourse("Approval round", 1);
+		Course round = model.findCourse(COURSES + 1);
+		AtomicInteger toggles = new AtomicInteger();
+
+		AtomicInteger created = new AtomicInteger();
+		ExecutorService sessions = Executors.newFixedThreadPool(threads);
+		ArrayList<Future<?>> running = new ArrayList<Future<?>>();
+		long start = System.nanoTime();
+
+		for(int t = 0; t < threads; t++) {
+			long seed = t;
+			running.add(sessions.submit(() -> session(model, new Random(seed), operations, created, round, toggles)));
+		}
+		sessions.shutdown();
+
+		/*
+		 * Wait for sessions, reporting any stuck on each other's locks
+		 */
+		boolean failed = false;
+		for(Future<?> session : running) {
+			try {
+				session.get(120, TimeUnit.SECONDS);
+			} catch(TimeoutException e) {
+				long[] deadlocked = ManagementFactory.getThreadMXBean().findDeadlockedThreads();
+				System.out.println(deadlocked == null ? "Timed out" : "Deadlocked threads: " + deadlocked.length);
+				System.exit(1);
+			} catch(Exception e) {
+				e.getCause().printStackTrace();
+				failed = true;
+			}
+		}
+
+		long millis = (System.nanoTime() - start) / 1000000;
+		System.out.println(threads + " threads, " + threads * operations + " operations in " + millis + " ms");
+
+		/*
+		 * Check the lists agree once everything has finished
+		 */
+		ArrayList<String> problems = check(model, STAFF + created.get());
+		if(round.getVersion() != toggles.get() || round.isApproved() != (toggles.get() % 2 == 1)) {
+			problems.add(toggles.get() + " toggles succeeded, approval round at version " + round.getVersion());
+		}
+		for(String problem : problems) {
+			System.out.println(problem);
+		}
+
+		if(failed || !problems.isEmpty()) {
+			System.out.println("FAILED");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * One session making random changes and queries
+	 */
+	private static void session(Model model, Random random, int operations, AtomicInteger created,
+			Course round, AtomicInteger toggles) {
+
+		for(int i = 0; i < operations; i++) {
+
+			Staff staff = model.findStaff(1 + random.nextInt(STAFF));
+			Course course = model.findCourse(1 + random.nextInt(COURSES));
+
+			switch(random.nextInt(13)) {
+				case 0:
+				case 1:
+				case 2:
+					model.addStaffToCourse(course, staff);
+					break;
+				case 3:
+				case 4:
+					model.removeStaffFromCourse(course, staff);
+					break;
+				case 5:
+					model.removeStaffFromAllCourses(staff);
+					break;
+				case 6:
+					model.train(staff);
+					break;
+				case 7:
+					model.giveRequestApproval(course, random.nextBoolean());
+					break;
+				case 8:
+					model.assignCourseRequirements(course, 1 + random.nextInt(8));
+					break;
+				case 9:
+					if(random.nextInt(20) == 0) {
+						model.createStaff("New staff " + created.incrementAndGet());
+					}
+					model.findStaffCourses(staff);
+					model.findStaffByNamePrefix("Staff 1", 5);
+					model.searchStaff("Staf " + random.nextInt(STAFF), 2, 5);
+					break;
+				case 10:
+					model.countCourseStaff(course);
+					model.countAvailableTrainedStaff();
+					model.countApprovedCourses();
+					break;
+				case 11:
+					if(random.nextInt(20) == 0) {
+						checkSnapshot(model);
+					}
+					int version = round.getVersion();
+					if(model.giveRequestApproval(round, version % 2 == 0, version)) {
+						toggles.incrementAndGet();
+					}
+					break;
+				default:
+					model.findCourseStaff(course);
+					model.AvailableStaff();
+					walk(model.viewCourseStaff(course));
+					walk(model.viewStaffCourses(staff));
+					walk(model.viewAvailableTrainedStaff());
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Iterates a live view while other sessions change it
+	 */
+	private static <T> void walk(Collection<T> view) {
+
+		for(T value : view) {
+			if(value == null) {
+				throw new IllegalStateException("View gave null");
+			}
+		}
+		view.size();
+	}
+
+	/**
+	 * Reads a snapshot twice while other sessions make changes
+	 */
+	private static void checkSnapshot(Model model) {
+
+		try(ModelSnapshot snapshot = model.openSnapshot()) {
+			String first = describe(snapshot);
+			Thread.yield();
+			if(!first.equals(describe(snapshot))) {
+				throw new IllegalStateException("Snapshot " + snapshot.getVersion() + " changed while open");
+			}
+		}
+	}
+
+	private static String describe(ModelSnapshot snapshot) {
+		return describe(snapshot.returnStaffList(), snapshot.returnCourseList());
+	}
+
+	/**
+	 * Every field of every staff member and course, as one string
+	 */
+	private static String describe(ArrayList<Staff> staffList, ArrayList<Course> courseList) {
+
+		StringBuilder text = new StringBuilder();
+		for(Staff staff : staffList) {
+			text.append(staff.getID()).append(staff.isAvailable()).append(staff.isTrained()).append(';');
+		}
+		for(Course course : courseList) {
+			text.append(course.getID()).append(course.isApproved()).append(course.getRequiredStaff())
+				.append(course.getStaffID()).append(';');
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Compares each course's staff with the staff's courses, and the
+	 * counts and status lists with the fields of each staff and course
+	 * @return problems found, empty if none
+	 */
+	private static ArrayList<String> check(Model model, int staffCount) {
+
+		ArrayList<String> problems = new ArrayList<String>();
+		ArrayList<Staff> staffList = model.returnStaffList();
+		ArrayList<Course> courseList = model.returnCourseList();
+
+		if(staffList.size() != staffCount) {
+			problems.add("Expected " + staffCount + " staff, found " + staffList.size());
+		}
+
+		int links = 0;
+		for(Course course : courseList) {
+			if(course.getAssignedStaff() != course.getStaffID().size()) {
+				problems.add("Course " + course.getID() + " assigned count wrong");
+			}
+			if(model.countCourseStaff(course) != model.findCourseStaff(course).size()) {
+				problems.add("Course " + course.getID() + " staff count wrong");
+			}
+			for(Staff staff : model.findCourseStaff(course)) {
+				if(!model.findStaffCourses(staff).contains(course)) {
+					problems.add("Staff " + staff.getID() + " missing course " + course.getID());
+				}
+			}
+			links += course.getStaffID().size();
+		}
+
+		int reverse = 0;
+		int available = 0;
+		int trained = 0;
+		for(Staff staff : staffList) {
+			for(Course course : model.findStaffCourses(staff)) {
+				if(!model.findCourseStaff(course).contains(staff)) {
+					problems.add("Course " + course.getID() + " missing staff " + staff.getID());
+				}
+			}
+			reverse += model.countStaffCourses(staff);
+			available += staff.isAvailable() ? 1 : 0;
+			trained += staff.isTrained() ? 1 : 0;
+		}
+		if(links != reverse) {
+			problems.add("Courses hold " + links + " staff, staff hold " + reverse + " courses");
+		}
+
+		if(model.countAvailableStaff() != available || model.AvailableStaff().size() != available) {
+			problems.add("Available staff count wrong");
+		}
+		if(model.countTrainedStaff() != trained || model.StaffWithTraining().size() != trained) {
+			problems.add("Trained staff count wrong");
+		}
+
+		int approved = 0;
+		for(Course course : courseList) {
+			approved += course.isApproved() ? 1 : 0;
+		}
+		if(model.countApprovedCourses() != approved || model.findApprovedCourses().size() != approved) {
+			problems.add("Approved course count wrong");
+		}
+
+		try(ModelSnapshot snapshot = model.openSnapshot()) {
+			if(!describe(snapshot).equals(describe(staffList, courseList))) {
+				problems.add("Snapshot differs from model");
+			}
+		}
+
+		return problems;
+	}
+}
@@ -0,0 +1,152 @@
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Checks the status codes ApiServer answers with, over a model kept in
+ * memory, a model whose queries fail, and a read-only model, and that a
+ * course read while its staff change always agrees with itself. Prints
+ * each check and exits with 1 if any fail.
+ */
+public class TestApiServer {
+
+	private static final HttpClient client = HttpClient.newHttpClient();
+	private static boolean failed;
+
+	/**
+	 * Model without data files or journal, so nothing on disk is changed
+	 */
+	private static class MemoryModel extends Model {
+		MemoryModel() {
+			super(new ListOfStaff(), new ListOfCourses());
+		}
+	}
+
+	/**
+	 * Model whose counts fail with a message that must not reach callers
+	 */
+	private static class BrokenModel extends MemoryModel {
+		public int countAvailableStaff() {
+			throw new IllegalStateException("secret internal detail");
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		Model model = new MemoryModel();
+		model.createStaff("Bob");
+		model.createStaff("Rachel");
+		model.createCourse("Programming", 2);
+
+		ApiServer server = new ApiServer(model, 0);
+		server.start();
+		String url = "http://localhost:" + server.getPort();
+		try {
+			check("get staff", 200, request(url, "GET", "/staff/1", null));
+			check("create staff", 201, request(url, "POST", "/staff", "{\"name\":\"Steve\"}"));
+			check("no such staff", 404, request(url, "GET", "/staff/99", null));
+			check("no such resource", 404, request(url, "GET", "/rooms", null));
+			check("method not allowed", 405, request(url, "DELETE", "/counts", null));
+			check("missing field", 400, request(url, "POST", "/courses", "{\"name\":\"Databases\"}"));
+			check("bad number", 400, request(url, "PUT", "/courses/1/requirements?requiredStaff=many", null));
+			check("bad JSON", 400, request(url, "POST", "/staff", "{\"name\":"));
+			check("add staff", 200, request(url, "PUT", "/courses/1/staff/1?courseVersion=0&staffVersion=0", null));
+			check("stale version", 409, request(url, "PUT", "/courses/1/staff/2?courseVersion=0&staffVersion=0", null));
+			checkReadDuringChanges(model, url);
+		} finally {
+			server.stop();
+		}
+
+		/*
+		 * Unexpected failures answer 500 without details
+		 */
+		server = new ApiServer(new BrokenModel(), 0);
+		server.start();
+		url = "http://localhost:" + server.getPort();
+		try {
+			HttpResponse<String> response = request(url, "GET", "/counts", null);
+			check("internal error", 500, response);
+			check("internal error hidden", !response.body().contains("secret"), response.body());
+		} finally {
+			server.stop();
+		}
+
+		/*
+		 * Read-only model refuses changes and saves
+		 */
+		File staffFile = File.createTempFile("staff", ".bin");
+		File courseFile = File.createTempFile("course", ".bin");
+		staffFile.deleteOnExit();
+		courseFile.deleteOnExit();
+		new BinaryWriteFile().staffToFile(staffFile.getPath(), model.returnStaffList());
+		new BinaryWriteFile().courseToFile(courseFile.getPath(), model.returnCourseList());
+
+		Model readOnly = Model.openReadOnly(staffFile.getPath(), courseFile.getPath());
+		server = new ApiServer(readOnly, 0);
+		server.start();
+		url = "http://localhost:" + server.getPort();
+		try {
+			check("read-only get", 200, request(url, "GET", "/courses/1", null));
+			check("read-only create", 403, request(url, "POST", "/staff", "{\"name\":\"Steve\"}"));
+			check("read-only save", 403, request(url, "POST", "/save", null));
+		} finally {
+			server.stop();
+			readOnly.close();
+		}
+
+		if(failed) {
+			System.out.println("FAILED");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * Reads a course while another thread adds and removes its staff,
+	 * checking each answer's assigned count matches its staff IDs
+	 */
+	private static void checkReadDuringChanges(Model model, String url) throws Exception {
+
+		Course course = model.findCourse(1);
+		Staff staff = model.findStaff(2);
+		Thread changer = new Thread(() -> {
+			for(int i = 0; i < 2000; i++) {
+				model.addStaffToCourse(course, staff);
+				model.removeStaffFromCourse(course, staff);
+			}
+		});
+		changer.start();
+
+		String wrong = null;
+		for(int i = 0; i < 200 && wrong == null; i++) {
+			HttpResponse<String> response = request(url, "GET", "/courses/1", null);
+			String body = response.body();
+			String ids = body.substring(body.indexOf("\"staffIDs\":[") + 12, body.indexOf(']'));
+			int listed = ids.isEmpty() ? 0 : ids.split(",").length;
+			if(response.statusCode() != 200 || !body.contains("\"assignedStaff\":" + listed + ",")) {
+				wrong = response.statusCode() + " " + body;
+			}
+		}
+		changer.join();
+		check("course read during changes", wrong == null, wrong == null ? "every answer agreed" : wrong);
+	}
+
+	private static HttpResponse<String> request(String url, String method, String path, String body) throws Exception {
+
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+				.method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+				.build();
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static void check(String name, int status, HttpResponse<String> response) {
+		check(name, response.statusCode() == status, response.statusCode() + " " + response.body());
+	}
+
+	private static void check(String name, boolean passed, String detail) {
+		System.out.println((passed ? "Pass " : "FAIL ") + name + ": " + detail);
+		failed |= !passed;
+	}
+}
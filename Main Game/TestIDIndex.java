@@ -0,0 +1,121 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Checks IDIndex finds every ID after entries collide, are removed from
+ * the middle of a probe sequence, and the table grows, and that random
+ * puts and removes match a HashMap. Prints each check and exits with 1
+ * if any fail.
+ */
+public class TestIDIndex {
+
+	private static boolean failed;
+
+	public static void main(String[] args) {
+
+		/*
+		 * IDs sharing a home slot in the smallest table, so each probes past the others
+		 */
+		ArrayList<Integer> colliding = new ArrayList<Integer>();
+		for (int ID = 1; colliding.size() < 7; ID++) {
+			if ((hash(ID) & 15) == (hash(1) & 15)) {
+				colliding.add(ID);
+			}
+		}
+
+		IDIndex<String> index = new IDIndex<String>(1);
+		for (int ID : colliding) {
+			index.put(ID, "v" + ID);
+		}
+		check("colliding found", index, colliding);
+
+		// Removing from the middle of the run must not hide the entries after it
+		index.remove(colliding.get(1));
+		index.remove(colliding.get(3));
+		ArrayList<Integer> left = new ArrayList<Integer>(colliding);
+		left.remove(3);
+		left.remove(1);
+		check("colliding after removal", index, left);
+		check("removed gone", index.get(colliding.get(1)) == null && !index.contains(colliding.get(3)), "still found");
+		check("size after removal", index.size() == 5, "size " + index.size());
+
+		/*
+		 * Growing many times keeps every entry
+		 */
+		ArrayList<Integer> many = new ArrayList<Integer>(left);
+		for (int ID = 1000; ID < 101000; ID++) {
+			index.put(ID, "v" + ID);
+			many.add(ID);
+		}
+		index.put(-5, "v-5");
+		index.put(0, "v0");
+		index.put(Integer.MAX_VALUE, "v" + Integer.MAX_VALUE);
+		many.add(-5);
+		many.add(0);
+		many.add(Integer.MAX_VALUE);
+		check("after growth", index, many);
+		check("size after growth", index.size() == many.size(), "size " + index.size());
+
+		index.put(1000, "replaced");
+		check("replace keeps size", index.size() == many.size() && "replaced".equals(index.get(1000)), index.get(1000));
+
+		/*
+		 * Random puts and removes match a HashMap
+		 */
+		Random random = new Random(42);
+		IDIndex<Integer> randomIndex = new IDIndex<Integer>();
+		HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
+		boolean same = true;
+		for (int i = 0; i < 200000 && same; i++) {
+			int ID = random.nextInt(5000);
+			if (random.nextInt(3) == 0) {
+				same = equal(randomIndex.remove(ID), map.remove(ID));
+			} else {
+				randomIndex.put(ID, i);
+				map.put(ID, i);
+			}
+		}
+		for (int ID = 0; ID < 5000 && same; ID++) {
+			same = equal(randomIndex.get(ID), map.get(ID));
+		}
+		check("random matches HashMap", same && randomIndex.size() == map.size(), randomIndex.size() + " vs " + map.size());
+
+		index.clear();
+		check("cleared", index.size() == 0 && index.get(1000) == null, "size " + index.size());
+
+		if (failed) {
+			System.out.println("FAILED");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * Same hash IDIndex uses, to pick IDs that collide
+	 */
+	private static int hash(int ID) {
+		int h = ID * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean equal(Integer a, Integer b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	private static void check(String name, IDIndex<String> index, ArrayList<Integer> IDs) {
+
+		for (int ID : IDs) {
+			if (!("v" + ID).equals(index.get(ID)) || !index.contains(ID)) {
+				check(name, false, "ID " + ID + " gave " + index.get(ID));
+				return;
+			}
+		}
+		check(name, true, "");
+	}
+
+	private static void check(String name, boolean passed, String detail) {
+		System.out.println((passed ? "Pass " : "FAIL ") + name + (passed ? "" : ": " + detail));
+		failed |= !passed;
+	}
+}
@@ -55,8 +55,8 @@ public class TestModel {
 		 */
 		
 		System.out.println("Staff in course:");
-		for(int ID : courseToBeAddedTo.getStaffID()) {
-			System.out.println(ID);
+		for(int i = 0; i < courseToBeAddedTo.getStaffID().size(); i++) {
+			System.out.println(courseToBeAddedTo.getStaffID().get(i));
 		}
 		
 		ArrayList<Staff> staffNames = model.findCourseStaff(model.findCourse(1));
@@ -77,8 +77,8 @@ public class TestModel {
 		 * Check staff in course after removal
 		 */
 		System.out.println("\nStaff in course after removal:");
-		for(int ID : courseToBeAddedTo.getStaffID()) {
-			System.out.println(ID);
+		for(int i = 0; i < courseToBeAddedTo.getStaffID().size(); i++) {
+			System.out.println(courseToBeAddedTo.getStaffID().get(i));
 		}
 	}
 }
@@ -0,0 +1,107 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Checks NameIndex lookups, before and after the pending names are merged
+ * into the sorted array, including names outside ASCII. Then checks the
+ * staff lists, which only build their index on the first lookup, find
+ * names renamed or added after it is built and drop it when replaced.
+ * Prints each check and exits with 1 if any fail.
+ */
+public class TestNameIndex {
+
+	private static boolean failed;
+
+	public static void main(String[] args) {
+
+		NameIndex index = new NameIndex();
+		index.add("\u00dcber", 1);
+		index.add("\u00e9mile", 2);
+		index.add("Anna", 3);
+		index.add("Zo\u00eb", 4);
+		index.add("\u00f1and\u00fa", 5);
+		index.add("anna", 6);
+
+		/*
+		 * Few names, all still pending
+		 */
+		check("pending u umlaut", index.findPrefix("\u00fc", 10), 1);
+		check("pending e acute", index.findPrefix("\u00c9", 10), 2);
+		check("pending anna", index.findPrefix("ANN", 10), 3, 6);
+
+		/*
+		 * Enough names to be merged into the sorted array
+		 */
+		for (int i = 0; i < 2000; i++) {
+			index.add("Padding " + i, 100 + i);
+		}
+		index.findPrefix("padding", 1);
+
+		check("merged u umlaut", index.findPrefix("\u00fc", 10), 1);
+		check("merged e acute", index.findPrefix("\u00e9", 10), 2);
+		check("merged zo", index.findPrefix("zo", 10), 4);
+		check("merged n tilde", index.findPrefix("\u00f1", 10), 5);
+		check("merged anna", index.findPrefix("anna", 10), 3, 6);
+		check("merged none", index.findPrefix("x", 10));
+		check("merged limit", index.findPrefix("padding 1999", 10), 2099);
+		check("exact", index.find("\u00c9MILE").toArray(), 2);
+
+		/*
+		 * Names sharing their first four characters are ordered in full
+		 */
+		index.add("\u00fcber alles", 7);
+		index.add("\u00fcberall", 8);
+		index.add("\u00fcbel", 9);
+		for (int i = 0; i < 2000; i++) {
+			index.add("More padding " + i, 3000 + i);
+		}
+		index.findPrefix("more", 1);
+		check("order after second merge", index.findPrefix("\u00fcb", 10), 9, 1, 7, 8);
+
+		index.remove("\u00dcber", 1);
+		check("removed", index.findPrefix("\u00fcber", 10), 7, 8);
+
+		checkList("object", new ListOfStaff());
+		checkList("columnar", new ColumnarListOfStaff());
+
+		if (failed) {
+			System.out.println("FAILED");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * Checks lookups on a staff list as it is renamed, added to and replaced
+	 */
+	private static void checkList(String name, ListOfStaff list) {
+
+		ArrayList<Staff> staff = new ArrayList<Staff>();
+		staff.add(new Staff("Anna Smith", 1));
+		staff.add(new Staff("Bob Jones", 2));
+		staff.add(new Staff("Anne Brown", 3));
+		list.setStaffList(staff);
+		check(name + " built on lookup", ids(list.findByNamePrefix("ann", 10)), 1, 3);
+
+		list.find(2).setName("Annika Jones");
+		list.addStaff(new Staff("ANNA SMITH", 4));
+		check(name + " renamed", ids(list.findByNamePrefix("ann", 10)), 1, 4, 3, 2);
+		check(name + " exact", ids(list.findByName("anna smith")), 1, 4);
+
+		staff = new ArrayList<Staff>();
+		staff.add(new Staff("Zoe Anders", 5));
+		list.setStaffList(staff);
+		check(name + " replaced", ids(list.findByNamePrefix("ann", 10)));
+		check(name + " replaced exact", ids(list.findByName("zoe anders")), 5);
+	}
+
+	private static int[] ids(ArrayList<Staff> staff) {
+		return staff.stream().mapToInt(Staff::getID).toArray();
+	}
+
+	private static void check(String name, int[] found, int... expected) {
+		boolean passed = Arrays.equals(found, expected);
+		System.out.println((passed ? "Pass " : "FAIL ") + name + ": " + Arrays.toString(found));
+		failed |= !passed;
+	}
+}
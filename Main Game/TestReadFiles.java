@@ -0,0 +1,156 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Checks MappedReadFile reads the same staff and courses as ReadFile,
+ * from the data files and from files big enough to be parsed in
+ * parallel chunks, and that binary snapshots written from them read
+ * back the same through BinaryReadFile, and through a MappedDataset
+ * read from many threads at once. Prints each check and exits with 1
+ * if any fail.
+ */
+public class TestReadFiles {
+
+	private static boolean failed;
+
+	public static void main(String[] args) throws Exception {
+
+		/*
+		 * Data files shipped with the game
+		 */
+		compare("data files", "Main Game/Staff.txt", "Main Game/Course.txt");
+
+		/*
+		 * Files past two chunks, so the parallel parser splits them
+		 */
+		File staffFile = File.createTempFile("staff", ".txt");
+		File courseFile = File.createTempFile("course", ".txt");
+		staffFile.deleteOnExit();
+		courseFile.deleteOnExit();
+
+		ArrayList<Staff> staff = new ArrayList<Staff>();
+		for (int i = 1; i <= 400000; i++) {
+			staff.add(new Staff("Staff" + i, i, i % 3 == 0, i % 7 == 0));
+		}
+		ArrayList<Course> courses = new ArrayList<Course>();
+		for (int i = 1; i <= 150000; i++) {
+			IntSet staffIDs = new IntSet();
+			for (int j = 0; j < i % 12; j++) {
+				staffIDs.add(1 + (i * 31 + j * 997) % 400000);
+			}
+			courses.add(new Course(i, "Course" + i, i % 2 == 0, 1 + i % 10, staffIDs.size(), staffIDs));
+		}
+		new WriteFile().staffToFile(staffFile.getPath(), staff);
+		new WriteFile().courseToFile(courseFile.getPath(), courses);
+		check("generated files big enough", staffFile.length() > 8 << 20 && courseFile.length() > 8 << 20,
+				staffFile.length() + " and " + courseFile.length() + " bytes");
+
+		compare("generated files", staffFile.getPath(), courseFile.getPath());
+		check("generated staff as written", describeStaff(staff).equals(describeStaff(sortedStaff(new MappedReadFile().readStaff(staffFile.getPath())))), "differs");
+		check("generated courses as written", describeCourses(courses).equals(describeCourses(sortedCourses(new MappedReadFile().readCourse(courseFile.getPath())))), "differs");
+
+		/*
+		 * Binary snapshots of the text files read back the same
+		 */
+		File staffBinary = File.createTempFile("staff", ".bin");
+		File courseBinary = File.createTempFile("course", ".bin");
+		staffBinary.deleteOnExit();
+		courseBinary.deleteOnExit();
+		roundTrip("data files", "Main Game/Staff.txt", "Main Game/Course.txt", staffBinary.getPath(), courseBinary.getPath());
+		roundTrip("generated files", staffFile.getPath(), courseFile.getPath(), staffBinary.getPath(), courseBinary.getPath());
+		check("text not taken for binary", !BinaryReadFile.isBinary(staffFile.getPath()) && !BinaryReadFile.isBinary(courseFile.getPath()), "text detected as binary");
+
+		if (failed) {
+			System.out.println("FAILED");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * Checks both readers, parallel and not, give the same records
+	 */
+	private static void compare(String name, String staffPath, String coursePath) {
+
+		String staff = describeStaff(sortedStaff(new ReadFile().readStaff(staffPath)));
+		String courses = describeCourses(sortedCourses(new ReadFile().readCourse(coursePath)));
+
+		MappedReadFile single = new MappedReadFile();
+		single.setParallel(false);
+
+		check(name + " staff", staff.equals(describeStaff(sortedStaff(new MappedReadFile().readStaff(staffPath)))), "differs");
+		check(name + " staff single thread", staff.equals(describeStaff(sortedStaff(single.readStaff(staffPath)))), "differs");
+		check(name + " courses", courses.equals(describeCourses(sortedCourses(new MappedReadFile().readCourse(coursePath)))), "differs");
+		check(name + " courses single thread", courses.equals(describeCourses(sortedCourses(single.readCourse(coursePath)))), "differs");
+	}
+
+	/**
+	 * Writes text files as binary snapshots and checks they read back the same
+	 */
+	private static void roundTrip(String name, String staffPath, String coursePath, String staffBinary, String courseBinary)
+			throws IOException {
+
+		ArrayList<Staff> staff = sortedStaff(new ReadFile().readStaff(staffPath));
+		ArrayList<Course> courses = sortedCourses(new ReadFile().readCourse(coursePath));
+
+		check(name + " binary written", new BinaryWriteFile().staffToFile(staffBinary, staff)
+				&& new BinaryWriteFile().courseToFile(courseBinary, courses), "write failed");
+		check(name + " binary detected", BinaryReadFile.isBinary(staffBinary) && BinaryReadFile.isBinary(courseBinary), "not detected");
+		check(name + " binary staff", describeStaff(staff).equals(describeStaff(sortedStaff(new BinaryReadFile().readStaff(staffBinary)))), "differs");
+		check(name + " binary courses", describeCourses(courses).equals(describeCourses(sortedCourses(new BinaryReadFile().readCourse(courseBinary)))), "differs");
+
+		MappedDataset dataset = new MappedDataset(staffBinary, courseBinary);
+		ArrayList<Staff> mappedStaff = IntStream.range(0, dataset.staffCount()).parallel()
+				.mapToObj(dataset::staff).collect(Collectors.toCollection(ArrayList::new));
+		ArrayList<Course> mappedCourses = IntStream.range(0, dataset.courseCount()).parallel()
+				.mapToObj(dataset::course).collect(Collectors.toCollection(ArrayList::new));
+		boolean found = IntStream.range(0, dataset.courseCount()).parallel()
+				.allMatch(i -> dataset.courseIndex(mappedCourses.get(i).getID()) == i);
+		check(name + " mapped staff in parallel", describeStaff(staff).equals(describeStaff(mappedStaff)), "differs");
+		check(name + " mapped courses in parallel", describeCourses(courses).equals(describeCourses(mappedCourses)) && found, "differs");
+	}
+
+	private static ArrayList<Staff> sortedStaff(ArrayList<Staff> staff) {
+		staff.sort(Comparator.comparingInt(Staff::getID));
+		return staff;
+	}
+
+	private static ArrayList<Course> sortedCourses(ArrayList<Course> courses) {
+		courses.sort(Comparator.comparingInt(Course::getID));
+		return courses;
+	}
+
+	private static String describeStaff(ArrayList<Staff> staff) {
+
+		StringBuilder text = new StringBuilder();
+		for (Staff member : staff) {
+			text.append(member.getName()).append(' ').append(member.getID()).append(' ')
+					.append(member.isAvailable()).append(' ').append(member.isTrained()).append('\n');
+		}
+		return text.toString();
+	}
+
+	private static String describeCourses(ArrayList<Course> courses) {
+
+		StringBuilder text = new StringBuilder();
+		for (Course course : courses) {
+			text.append(course.getID()).append(' ').append(course.getName()).append(' ')
+					.append(course.isApproved()).append(' ').append(course.getRequiredStaff()).append(' ')
+					.append(course.getAssignedStaff());
+			for (int i = 0; i < course.getStaffID().size(); i++) {
+				text.append(' ').append(course.getStaffID().get(i));
+			}
+			text.append('\n');
+		}
+		return text.toString();
+	}
+
+	private static void check(String name, boolean passed, String detail) {
+		System.out.println((passed ? "Pass " : "FAIL ") + name + (passed ? "" : ": " + detail));
+		failed |= !passed;
+	}
+}
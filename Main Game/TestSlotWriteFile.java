@@ -0,0 +1,195 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Checks SlotWriteFile keeps the course file readable as records are
+ * changed in their slots, moved to the end when they outgrow them, and
+ * appended, and that the file is compacted once half of it is blank.
+ * The file is read back with both readers after each save. Also checks
+ * a slot log left by a crash is written into the file, and a torn one
+ * is thrown away. Prints each check and exits with 1 if any fail.
+ */
+public class TestSlotWriteFile {
+
+	private static boolean failed;
+
+	public static void main(String[] args) throws Exception {
+
+		File file = File.createTempFile("course", ".txt");
+		String path = file.getPath();
+		file.deleteOnExit();
+
+		ArrayList<Course> courses = new ArrayList<Course>();
+		for (int i = 1; i <= 20; i++) {
+			Course course = new Course(i, "Course" + i, 2);
+			course.addStaff(new Staff("Staff" + i, i));
+			courses.add(course);
+		}
+
+		/*
+		 * First save writes every record
+		 */
+		SlotWriteFile writer = new SlotWriteFile();
+		check("first save", writer.courseToFile(path, courses), "save failed");
+		check("first save read back", courses, path);
+		long size = file.length();
+
+		/*
+		 * A change that fits is written in its own slot
+		 */
+		courses.get(3).addStaff(new Staff("Extra", 99));
+		check("save in slot", writer.courseToFile(path, courses), "save failed");
+		check("size kept", file.length() == size, file.length() + " bytes, was " + size);
+		check("change in slot read back", courses, path);
+
+		/*
+		 * A record grown past its slot moves to the end, leaving a blank line
+		 */
+		for (int i = 100; i < 160; i++) {
+			courses.get(5).addStaff(new Staff("Staff" + i, i));
+		}
+		check("save moved record", writer.courseToFile(path, courses), "save failed");
+		check("moved record at end", lines(path).get(lines(path).size() - 1).startsWith("6 "), lines(path).toString());
+		check("old slot blank", blankLines(path) == 1, blankLines(path) + " blank lines");
+		check("moved record read back", courses, path);
+
+		/*
+		 * New records are appended after the last slot
+		 */
+		Course added = new Course(21, "Course21", 3);
+		courses.add(added);
+		check("save new record", writer.courseToFile(path, courses), "save failed");
+		check("new record slot", added.getSlot() == 20, "slot " + added.getSlot());
+		check("new record read back", courses, path);
+
+		/*
+		 * A new writer finds the slots of records read from the file,
+		 * blank lines included, and keeps updating in place
+		 */
+		ArrayList<Course> read = sorted(new MappedReadFile().readCourse(path));
+		read.get(0).setApproved(true);
+		writer = new SlotWriteFile();
+		check("save after reading", writer.courseToFile(path, read), "save failed");
+		check("blank line kept", blankLines(path) == 1, blankLines(path) + " blank lines");
+		check("change after reading read back", read, path);
+
+		/*
+		 * Moving most records leaves the file mostly blank, so it is rewritten
+		 */
+		for (int c = 0; c < 10; c++) {
+			for (int i = 200; i < 240; i++) {
+				read.get(c).addStaff(new Staff("Staff" + i, i));
+			}
+		}
+		check("save compacted", writer.courseToFile(path, read), "save failed");
+		check("no blank lines", blankLines(path) == 0, blankLines(path) + " blank lines");
+		check("compacted read back", read, path);
+		check("no slot log left", !new File(path + ".slots").exists(), "log still there");
+
+		/*
+		 * A complete log left by a crash is written into the file
+		 */
+		String first = lines(path).get(0);
+		check("first line is course 1", first.startsWith("1 Course1 true 2 "), first);
+		byte[] image = (first.replace("1 Course1 true 2 ", "1 Course1 true 7 ") + System.lineSeparator()).getBytes();
+		byte[] log = log(0, image);
+		Files.write(Paths.get(path + ".slots"), log);
+		check("complete log recovered", SlotWriteFile.recover(path), "log not applied");
+		read.get(0).setRequirements(7);
+		check("recovered read back", read, path);
+		check("log removed", !new File(path + ".slots").exists(), "log still there");
+
+		/*
+		 * A torn log is thrown away and the file left as it was
+		 */
+		byte[] before = Files.readAllBytes(Paths.get(path));
+		image = (first.replace("1 Course1 true 2 ", "1 Course1 true 9 ") + System.lineSeparator()).getBytes();
+		log = log(0, image);
+		try (FileOutputStream out = new FileOutputStream(path + ".slots")) {
+			out.write(log, 0, log.length - 3);
+		}
+		check("torn log not applied", !SlotWriteFile.recover(path), "log applied");
+		check("file unchanged", Arrays.equals(before, Files.readAllBytes(Paths.get(path))), "file changed");
+		check("torn log removed", !new File(path + ".slots").exists(), "log still there");
+
+		if (failed) {
+			System.out.println("FAILED");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * Checks both readers give back the courses saved
+	 */
+	private static void check(String name, ArrayList<Course> courses, String path) {
+
+		String expected = describe(courses);
+		String mapped = describe(sorted(new MappedReadFile().readCourse(path)));
+		String scanned = describe(sorted(new ReadFile().readCourse(path)));
+		check(name + " (mapped)", mapped.equals(expected), mapped);
+		check(name + " (scanned)", scanned.equals(expected), scanned);
+	}
+
+	private static ArrayList<Course> sorted(ArrayList<Course> courses) {
+		courses.sort(Comparator.comparingInt(Course::getID));
+		return courses;
+	}
+
+	private static String describe(ArrayList<Course> courses) {
+
+		StringBuilder text = new StringBuilder();
+		for (Course course : courses) {
+			text.append(course.getID()).append(' ').append(course.getName()).append(' ')
+					.append(course.isApproved()).append(' ').append(course.getRequiredStaff()).append(' ')
+					.append(course.getAssignedStaff());
+			for (int i = 0; i < course.getStaffID().size(); i++) {
+				text.append(' ').append(course.getStaffID().get(i));
+			}
+			text.append('\n');
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Slot log holding one image, as SlotWriteFile writes it: position,
+	 * length and bytes of each image, then image count and CRC32
+	 */
+	private static byte[] log(long position, byte[] image) {
+
+		ByteBuffer log = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + image.length + Integer.BYTES + Long.BYTES);
+		log.putLong(position).putInt(image.length).put(image);
+		CRC32 crc = new CRC32();
+		crc.update(log.array(), 0, log.position());
+		log.putInt(1).putLong(crc.getValue());
+		return log.array();
+	}
+
+	private static List<String> lines(String path) throws Exception {
+		return Files.readAllLines(Paths.get(path));
+	}
+
+	private static int blankLines(String path) throws Exception {
+
+		int blank = 0;
+		for (String line : lines(path)) {
+			if (line.trim().isEmpty()) {
+				blank++;
+			}
+		}
+		return blank;
+	}
+
+	private static void check(String name, boolean passed, String detail) {
+		System.out.println((passed ? "Pass " : "FAIL ") + name + (passed ? "" : ": " + detail));
+		failed |= !passed;
+	}
+}
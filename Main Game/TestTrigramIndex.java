@@ -0,0 +1,220 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Checks TrigramIndex finds the same names as checking every name's edit
+ * distance, closest first, before and after renames remove enough
+ * entries for the index to be rebuilt. Then checks the lists, which only
+ * build their index on the first search, find the same names before and
+ * after staff and courses are added, renamed and replaced. Prints each
+ * check and exits with 1 if any fail.
+ */
+public class TestTrigramIndex {
+
+	private static final String[] FIRST = {"Anna", "Aaron", "Bob", "Bobby", "Rachel", "Rachael", "Steve", "Stephen",
+			"\u00c9mile", "Zo\u00eb", "Li", "Jo", "Andrew", "Rebecca", "Michael", "Mikhail"};
+	private static final String[] LAST = {"Smith", "Smyth", "Jones", "Johns", "Miller", "Muller", "Brown", "Braun",
+			"O'Neil", "Ng", "Callaghan", "Gallagher"};
+	private static final String[] QUERIES = {"ana smith", "rachel jons", "stephen brown", "bob", "li ng",
+			"emile braun", "zo\u00eb muller", "mikael miler", "x", "aaron gallaher"};
+
+	private static boolean failed;
+
+	public static void main(String[] args) {
+
+		Random random = new Random(7);
+		TrigramIndex index = new TrigramIndex();
+		HashMap<Integer, String> names = new HashMap<Integer, String>();
+
+		for (int ID = 1; ID <= 4000; ID++) {
+			String name = name(random);
+			index.add(ID, name);
+			names.put(ID, name);
+		}
+		check("added", index, names);
+
+		/*
+		 * Renaming most entries leaves enough removed ones for a rebuild
+		 */
+		for (int ID = 1; ID <= 3000; ID++) {
+			String name = name(random) + (ID % 2 == 0 ? " Jr" : "");
+			index.remove(ID, names.get(ID));
+			index.add(ID, name);
+			names.put(ID, name);
+		}
+		check("after rebuild", index, names);
+
+		/*
+		 * Removed names are not found again
+		 */
+		for (int ID = 3001; ID <= 4000; ID++) {
+			index.remove(ID, names.remove(ID));
+		}
+		check("after removal", index, names);
+
+		index.clear();
+		check("cleared", index.search("bob", 3, 10).length == 0, "names left");
+
+		checkLists(random);
+
+		if (failed) {
+			System.out.println("FAILED");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * Checks list searches against every name, first searching an index
+	 * built from a whole list, then one kept up to date as the list changes
+	 */
+	private static void checkLists(Random random) {
+
+		ListOfStaff staffList = new ListOfStaff();
+		ListOfCourses courseList = new ListOfCourses();
+		HashMap<Integer, String> staffNames = new HashMap<Integer, String>();
+		HashMap<Integer, String> courseNames = new HashMap<Integer, String>();
+
+		ArrayList<Staff> staff = new ArrayList<Staff>();
+		ArrayList<Course> courses = new ArrayList<Course>();
+		for (int ID = 1; ID <= 500; ID++) {
+			String name = name(random);
+			staff.add(new Staff(name, ID));
+			staffNames.put(ID, name);
+			courses.add(new Course(ID, name, 2));
+			courseNames.put(ID, name);
+		}
+		staffList.setStaffList(staff);
+		courseList.setCourseList(courses);
+		checkList("lists built on search", staffList, courseList, staffNames, courseNames);
+
+		for (int ID = 501; ID <= 600; ID++) {
+			String name = name(random);
+			staffList.addStaff(new Staff(name, ID));
+			staffNames.put(ID, name);
+			courseList.addCourse(new Course(ID, name, 2));
+			courseNames.put(ID, name);
+		}
+		for (int ID = 1; ID <= 100; ID++) {
+			String name = name(random) + " Jr";
+			staffList.find(ID).setName(name);
+			staffNames.put(ID, name);
+		}
+		checkList("lists after changes", staffList, courseList, staffNames, courseNames);
+
+		// Replacing the lists drops the old index, the next search builds a new one
+		staff = new ArrayList<Staff>();
+		courses = new ArrayList<Course>();
+		staffNames.clear();
+		courseNames.clear();
+		for (int ID = 1; ID <= 200; ID++) {
+			String name = name(random) + " Sr";
+			staff.add(new Staff(name, ID));
+			staffNames.put(ID, name);
+			courses.add(new Course(ID, name, 2));
+			courseNames.put(ID, name);
+		}
+		staffList.setStaffList(staff);
+		courseList.setCourseList(courses);
+		checkList("lists replaced", staffList, courseList, staffNames, courseNames);
+	}
+
+	/**
+	 * Checks each query finds every staff member and course within distance
+	 */
+	private static void checkList(String name, ListOfStaff staffList, ListOfCourses courseList,
+			HashMap<Integer, String> staffNames, HashMap<Integer, String> courseNames) {
+
+		for (String query : QUERIES) {
+			for (int maxDistance = 0; maxDistance <= 3; maxDistance++) {
+				int[] staffFound = staffList.searchByName(query, maxDistance, Integer.MAX_VALUE).stream()
+						.mapToInt(Staff::getID).sorted().toArray();
+				int[] coursesFound = courseList.searchByName(query, maxDistance, Integer.MAX_VALUE).stream()
+						.mapToInt(Course::getID).sorted().toArray();
+				if (!Arrays.equals(staffFound, within(query, maxDistance, staffNames))) {
+					check(name, false, query + " within " + maxDistance + " found " + staffFound.length + " staff");
+					return;
+				}
+				if (!Arrays.equals(coursesFound, within(query, maxDistance, courseNames))) {
+					check(name, false, query + " within " + maxDistance + " found " + coursesFound.length + " courses");
+					return;
+				}
+			}
+		}
+		check(name, true, "");
+	}
+
+	/**
+	 * Finds IDs of names within distance of query by checking every name
+	 */
+	private static int[] within(String query, int maxDistance, HashMap<Integer, String> names) {
+		return names.keySet().stream().filter(ID -> distance(query, names.get(ID), maxDistance) <= maxDistance)
+				.mapToInt(Integer::intValue).sorted().toArray();
+	}
+
+	private static String name(Random random) {
+		return FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)];
+	}
+
+	/**
+	 * Checks each query against every name, for a few distances and limits
+	 */
+	private static void check(String name, TrigramIndex index, HashMap<Integer, String> names) {
+
+		for (String query : QUERIES) {
+			for (int maxDistance = 0; maxDistance <= 3; maxDistance++) {
+
+				// Every ID within distance, found by checking all names
+				int[] all = index.search(query, maxDistance, Integer.MAX_VALUE);
+				int[] expected = new int[names.size()];
+				int count = 0;
+				for (int ID : names.keySet()) {
+					if (distance(query, names.get(ID), maxDistance) <= maxDistance) {
+						expected[count++] = ID;
+					}
+				}
+				expected = Arrays.copyOf(expected, count);
+				Arrays.sort(expected);
+				int[] found = all.clone();
+				Arrays.sort(found);
+				if (!Arrays.equals(found, expected)) {
+					check(name, false, query + " within " + maxDistance + " found " + found.length + " of " + expected.length);
+					return;
+				}
+
+				// Closest first, and a limit keeps the closest
+				for (int i = 1; i < all.length; i++) {
+					if (distance(query, names.get(all[i - 1]), maxDistance) > distance(query, names.get(all[i]), maxDistance)) {
+						check(name, false, query + " within " + maxDistance + " out of order at " + i);
+						return;
+					}
+				}
+				int[] limited = index.search(query, maxDistance, 5);
+				int worst = all.length <= 5 ? -1 : distance(query, names.get(all[4]), maxDistance);
+				for (int ID : limited) {
+					if (worst >= 0 && distance(query, names.get(ID), maxDistance) > worst) {
+						check(name, false, query + " limited to 5 kept a farther name");
+						return;
+					}
+				}
+				if (limited.length != Math.min(5, all.length)) {
+					check(name, false, query + " limited to " + limited.length + " of " + all.length);
+					return;
+				}
+			}
+		}
+		check(name, true, "");
+	}
+
+	private static int distance(String query, String name, int max) {
+		return TrigramIndex.distance(query.toLowerCase(Locale.ROOT), name.toLowerCase(Locale.ROOT), max);
+	}
+
+	private static void check(String name, boolean passed, String detail) {
+		System.out.println((passed ? "Pass " : "FAIL ") + name + (passed ? "" : ": " + detail));
+		failed |= !passed;
+	}
+}
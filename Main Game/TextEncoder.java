@@ -0,0 +1,198 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Encodes staff and course lines of the text file format straight into
+ * a ByteBuffer. Numbers and booleans are written digit by digit and
+ * ASCII names char by char, so no Strings are built per line.
+ * Used by WriteFile and SlotWriteFile.
+ *
+ * public static void putStaff(ByteBuffer buffer, Staff member)
+ * public static void putCourse(ByteBuffer buffer, Course course)
+ * public static int staffLength(Staff member)
+ * public static int courseLength(Course course)
+ * public static void putInt(ByteBuffer buffer, int value)
+ * public static void putBoolean(ByteBuffer buffer, boolean value)
+ * public static void putName(ByteBuffer buffer, String name)
+ *
+ */
+public class TextEncoder {
+
+	/**
+	 * Charset names are written in, same as FileWriter uses by default
+	 */
+	public static final Charset CHARSET = Charset.defaultCharset();
+
+	/**
+	 * Line separator bytes
+	 */
+	public static final byte[] NEWLINE = System.lineSeparator().getBytes(CHARSET);
+
+	private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+	private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+
+	/**
+	 * Method to put staff line " name ID available trained", without separator
+	 * @param buffer with at least staffLength(member) bytes remaining
+	 * @param member
+	 */
+	public static void putStaff(ByteBuffer buffer, Staff member) {
+		buffer.put((byte) ' ');
+		putName(buffer, member.getName());
+		buffer.put((byte) ' ');
+		putInt(buffer, member.getID());
+		buffer.put((byte) ' ');
+		putBoolean(buffer, member.isAvailable());
+		buffer.put((byte) ' ');
+		putBoolean(buffer, member.isTrained());
+	}
+
+	/**
+	 * Method to put course line "ID name approved required assigned staffID... ", without separator
+	 * @param buffer with at least courseLength(course) bytes remaining
+	 * @param course
+	 */
+	public static void putCourse(ByteBuffer buffer, Course course) {
+		putInt(buffer, course.getID());
+		buffer.put((byte) ' ');
+		putName(buffer, course.getName());
+		buffer.put((byte) ' ');
+		putBoolean(buffer, course.isApproved());
+		buffer.put((byte) ' ');
+		putInt(buffer, course.getRequiredStaff());
+		buffer.put((byte) ' ');
+		putInt(buffer, course.getAssignedStaff());
+		buffer.put((byte) ' ');
+
+		IntView staffID = course.getStaffID();
+		for (int i = 0; i < staffID.size(); i++) {
+			putInt(buffer, staffID.get(i));
+			buffer.put((byte) ' ');
+		}
+	}
+
+	/**
+	 * Method to get encoded length of staff line
+	 * @param member
+	 * @return bytes, without separator
+	 */
+	public static int staffLength(Staff member) {
+		return 4 + nameLength(member.getName()) + intLength(member.getID())
+				+ booleanLength(member.isAvailable()) + booleanLength(member.isTrained());
+	}
+
+	/**
+	 * Method to get encoded length of course line
+	 * @param course
+	 * @return bytes, without separator
+	 */
+	public static int courseLength(Course course) {
+
+		int length = 5 + intLength(course.getID()) + nameLength(course.getName()) + booleanLength(course.isApproved())
+				+ intLength(course.getRequiredStaff()) + intLength(course.getAssignedStaff());
+
+		IntView staffID = course.getStaffID();
+		for (int i = 0; i < staffID.size(); i++) {
+			length += intLength(staffID.get(i)) + 1;
+		}
+		return length;
+	}
+
+	/**
+	 * Method to put decimal int
+	 * @param buffer
+	 * @param value
+	 */
+	public static void putInt(ByteBuffer buffer, int value) {
+
+		long v = value;
+		if (v < 0) {
+			buffer.put((byte) '-');
+			v = -v;
+		}
+
+		// fill digits from the end
+		int end = buffer.position() + intLength(v);
+		int i = end;
+		do {
+			buffer.put(--i, (byte) ('0' + v % 10));
+			v /= 10;
+		} while (v != 0);
+
+		buffer.position(end);
+	}
+
+	/**
+	 * Method to put "true" or "false"
+	 * @param buffer
+	 * @param value
+	 */
+	public static void putBoolean(ByteBuffer buffer, boolean value) {
+		buffer.put(value ? TRUE : FALSE);
+	}
+
+	/**
+	 * Method to put name, ASCII names without creating a byte array
+	 * @param buffer
+	 * @param name
+	 */
+	public static void putName(ByteBuffer buffer, String name) {
+
+		if (!isAscii(name)) {
+			buffer.put(name.getBytes(CHARSET));
+			return;
+		}
+
+		for (int i = 0; i < name.length(); i++) {
+			buffer.put((byte) name.charAt(i));
+		}
+	}
+
+	/**
+	 * Encoded length of name
+	 * @param name
+	 * @return bytes
+	 */
+	private static int nameLength(String name) {
+		return isAscii(name) ? name.length() : name.getBytes(CHARSET).length;
+	}
+
+	/**
+	 * Checks name only has ASCII characters
+	 * @param name
+	 * @return true if ASCII
+	 */
+	private static boolean isAscii(String name) {
+		for (int i = 0; i < name.length(); i++) {
+			if (name.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Length of decimal int including sign
+	 * @param value
+	 * @return digits
+	 */
+	private static int intLength(long value) {
+
+		int length = value < 0 ? 2 : 1;
+		value = Math.abs(value);
+		while (value >= 10) {
+			value /= 10;
+			length++;
+		}
+		return length;
+	}
+
+	/**
+	 * Length of boolean
+	 * @param value
+	 * @return 4 or 5
+	 */
+	private static int booleanLength(boolean value) {
+		return value ? 4 : 5;
+	}
+}
@@ -0,0 +1,483 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Index of IDs by the three letter sequences (trigrams) in their names,
+ * for finding names close to a mistyped one. Each name added is given
+ * an entry number, and every trigram keeps the numbers of the entries
+ * containing it in increasing order.
+ * A search counts, for each entry, how many of the query's trigrams it
+ * shares. Each edit changes at most three of the query's trigrams, so an
+ * entry sharing few of them is known to be far away without checking.
+ * Entries are checked with a bounded edit distance in order of most
+ * trigrams shared, and the search stops as soon as no entry left can
+ * beat the results found. Renaming removes the old entry and adds a new
+ * one; removed entries are skipped until enough build up to rebuild.
+ * Each search counts in scratch of its own, so searches can run at the
+ * same time as each other, but not with add, remove or clear.
+ *
+ * Public methods:
+ * 	public void add(int ID, String name)
+ * 	public void remove(int ID, String name)
+ * 	public int[] search(String query, int maxDistance, int limit)
+ * 	public void clear()
+ * 	public static int distance(String a, String b, int max)
+ */
+public class TrigramIndex {
+
+	/**
+	 * Character names are padded with, two each side, so ends count as trigrams
+	 */
+	private static final char PAD = '\0';
+
+	/**
+	 * Removed entries allowed before the index is rebuilt
+	 */
+	private static final int REMOVED = 1024;
+
+	/**
+	 * Growable list of entry numbers for one trigram
+	 */
+	private static class Postings {
+		int[] entries = new int[4];
+		int size;
+	}
+
+	private IDIndex<Postings> grams = new IDIndex<Postings>(); // trigram to entries containing it
+	private String[] keys = new String[16]; // name of each entry, lower case, null once removed
+	private int[] ids = new int[16]; // ID of each entry
+	private int[] lengths = new int[16]; // length of each entry's name, checked before the name
+	private int count; // entries given out
+	private int removed; // entries removed
+
+	/**
+	 * Method to add ID under name
+	 * @param ID
+	 * @param name
+	 */
+	public void add(int ID, String name) {
+
+		String key = key(name);
+
+		if (count == keys.length) {
+			keys = Arrays.copyOf(keys, count * 2);
+			ids = Arrays.copyOf(ids, count * 2);
+			lengths = Arrays.copyOf(lengths, count * 2);
+		}
+		int entry = count++;
+		keys[entry] = key;
+		ids[entry] = ID;
+		lengths[entry] = key.length();
+
+		for (int gram : trigrams(key)) {
+			Postings postings = grams.get(gram);
+			if (postings == null) {
+				postings = new Postings();
+				grams.put(gram, postings);
+			}
+			if (postings.size == postings.entries.length) {
+				postings.entries = Arrays.copyOf(postings.entries, postings.size * 2);
+			}
+			postings.entries[postings.size++] = entry;
+		}
+	}
+
+	/**
+	 * Method to remove ID from under name
+	 * @param ID
+	 * @param name name ID was added under
+	 */
+	public void remove(int ID, String name) {
+
+		String key = key(name);
+
+		// Entry is in the postings of each of its trigrams, the first will do
+		Postings postings = grams.get(trigrams(key)[0]);
+		if (postings == null) {
+			return;
+		}
+		for (int i = 0; i < postings.size; i++) {
+			int entry = postings.entries[i];
+			if (ids[entry] == ID && key.equals(keys[entry])) {
+				keys[entry] = null;
+				removed++;
+				break;
+			}
+		}
+
+		if (removed > REMOVED && removed > count / 4) {
+			rebuild();
+		}
+	}
+
+	/**
+	 * Method to find IDs whose names are within maxDistance edits of query,
+	 * ignoring case. Closest names come first, then those sharing more
+	 * trigrams with the query
+	 * @param query name to look for
+	 * @param maxDistance most insertions, deletions and substitutions allowed
+	 * @param limit most IDs to return
+	 * @return IDs, best match first
+	 */
+	public int[] search(String query, int maxDistance, int limit) {
+
+		String key = key(query);
+		int[] queryGrams = trigrams(key);
+		Counts counts = new Counts();
+		int[] touched = new int[64];
+		int touchedCount = 0;
+
+		// Count trigrams shared by each entry, noting entries seen
+		for (int gram : queryGrams) {
+			Postings postings = grams.get(gram);
+			if (postings == null) {
+				continue;
+			}
+			for (int i = 0; i < postings.size; i++) {
+				int entry = postings.entries[i];
+				if (counts.increment(entry) == 0) {
+					if (touchedCount == touched.length) {
+						touched = Arrays.copyOf(touched, touchedCount * 2);
+					}
+					touched[touchedCount++] = entry;
+				}
+			}
+		}
+		int[] shared = new int[touchedCount];
+		for (int i = 0; i < touchedCount; i++) {
+			shared[i] = counts.get(touched[i]);
+		}
+
+		// Group entries seen by trigrams shared, most first
+		int[] starts = new int[queryGrams.length + 2];
+		for (int i = 0; i < touchedCount; i++) {
+			starts[queryGrams.length - shared[i] + 1]++;
+		}
+		for (int c = 1; c < starts.length; c++) {
+			starts[c] += starts[c - 1];
+		}
+		int[] ordered = new int[touchedCount];
+		int[] next = Arrays.copyOf(starts, starts.length);
+		for (int i = 0; i < touchedCount; i++) {
+			ordered[next[queryGrams.length - shared[i]]++] = touched[i];
+		}
+
+		int[] matched = matchable(key, queryGrams);
+		Results results = new Results(limit);
+		int[][] rows = new int[2][16];
+		for (int c = queryGrams.length; c >= 0 && results.wants(bound(key, matched[c]), maxDistance); c--) {
+
+			if (c > 0) {
+				int group = queryGrams.length - c;
+				for (int i = starts[group]; i < starts[group + 1]; i++) {
+					check(ordered[i], key, maxDistance, results, rows);
+				}
+			} else {
+				// Entries sharing nothing, only reached for short queries
+				for (int entry = 0; entry < count; entry++) {
+					if (counts.get(entry) == 0) {
+						check(entry, key, maxDistance, results, rows);
+					}
+				}
+			}
+		}
+		return results.ids();
+	}
+
+	/**
+	 * Method to remove all names
+	 */
+	public void clear() {
+		grams = new IDIndex<Postings>();
+		keys = new String[16];
+		ids = new int[16];
+		lengths = new int[16];
+		count = 0;
+		removed = 0;
+	}
+
+	/**
+	 * Method to find edit distance between two strings, giving up once it
+	 * is more than max
+	 * @param a
+	 * @param b
+	 * @param max greatest distance of interest
+	 * @return insertions, deletions and substitutions to turn a into b, max + 1 if more than max
+	 */
+	public static int distance(String a, String b, int max) {
+		return distance(a, b, max, new int[2][b.length() + 1]);
+	}
+
+	/**
+	 * Edit distance using rows given, grown if too short
+	 */
+	private static int distance(String a, String b, int max, int[][] rows) {
+
+		if (Math.abs(a.length() - b.length()) > max) {
+			return max + 1;
+		}
+
+		if (rows[0].length <= b.length()) {
+			rows[0] = new int[b.length() + 1];
+			rows[1] = new int[b.length() + 1];
+		}
+		int[] previous = rows[0];
+		int[] current = rows[1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			int best = i;
+			char ca = a.charAt(i - 1);
+
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = ca == b.charAt(j - 1) ? 0 : 1;
+				current[j] = Math.min(Math.min(current[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+				best = Math.min(best, current[j]);
+			}
+
+			// Every later row is at least the smallest value in this one
+			if (best > max) {
+				return max + 1;
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return Math.min(previous[b.length()], max + 1);
+	}
+
+	/**
+	 * Best results found so far, kept in rank order
+	 */
+	private static class Results {
+
+		private final int limit;
+		private final ArrayList<int[]> found = new ArrayList<int[]>(); // {distance, ID}
+
+		Results(int limit) {
+			this.limit = limit;
+		}
+
+		/**
+		 * Whether an entry at least bound edits away could still be added
+		 */
+		boolean wants(int bound, int maxDistance) {
+			return bound <= maxDistance && (found.size() < limit || (limit > 0 && bound < worst()));
+		}
+
+		/**
+		 * Greatest distance a new result may have
+		 */
+		int cutoff(int maxDistance) {
+			return found.size() < limit ? maxDistance : worst() - 1;
+		}
+
+		/**
+		 * Adds result after those at the same distance, which were found first
+		 */
+		void add(int distance, int ID) {
+			int i = found.size();
+			while (i > 0 && found.get(i - 1)[0] > distance) {
+				i--;
+			}
+			found.add(i, new int[] { distance, ID });
+			if (found.size() > limit) {
+				found.remove(limit);
+			}
+		}
+
+		int[] ids() {
+			int[] result = new int[found.size()];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = found.get(i)[1];
+			}
+			return result;
+		}
+
+		private int worst() {
+			return found.get(found.size() - 1)[0];
+		}
+	}
+
+	/**
+	 * Trigrams shared with the query by each entry seen, made for each
+	 * search. Open addressing on entry number, as few entries are seen
+	 */
+	private static class Counts {
+
+		private int[] entries = new int[64]; // entry + 1 in each slot, 0 if empty
+		private int[] counts = new int[64];
+		private int size;
+
+		/**
+		 * Adds one to the count of entry
+		 * @return count before
+		 */
+		int increment(int entry) {
+			if ((size + 1) * 2 > entries.length) {
+				grow();
+			}
+			int slot = slot(entry);
+			if (entries[slot] == 0) {
+				entries[slot] = entry + 1;
+				size++;
+			}
+			return counts[slot]++;
+		}
+
+		/**
+		 * Count of entry, 0 if not seen
+		 */
+		int get(int entry) {
+			return counts[slot(entry)];
+		}
+
+		/**
+		 * Slot holding entry, or the empty slot it would go in
+		 */
+		private int slot(int entry) {
+			int mask = entries.length - 1;
+			int hash = entry * 0x9E3779B9;
+			int slot = (hash ^ hash >>> 16) & mask;
+			while (entries[slot] != 0 && entries[slot] != entry + 1) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private void grow() {
+			int[] oldEntries = entries;
+			int[] oldCounts = counts;
+			entries = new int[oldEntries.length * 2];
+			counts = new int[entries.length];
+			for (int i = 0; i < oldEntries.length; i++) {
+				if (oldEntries[i] != 0) {
+					int slot = slot(oldEntries[i] - 1);
+					entries[slot] = oldEntries[i];
+					counts[slot] = oldCounts[i];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks distance of entry from query and keeps it if close enough
+	 * @param rows edit distance rows, reused between checks of one search
+	 */
+	private void check(int entry, String key, int maxDistance, Results results, int[][] rows) {
+
+		int cutoff = results.cutoff(maxDistance);
+		if (Math.abs(lengths[entry] - key.length()) > cutoff || keys[entry] == null) {
+			return;
+		}
+		int distance = distance(keys[entry], key, cutoff, rows);
+		if (distance <= cutoff) {
+			results.add(distance, ids[entry]);
+		}
+	}
+
+	/**
+	 * Fewest edits an entry can be from the query when it has at most
+	 * matched of the query's trigrams in place, each edit changing three
+	 * @param key lower case query
+	 * @param matched trigrams of the query, counted with repeats, the entry could have
+	 * @return lower bound on edit distance
+	 */
+	private static int bound(String key, int matched) {
+		return (key.length() + 2 - matched + 2) / 3;
+	}
+
+	/**
+	 * Most trigrams of the query, counted with repeats, that an entry
+	 * sharing c distinct trigrams with it can have in place, for each c.
+	 * This is the c most repeated trigrams' counts added up
+	 * @param key lower case query
+	 * @param grams distinct trigrams of query
+	 * @return array indexed by c
+	 */
+	private static int[] matchable(String key, int[] grams) {
+
+		int[] repeats = new int[grams.length];
+		int[] all = codes("" + PAD + PAD + key + PAD + PAD);
+		for (int code : all) {
+			for (int g = 0; g < grams.length; g++) {
+				if (grams[g] == code) {
+					repeats[g]++;
+				}
+			}
+		}
+		Arrays.sort(repeats);
+
+		int[] matchable = new int[grams.length + 1];
+		for (int c = 1; c <= grams.length; c++) {
+			matchable[c] = matchable[c - 1] + repeats[grams.length - c];
+		}
+		return matchable;
+	}
+
+	/**
+	 * Adds the remaining entries to a new index, dropping removed ones
+	 */
+	private void rebuild() {
+
+		String[] oldKeys = keys;
+		int[] oldIds = ids;
+		int oldCount = count;
+
+		clear();
+		for (int entry = 0; entry < oldCount; entry++) {
+			if (oldKeys[entry] != null) {
+				add(oldIds[entry], oldKeys[entry]);
+			}
+		}
+	}
+
+	/**
+	 * Distinct trigrams of padded key, each packed into an int ten bits a character.
+	 * Characters past 1023 share codes, which only lets more entries through to be checked
+	 * @param key lower case name
+	 * @return trigram codes
+	 */
+	private static int[] trigrams(String key) {
+
+		int[] all = codes("" + PAD + PAD + key + PAD + PAD);
+		int[] distinct = new int[all.length];
+		int n = 0;
+
+		for (int code : all) {
+			boolean seen = false;
+			for (int j = 0; j < n && !seen; j++) {
+				seen = distinct[j] == code;
+			}
+			if (!seen) {
+				distinct[n++] = code;
+			}
+		}
+		return Arrays.copyOf(distinct, n);
+	}
+
+	/**
+	 * Code of every trigram in padded, in order, repeats included
+	 */
+	private static int[] codes(String padded) {
+
+		int[] codes = new int[padded.length() - 2];
+		for (int i = 0; i < codes.length; i++) {
+			codes[i] = (padded.charAt(i) & 0x3FF) << 20 | (padded.charAt(i + 1) & 0x3FF) << 10 | (padded.charAt(i + 2) & 0x3FF);
+		}
+		return codes;
+	}
+
+	/**
+	 * Lower case form names are compared in
+	 * @param name
+	 * @return key
+	 */
+	private static String key(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+}
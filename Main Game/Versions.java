@@ -0,0 +1,263 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Committed versions of staff and courses, for ModelSnapshots to read
+ * while the Model carries on changing. Each change is given the next
+ * version number, and every staff member and course it touched is copied
+ * and added to the front of that record's chain of versions. A copy is
+ * never changed once added, so a snapshot at version v reads each record
+ * as the newest copy no later than v without any locking, and sees all
+ * of a change or none of it.
+ * Open snapshots are counted by version. Copies older than the one the
+ * oldest open snapshot would read are dropped from a record's chain when
+ * the record is next copied, and from every chain holding old copies
+ * when the oldest open snapshot closes, so closing the last snapshot
+ * leaves only the newest copy of each record.
+ * Changes to different records are published from several threads at
+ * once, so publishing holds this object's lock while it numbers the
+ * change, copies its records and commits it.
+ *
+ * Public methods:
+ * 	public Versions(Collection<Staff> staffList, Collection<Course> courseList)
+ * 	public ModelSnapshot open()
+ * 	public void publish(Staff staff, Course... courses)
+ * 	public long version()
+ */
+public class Versions {
+
+	/**
+	 * Copy of a record as of a version, linked to the one before it
+	 */
+	private static final class Version<T> {
+
+		final long number;
+		final T record;
+		volatile Version<T> older;
+
+		Version(long number, T record, Version<T> older) {
+			this.number = number;
+			this.record = record;
+			this.older = older;
+		}
+	}
+
+	/**
+	 * Newest version of one record
+	 */
+	private static final class Chain<T> {
+		volatile Version<T> head;
+	}
+
+	/**
+	 * Version chains of one kind of record, kept in the order records were added.
+	 * Readers do not lock, changes to chains lock the store
+	 */
+	static final class Store<T> {
+
+		private final ConcurrentHashMap<Integer, Chain<T>> byID = new ConcurrentHashMap<Integer, Chain<T>>();
+		private volatile Chain<T>[] chains = newChains(16);
+		private volatile int count;
+		private final HashSet<Chain<T>> history = new HashSet<Chain<T>>(); // chains holding more than one copy
+
+		/**
+		 * Adds copy of record as of version number, dropping copies no
+		 * snapshot at or after oldest can read
+		 */
+		synchronized void publish(int ID, T copy, long number, long oldest) {
+
+			Chain<T> chain = byID.get(ID);
+			boolean added = chain == null;
+			if(added) {
+				chain = new Chain<T>();
+				if(count == chains.length) {
+					Chain<T>[] grown = newChains(count * 2);
+					System.arraycopy(chains, 0, grown, 0, count);
+					chains = grown;
+				}
+				chains[count] = chain;
+				byID.put(ID, chain);
+			}
+
+			chain.head = new Version<T>(number, copy, chain.head);
+			prune(chain, oldest);
+
+			// Count written last so readers never see a chain before its first copy
+			if(added) {
+				count++;
+			}
+		}
+
+		/**
+		 * Drops copies no snapshot at or after oldest can read from every chain
+		 */
+		synchronized void prune(long oldest) {
+			for(Chain<T> chain : new ArrayList<Chain<T>>(history)) {
+				prune(chain, oldest);
+			}
+		}
+
+		/**
+		 * Drops copies older than the newest at or before oldest from chain,
+		 * noting whether it still holds more than one
+		 */
+		private void prune(Chain<T> chain, long oldest) {
+
+			for(Version<T> version = chain.head; version != null; version = version.older) {
+				if(version.number <= oldest) {
+					version.older = null;
+					break;
+				}
+			}
+			if(chain.head.older == null) {
+				history.remove(chain);
+			} else {
+				history.add(chain);
+			}
+		}
+
+		/**
+		 * Record with ID as of version number
+		 * @return copy, null if record did not exist then
+		 */
+		T get(int ID, long number) {
+			Chain<T> chain = byID.get(ID);
+			return chain == null ? null : get(chain, number);
+		}
+
+		/**
+		 * Every record that existed as of version number, in the order added
+		 */
+		ArrayList<T> all(long number) {
+
+			int size = count;
+			Chain<T>[] current = chains;
+			ArrayList<T> records = new ArrayList<T>(size);
+
+			for(int i = 0; i < size; i++) {
+				T record = get(current[i], number);
+				if(record != null) {
+					records.add(record);
+				}
+			}
+			return records;
+		}
+
+		private T get(Chain<T> chain, long number) {
+			Version<T> version = chain.head;
+			while(version != null && version.number > number) {
+				version = version.older;
+			}
+			return version == null ? null : version.record;
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <T> Chain<T>[] newChains(int size) {
+			return (Chain<T>[]) new Chain<?>[size];
+		}
+	}
+
+	final Store<Staff> staff = new Store<Staff>();
+	final Store<Course> courses = new Store<Course>();
+
+	/**
+	 * Last version published
+	 */
+	private volatile long committed;
+
+	/**
+	 * Open snapshots by version, guarded by itself
+	 */
+	private final TreeMap<Long, Integer> readers = new TreeMap<Long, Integer>();
+
+	/**
+	 * Constructor, publishing copies of every record as version 0
+	 * @param staffList staff to start with
+	 * @param courseList courses to start with
+	 */
+	public Versions(Collection<Staff> staffList, Collection<Course> courseList) {
+
+		for(Staff member : staffList) {
+			staff.publish(member.getID(), member.copy(), 0, 0);
+		}
+		for(Course course : courseList) {
+			courses.publish(course.getID(), course.copy(), 0, 0);
+		}
+	}
+
+	/**
+	 * Method to open a snapshot of the last version published. Close it
+	 * once finished with, or the versions it reads are never reclaimed
+	 * @return snapshot
+	 */
+	public ModelSnapshot open() {
+
+		synchronized(readers) {
+			long version = committed;
+			readers.merge(version, 1, Integer::sum);
+			return new ModelSnapshot(this, version);
+		}
+	}
+
+	/**
+	 * Method to publish copies of records touched by a change as the next version
+	 * @param staff staff member changed, null if none
+	 * @param courses courses changed
+	 */
+	public synchronized void publish(Staff staff, Course... courses) {
+
+		long oldest = oldest();
+		long number = committed + 1;
+
+		if(staff != null) {
+			this.staff.publish(staff.getID(), staff.copy(), number, oldest);
+		}
+		for(Course course : courses) {
+			this.courses.publish(course.getID(), course.copy(), number, oldest);
+		}
+
+		// Readers only look at the new copies once this is written
+		committed = number;
+	}
+
+	/**
+	 * Method to get last version published
+	 * @return version number
+	 */
+	public long version() {
+		return committed;
+	}
+
+	/**
+	 * Called by ModelSnapshot.close
+	 * @param version version of snapshot closed
+	 */
+	void close(long version) {
+
+		long oldest;
+		synchronized(readers) {
+			readers.computeIfPresent(version, (v, open) -> open == 1 ? null : open - 1);
+			if(readers.containsKey(version) || (!readers.isEmpty() && readers.firstKey() < version)) {
+				return;
+			}
+			oldest = readers.isEmpty() ? committed : readers.firstKey();
+		}
+
+		// Was the oldest open, copies only it could read can go now
+		staff.prune(oldest);
+		courses.prune(oldest);
+	}
+
+	/**
+	 * Oldest version an open snapshot, or one about to open, may read
+	 */
+	private long oldest() {
+
+		synchronized(readers) {
+			return readers.isEmpty() ? committed : readers.firstKey();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 
-import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  * This is the view class for our application. It takes input from the controller and displays the menu options or content of the input.
@@ -7,7 +7,7 @@ import java.util.ArrayList;
  * 
  * Public Methods: 
  * public void selectUser()
- * public void displayCourses(ArrayList<Course> courses)
+ * public void displayCourses(Collection<Course> courses)
  * public void incorrectInput() 
  * public void exit()
  * public void newLine()
@@ -16,8 +16,8 @@ import java.util.ArrayList;
  * public void createCourse()
  * public void askRequirement()
  * public void adminOptions()
- * public void displayStaff(ArrayList<Staff> staffList) 
- * public void staffProfile(Staff staff)
+ * public void displayStaff(Collection<Staff> staffList) 
+ * public void staffProfile(Staff staff, Collection<Course> courses)
  * public void displayAdminCourseOptions()
  * public void createStaff()
  * public void trainStaffOptions()
@@ -43,11 +43,11 @@ public class View {
         exit();
     }
     /**
-     * Method to display list of course, courses are passed as an ArrayList. 
-     * Method iterates over arraylist and prints out list of courses with numbered menu options.
+     * Method to display list of course, courses are passed as an ArrayList or a live view from Model. 
+     * Method iterates over the courses and prints out list of courses with numbered menu options.
      * @param courses
      */
-    public void displayCourses(ArrayList<Course> courses) {
+    public void displayCourses(Collection<Course> courses) {
         //iterate over course list and print out each class, then a quit item at the end
         if (courses.size() == 0) {
             System.out.println("There are no courses to display!");
@@ -124,11 +124,11 @@ public class View {
         exit();
     }
     /**
-     * Method to iterate over ArrayList of Staff and print out each member of staff
+     * Method to iterate over ArrayList or live view of Staff and print out each member of staff
      * Will display empty staff list message if arraylist is empty
      * @param staffList
      */
-    public void displayStaff(ArrayList<Staff> staffList) {
+    public void displayStaff(Collection<Staff> staffList) {
         newLine();
         if (staffList.size() == 0) {
             System.out.println("There are no staff to display.");
@@ -142,11 +142,21 @@ public class View {
         exit();
     }
     /**
-     * Method to display the content of the staff object
+     * Method to display the content of the staff object and the courses they are assigned to
+     * @param staff
+     * @param courses courses the staff member is on, from Model.findStaffCourses or viewStaffCourses
      */
-    public void staffProfile(Staff staff) {
+    public void staffProfile(Staff staff, Collection<Course> courses) {
         newLine();
         System.out.println(staff + "Trained: " + staff.isTrained());
+        if (courses.size() == 0) {
+            System.out.println("Not assigned to any courses.");
+        } else {
+            System.out.println("Courses:");
+            for (Course course : courses) {
+                System.out.println("  " + course.getName());
+            }
+        }
         exit();
     }
     /**
@@ -1,35 +1,57 @@
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.List;
 
 /**
  * WriteFile class for Software Engineering project
  * 
- * @author 2205885M Michael Miller public void staffToFile(String destination,
- *         ArrayList<Staff> tempStaffArray) public void courseToFile(String
+ * Lines are encoded by TextEncoder straight into a reusable direct buffer
+ * which is written through a FileChannel when full. Files are written to
+ * a temporary file and renamed into place by AtomicFile.
+ * 
+ * @author 2205885M Michael Miller public boolean staffToFile(String destination,
+ *         ArrayList<Staff> tempStaffArray) public boolean courseToFile(String
  *         destination, ArrayList<Course> tempCourseArray)
  *
  */
 
 public class WriteFile {
+
+	/**
+	 * Buffer lines are encoded into, kept between calls
+	 */
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+
 	/**
 	 * Method to write staff list to file
 	 * 
 	 * @param destination    is the path for the the file specified. i.e where and
 	 *                       what the new file will be called
 	 * @param tempStaffArray arrayList of staff to be committed to file
+	 * @return true if file written and forced to disk
 	 */
-	public void staffToFile(String destination, ArrayList<Staff> tempStaffArray) {
-		try {
-			FileWriter writer = new FileWriter(destination);
+	public boolean staffToFile(String destination, ArrayList<Staff> tempStaffArray) {
+		String temp = AtomicFile.temp(destination);
+		try (FileChannel channel = open(temp)) {
 			for (Staff member : tempStaffArray) {
-				writer.write((" " + member.getName() + " " + member.getID() + " " + member.isAvailable() + " "
-						+ member.isTrained()) + System.lineSeparator());
+				ensure(channel, TextEncoder.staffLength(member) + TextEncoder.NEWLINE.length);
+				TextEncoder.putStaff(buffer, member);
+				buffer.put(TextEncoder.NEWLINE);
 			}
-			writer.close();
+			drain(channel);
+			channel.force(true);
 		} catch (IOException e) {
 			e.printStackTrace();
+			return false;
+		}
+
+		try {
+			AtomicFile.replace(temp, destination);
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
 		}
 
 	}
@@ -40,31 +62,73 @@ public class WriteFile {
 	 * @param destination     is the path for the the file specified. i.e where and
 	 *                        what the new file will be called
 	 * @param tempCourseArray arrayList of courses to be committed to file
+	 * @return true if file written and forced to disk
 	 */
-	public void courseToFile(String destination, ArrayList<Course> tempCourseArray) {
-		String builder = " ";
-		String Staff = " ";
-
-		try {
-			FileWriter writer = new FileWriter(destination);
+	public boolean courseToFile(String destination, ArrayList<Course> tempCourseArray) {
+		String temp = AtomicFile.temp(destination);
+		try (FileChannel channel = open(temp)) {
 			for (Course course : tempCourseArray) {
-				builder = " ";
-				 builder = + course.getID() + " " + course.getName() + " " + course.isApproved()
-						+ " " + course.getRequiredStaff() + " " + course.getAssignedStaff() + builder;
-				        
-				        
-				for (int id : course.getStaffID()) {
-					builder += id + " ";
-				}
-				writer.write(builder + System.lineSeparator());
-
+				ensure(channel, TextEncoder.courseLength(course) + TextEncoder.NEWLINE.length);
+				TextEncoder.putCourse(buffer, course);
+				buffer.put(TextEncoder.NEWLINE);
 			}
-			writer.close();
+			drain(channel);
+			channel.force(true);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+
+		try {
+			AtomicFile.replace(temp, destination);
+			return true;
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
 			e.printStackTrace();
+			return false;
 		}
 
 	}
 
+	/**
+	 * Opens empty temporary file for writing
+	 * 
+	 * @param temp path of temporary file
+	 * @return channel
+	 * @throws IOException if file cannot be opened
+	 */
+	private FileChannel open(String temp) throws IOException {
+		buffer.clear();
+		return AtomicFile.create(temp);
+	}
+
+	/**
+	 * Makes room for a line, growing the buffer for very long lines
+	 * 
+	 * @param channel file being written
+	 * @param bytes   length of line
+	 * @throws IOException if write fails
+	 */
+	private void ensure(FileChannel channel, int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			drain(channel);
+		}
+		if (buffer.remaining() < bytes) {
+			buffer = ByteBuffer.allocateDirect(bytes);
+		}
+	}
+
+	/**
+	 * Writes buffer to file and clears it
+	 * 
+	 * @param channel file being written
+	 * @throws IOException if write fails
+	 */
+	private void drain(FileChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
 }